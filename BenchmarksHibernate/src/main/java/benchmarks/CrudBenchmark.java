@@ -0,0 +1,119 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import conexion.HibernateUtil;
+import crud.RestauranteCRUDHibernate;
+import dto.LineaPedido;
+import dto.ResultadoLote;
+
+/**
+ * Benchmarks de los métodos más usados de RestauranteCRUDHibernate.
+ * Cada uno se mide en rendimiento (operaciones/ms) y tiempo medio (ms/operación);
+ * EjecutarBenchmarks añade el perfilador de GC para ver la memoria reservada por operación.
+ * Los métodos terminados en "Concurrente" repiten la operación con varios hilos a la vez.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrudBenchmark {
+
+    /** Hilos de los benchmarks concurrentes */
+    private static final int HILOS = 8;
+
+    // ==================== INSERTAR ====================
+
+    @Benchmark
+    public boolean insertarMesa(DatosRestaurante datos) {
+        return RestauranteCRUDHibernate.insertarMesa(4, 0);
+    }
+
+    @Benchmark
+    public boolean insertarPedido(DatosRestaurante datos) {
+        return RestauranteCRUDHibernate.insertarPedido(datos.facturaAlAzar(), datos.productoAlAzar(), 1);
+    }
+
+    @Benchmark
+    public ResultadoLote insertarPedidosLote(DatosRestaurante datos) {
+        int idFactura = datos.facturaAlAzar();
+        List<LineaPedido> lineas = new ArrayList<>(RestauranteCRUDHibernate.TAMANO_LOTE);
+        for (int i = 0; i < RestauranteCRUDHibernate.TAMANO_LOTE; i++) {
+            lineas.add(new LineaPedido(idFactura, datos.productoAlAzar(), 1));
+        }
+        return RestauranteCRUDHibernate.insertarPedidos(lineas);
+    }
+
+    @Benchmark
+    @Threads(HILOS)
+    public boolean insertarPedidoConcurrente(DatosRestaurante datos) {
+        return insertarPedido(datos);
+    }
+
+    // ==================== LISTAR ====================
+
+    @Benchmark
+    public String listarTodo(DatosRestaurante datos) {
+        return sinError(RestauranteCRUDHibernate.listar("Factura", null, null));
+    }
+
+    @Benchmark
+    public String listarFiltrado(DatosRestaurante datos) {
+        return sinError(RestauranteCRUDHibernate.listar("Pedido", "idFactura", String.valueOf(datos.facturaAlAzar())));
+    }
+
+    @Benchmark
+    @Threads(HILOS)
+    public String listarFiltradoConcurrente(DatosRestaurante datos) {
+        return listarFiltrado(datos);
+    }
+
+    // ==================== MODIFICAR ====================
+
+    @Benchmark
+    public boolean modificarPedido(DatosRestaurante datos) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            boolean correcto = RestauranteCRUDHibernate.modificarPedido(session, datos.pedidoAlAzar(),
+                    1 + ThreadLocalRandom.current().nextInt(10));
+            if (correcto) transaction.commit();
+            else transaction.rollback();
+            return correcto;
+        }
+    }
+
+    @Benchmark
+    @Threads(HILOS)
+    public boolean modificarPedidoConcurrente(DatosRestaurante datos) {
+        return modificarPedido(datos);
+    }
+
+    /**
+     * listar no lanza excepciones: devuelve el error como texto empezando por "✗".
+     * Se convierte en excepción para que el benchmark falle en lugar de medir el camino de error.
+     *
+     * @param resultado texto devuelto por listar
+     * @return el mismo texto si no es un error
+     */
+    static String sinError(String resultado) {
+        if (resultado.startsWith("✗")) {
+            throw new IllegalStateException(resultado);
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import conexion.HibernateUtil;
+import crud.RestauranteCRUDHibernate;
+import dto.LineaPedido;
+
+/**
+ * Estado compartido por los benchmarks: la SessionFactory sobre H2 y unos datos iniciales.
+ * Cada benchmark se ejecuta en su propia JVM (fork), así que parte de una base de datos recién creada.
+ */
+@State(Scope.Benchmark)
+public class DatosRestaurante {
+
+    /** Fichero de configuración de Hibernate con H2 en memoria */
+    public static final String CONFIGURACION = "hibernate-benchmark.cfg.xml";
+
+    public static final int MESAS = 50;
+    public static final int PRODUCTOS = 100;
+    public static final int FACTURAS = 200;
+    public static final int PEDIDOS_POR_FACTURA = 20;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        System.setProperty(HibernateUtil.PROPIEDAD_CONFIGURACION,
+                System.getProperty(HibernateUtil.PROPIEDAD_CONFIGURACION, CONFIGURACION));
+
+        // Los métodos CRUD escriben en consola en cada llamada; no es lo que se quiere medir
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        for (int i = 1; i <= MESAS; i++) {
+            RestauranteCRUDHibernate.insertarMesa(4, 0);
+        }
+        for (int i = 1; i <= PRODUCTOS; i++) {
+            RestauranteCRUDHibernate.insertarProducto("Producto " + i, 1.0 + i % 10);
+        }
+        for (int i = 1; i <= FACTURAS; i++) {
+            RestauranteCRUDHibernate.insertarFactura(1 + i % MESAS, i % 2 == 0 ? "Efectivo" : "Tarjeta", 0);
+        }
+
+        List<LineaPedido> lineas = new ArrayList<>();
+        for (int f = 1; f <= FACTURAS; f++) {
+            for (int p = 0; p < PEDIDOS_POR_FACTURA; p++) {
+                lineas.add(new LineaPedido(f, 1 + (f + p) % PRODUCTOS, 1));
+            }
+        }
+        RestauranteCRUDHibernate.insertarPedidos(lineas);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        HibernateUtil.shutdown();
+    }
+
+    /** @return ID de una factura existente al azar */
+    public int facturaAlAzar() {
+        return 1 + ThreadLocalRandom.current().nextInt(FACTURAS);
+    }
+
+    /** @return ID de un producto existente al azar */
+    public int productoAlAzar() {
+        return 1 + ThreadLocalRandom.current().nextInt(PRODUCTOS);
+    }
+
+    /** @return ID de uno de los pedidos iniciales al azar */
+    public int pedidoAlAzar() {
+        return 1 + ThreadLocalRandom.current().nextInt(FACTURAS * PEDIDOS_POR_FACTURA);
+    }
+}
@@ -0,0 +1,32 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lanza los benchmarks con el perfilador de GC y guarda los resultados en JSON
+ * para poder compararlos con ejecuciones posteriores.
+ * Admite las opciones normales de JMH, por ejemplo: java -jar target/benchmarks.jar listar -f 1 -wi 1
+ */
+public class EjecutarBenchmarks {
+
+    /** Fichero donde se guardan los resultados */
+    private static final String RESULTADOS = "resultados-benchmark.json";
+
+    public static void main(String[] args) throws Exception {
+        Options opciones = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTADOS)
+                // Un benchmark que lanza una excepción detiene la ejecución con error
+                // en lugar de quedar fuera de los resultados sin avisar
+                .shouldFailOnError(true)
+                .build();
+        new Runner(opciones).run();
+    }
+}
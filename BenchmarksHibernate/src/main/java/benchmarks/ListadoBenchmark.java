@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import conexion.HibernateUtil;
+import crud.RestauranteCRUDHibernate;
+import entidades.Pedido;
+
+/**
+ * Compara la memoria reservada al listar todos los pedidos como entidades gestionadas
+ * (como hacía listar antes) y como vistas de solo lectura (como lo hace ahora).
+ * Lo interesante es gc.alloc.rate.norm (bytes por operación) del perfilador de GC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListadoBenchmark {
+
+    /** Entidades en una Session normal: contexto de persistencia, copias para dirty checking y proxies */
+    @Benchmark
+    public String entidades(DatosRestaurante datos) {
+        StringBuilder resultado = new StringBuilder();
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.createQuery("FROM Pedido", Pedido.class).list()
+                    .forEach(p -> resultado.append(p).append("\n"));
+        }
+        return resultado.toString();
+    }
+
+    /** Entidades en una Session de solo lectura: sin copias para dirty checking, pero con contexto y proxies */
+    @Benchmark
+    public String entidadesSoloLectura(DatosRestaurante datos) {
+        StringBuilder resultado = new StringBuilder();
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.setDefaultReadOnly(true);
+            session.createQuery("FROM Pedido", Pedido.class).list()
+                    .forEach(p -> resultado.append(p).append("\n"));
+        }
+        return resultado.toString();
+    }
+
+    /** Vistas (PedidoView) con RestauranteCRUDHibernate.listar */
+    @Benchmark
+    public String vistas(DatosRestaurante datos) {
+        return CrudBenchmark.sinError(RestauranteCRUDHibernate.listar("Pedido", null, null));
+    }
+
+    /** Vistas recorridas con StatelessSession y cursor, sin construir el listado completo */
+    @Benchmark
+    public long vistasRecorrido(DatosRestaurante datos) {
+        return RestauranteCRUDHibernate.recorrer("Pedido", null, null, vista -> { });
+    }
+}
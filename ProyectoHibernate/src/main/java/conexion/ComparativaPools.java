@@ -0,0 +1,171 @@
+package conexion;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.Configuration;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Comparativa del tiempo que se tarda en obtener una conexión con HikariCP y con C3P0.
+ * Ambos pools usan la base de datos y el tamaño máximo configurados en hibernate.cfg.xml
+ * (o el fichero indicado en la propiedad HibernateUtil.PROPIEDAD_CONFIGURACION).
+ * Varios hilos piden conexiones a la vez, ejecutan SELECT 1 y las devuelven,
+ * de forma que hay más hilos que conexiones y se mide también la espera por el pool.
+ *
+ * Uso: java conexion.ComparativaPools [hilos] [peticionesPorHilo]
+ */
+public class ComparativaPools {
+
+    /**
+     * Hilos concurrentes por defecto
+     */
+    private static final int HILOS = 50;
+
+    /**
+     * Conexiones que pide cada hilo por defecto
+     */
+    private static final int PETICIONES_POR_HILO = 200;
+
+    public static void main(String[] args) throws Exception {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : HILOS;
+        int peticiones = args.length > 1 ? Integer.parseInt(args[1]) : PETICIONES_POR_HILO;
+
+        Properties propiedades = new Configuration()
+                .configure(System.getProperty(HibernateUtil.PROPIEDAD_CONFIGURACION, "hibernate.cfg.xml"))
+                .getProperties();
+        String url = propiedades.getProperty("hibernate.connection.url");
+        String usuario = propiedades.getProperty("hibernate.connection.username");
+        String password = propiedades.getProperty("hibernate.connection.password");
+        int tamanoPool = Integer.parseInt(propiedades.getProperty("hibernate.hikari.maximumPoolSize", "20"));
+
+        System.out.println("Comparativa de pools: " + hilos + " hilos x " + peticiones
+                + " peticiones, " + tamanoPool + " conexiones como máximo");
+
+        HikariConfig configHikari = new HikariConfig();
+        configHikari.setPoolName("ComparativaHikari");
+        configHikari.setJdbcUrl(url);
+        configHikari.setUsername(usuario);
+        configHikari.setPassword(password);
+        configHikari.setMinimumIdle(tamanoPool);
+        configHikari.setMaximumPoolSize(tamanoPool);
+        configHikari.setMetricsTrackerFactory(new MetricasPool());
+
+        try (HikariDataSource hikari = new HikariDataSource(configHikari)) {
+            medir("HikariCP", hikari, hilos, peticiones);
+            System.out.println(MetricasPool.resumen("ComparativaHikari"));
+        }
+
+        ComboPooledDataSource c3p0 = new ComboPooledDataSource();
+        try {
+            c3p0.setDriverClass(propiedades.getProperty("hibernate.connection.driver_class"));
+            c3p0.setJdbcUrl(url);
+            c3p0.setUser(usuario);
+            c3p0.setPassword(password);
+            c3p0.setMinPoolSize(tamanoPool);
+            c3p0.setInitialPoolSize(tamanoPool);
+            c3p0.setMaxPoolSize(tamanoPool);
+            medir("C3P0", c3p0, hilos, peticiones);
+        } finally {
+            c3p0.close();
+        }
+    }
+
+    /**
+     * Lanza los hilos contra un pool y muestra la latencia de obtención de conexión.
+     * Antes de medir se hace una ronda de calentamiento para que el pool tenga todas sus conexiones abiertas.
+     *
+     * @param nombre nombre del pool para el informe
+     * @param pool DataSource del pool
+     * @param hilos hilos concurrentes
+     * @param peticiones conexiones que pide cada hilo
+     */
+    private static void medir(String nombre, DataSource pool, int hilos, int peticiones) throws Exception {
+        ejecutar(pool, hilos, Math.max(1, peticiones / 10));
+
+        long inicio = System.nanoTime();
+        long[] latencias = ejecutar(pool, hilos, peticiones);
+        long duracion = System.nanoTime() - inicio;
+
+        Arrays.sort(latencias);
+        double media = Arrays.stream(latencias).average().orElse(0);
+        System.out.printf("%-8s media=%8.1f µs  p50=%8.1f µs  p99=%8.1f µs  máx=%9.1f µs  %8.0f conexiones/s%n",
+                nombre,
+                media / 1000,
+                percentil(latencias, 50) / 1000.0,
+                percentil(latencias, 99) / 1000.0,
+                latencias[latencias.length - 1] / 1000.0,
+                latencias.length / (duracion / 1e9));
+    }
+
+    /**
+     * Ejecuta los hilos y devuelve la latencia (en ns) de cada getConnection().
+     *
+     * @param pool DataSource del pool
+     * @param hilos hilos concurrentes
+     * @param peticiones conexiones que pide cada hilo
+     * @return latencias de todas las peticiones
+     */
+    private static long[] ejecutar(DataSource pool, int hilos, int peticiones) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<long[]>> resultados = new ArrayList<>();
+
+        try {
+            for (int h = 0; h < hilos; h++) {
+                resultados.add(ejecutor.submit(() -> {
+                    long[] tiempos = new long[peticiones];
+                    salida.await();
+                    for (int i = 0; i < peticiones; i++) {
+                        long t0 = System.nanoTime();
+                        try (Connection conexion = pool.getConnection()) {
+                            tiempos[i] = System.nanoTime() - t0;
+                            try (Statement sentencia = conexion.createStatement()) {
+                                sentencia.execute("SELECT 1");
+                            }
+                        }
+                    }
+                    return tiempos;
+                }));
+            }
+            salida.countDown();
+
+            long[] latencias = new long[hilos * peticiones];
+            int posicion = 0;
+            for (Future<long[]> resultado : resultados) {
+                long[] tiempos = resultado.get();
+                System.arraycopy(tiempos, 0, latencias, posicion, tiempos.length);
+                posicion += tiempos.length;
+            }
+            return latencias;
+
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Calcula un percentil sobre un array ordenado.
+     *
+     * @param ordenados valores ordenados de menor a mayor
+     * @param percentil percentil entre 0 y 100
+     * @return valor del percentil
+     */
+    private static long percentil(long[] ordenados, int percentil) {
+        int indice = (int) Math.ceil(percentil / 100.0 * ordenados.length) - 1;
+        return ordenados[Math.max(0, indice)];
+    }
+}
@@ -0,0 +1,91 @@
+package conexion;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import crud.RestauranteCRUDHibernate;
+
+/**
+ * Clase de utilidad para consultar el funcionamiento de la caché de segundo nivel.
+ * Combina las estadísticas de Hibernate (aciertos, fallos y escrituras por región)
+ * con las de JCache (expulsiones), que Ehcache publica por JMX.
+ */
+public class EstadisticasCache {
+
+    /**
+     * Regiones de caché configuradas en ehcache.xml
+     */
+    private static final String[] REGIONES = {
+            "entidades.Producto",
+            "entidades.Mesa",
+            RestauranteCRUDHibernate.REGION_CONSULTAS_PRODUCTOS
+    };
+
+    /**
+     * Genera un resumen con los contadores de cada región y las sentencias
+     * enviadas a la base de datos desde el arranque.
+     *
+     * @return String con las estadísticas de caché
+     */
+    public static String resumen() {
+        Statistics stats = HibernateUtil.getSessionFactory().getStatistics();
+        StringBuilder resultado = new StringBuilder();
+
+        for (String region : REGIONES) {
+            CacheRegionStatistics regionStats = stats.getCacheRegionStatistics(region);
+            if (regionStats == null) {
+                resultado.append(region).append(": sin datos todavía\n");
+                continue;
+            }
+            resultado.append(region)
+                    .append(": aciertos=").append(regionStats.getHitCount())
+                    .append(", fallos=").append(regionStats.getMissCount())
+                    .append(", escrituras=").append(regionStats.getPutCount())
+                    .append(", expulsiones=").append(expulsiones(region))
+                    .append("\n");
+        }
+
+        resultado.append("Total caché 2º nivel: aciertos=").append(stats.getSecondLevelCacheHitCount())
+                .append(", fallos=").append(stats.getSecondLevelCacheMissCount()).append("\n");
+        resultado.append("Total caché de consultas: aciertos=").append(stats.getQueryCacheHitCount())
+                .append(", fallos=").append(stats.getQueryCacheMissCount()).append("\n");
+        resultado.append("Entidades cargadas desde BD: ").append(stats.getEntityLoadCount())
+                .append(", sentencias preparadas: ").append(stats.getPrepareStatementCount());
+
+        return resultado.toString();
+    }
+
+    /**
+     * Pone a cero los contadores de Hibernate (no los de JCache).
+     */
+    public static void reiniciar() {
+        HibernateUtil.getSessionFactory().getStatistics().clear();
+    }
+
+    /**
+     * Obtiene el número de expulsiones de una caché a partir de su MBean de estadísticas JCache.
+     *
+     * @param region nombre de la caché
+     * @return número de expulsiones, o -1 si no hay estadísticas JMX disponibles
+     */
+    private static long expulsiones(String region) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            Set<ObjectName> nombres = servidor.queryNames(
+                    new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*"), null);
+            long total = 0;
+            for (ObjectName nombre : nombres) {
+                total += (Long) servidor.getAttribute(nombre, "CacheEvictions");
+            }
+            return nombres.isEmpty() ? -1 : total;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package conexion;
+
+import org.hibernate.cfg.JdbcSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * Fábrica de las estadísticas de Hibernate (propiedad hibernate.stats.factory).
+ * Crea las estadísticas normales de Hibernate pero avisando a MetricasRestaurante
+ * de cada consulta ejecutada y de cada sentencia lenta, así se tiene el histograma
+ * de tiempos de cada consulta y el log de consultas lentas sin activar show_sql.
+ * El umbral de consulta lenta es el de hibernate.log_slow_query.
+ */
+public class EstadisticasHibernate implements StatisticsFactory {
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        Estadisticas estadisticas = new Estadisticas(sessionFactory);
+
+        Object umbral = sessionFactory.getProperties().get(JdbcSettings.LOG_SLOW_QUERY);
+        MetricasRestaurante.instancia().conectar(estadisticas,
+                umbral == null ? 0 : Long.parseLong(umbral.toString().trim()));
+        return estadisticas;
+    }
+
+    /**
+     * Estadísticas de Hibernate que además alimentan MetricasRestaurante.
+     * Hereda de StatisticsImpl, que es una clase interna de Hibernate (paquete .internal):
+     * no forma parte de su API y puede cambiar en cualquier versión, incluso menor.
+     * Al actualizar Hibernate hay que comprobar que queryExecuted y slowQuery siguen existiendo
+     * con la misma firma.
+     */
+    private static class Estadisticas extends StatisticsImpl {
+
+        private static final long serialVersionUID = 1L;
+
+        Estadisticas(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void queryExecuted(String hql, int rows, long time) {
+            super.queryExecuted(hql, rows, time);
+            MetricasRestaurante.instancia().consultaEjecutada(hql, rows, time);
+        }
+
+        @Override
+        public void slowQuery(String sql, long executionTime) {
+            super.slowQuery(sql, executionTime);
+            MetricasRestaurante.instancia().sentenciaLenta();
+        }
+    }
+}
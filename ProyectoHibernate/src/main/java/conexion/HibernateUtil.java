@@ -1,66 +1,171 @@
 package conexion;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
 
+import crud.CampoFiltro;
+import entidades.GeneradorIds;
+
 /**
  * Clase de utilidad para gestionar la SessionFactory de Hibernate.
  * Se encarga de crear y proporcionar acceso a la sesión de Hibernate.
+ * La SessionFactory se crea la primera vez que se pide (o en segundo plano con precalentar()),
+ * y su creación, reinicio y cierre están protegidos por un cerrojo para que
+ * nunca se construyan dos a la vez.
  */
 public class HibernateUtil {
     
     /**
-     * SessionFactory única para toda la aplicación (patrón Singleton)
+     * Propiedad del sistema con el fichero de configuración a usar.
+     * Permite usar otra base de datos (por ejemplo H2 en los tests) sin tocar hibernate.cfg.xml.
      */
-    private static SessionFactory sessionFactory;
+    public static final String PROPIEDAD_CONFIGURACION = "restaurante.hibernate.cfg";
     
     /**
-     * Bloque estático que se ejecuta al cargar la clase.
-     * Inicializa la SessionFactory desde el archivo hibernate.cfg.xml
+     * Segundos que espera un hilo a que termine otra creación o reinicio antes de fallar
      */
-    static {
-        buildSessionFactory();
-    }
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 60;
+    
+    /**
+     * SessionFactory única para toda la aplicación (patrón Singleton).
+     * Es volatile para que los hilos la lean sin bloquear una vez creada.
+     */
+    private static volatile SessionFactory sessionFactory;
     
     /**
-     * Construye la SessionFactory
+     * Cerrojo que serializa la creación, el reinicio y el cierre de la SessionFactory
+     */
+    private static final ReentrantLock CERROJO = new ReentrantLock();
+    
+    /**
+     * Construye la SessionFactory desde el archivo hibernate.cfg.xml
+     * (o el indicado en la propiedad del sistema PROPIEDAD_CONFIGURACION).
+     * Debe llamarse con el cerrojo adquirido.
      */
     private static void buildSessionFactory() {
+        SessionFactory nueva = null;
         try {
             // Crear SessionFactory desde el archivo de configuración
-            sessionFactory = new Configuration()
-                    .configure("hibernate.cfg.xml")
+            nueva = new Configuration()
+                    .configure(System.getProperty(PROPIEDAD_CONFIGURACION, "hibernate.cfg.xml"))
                     .buildSessionFactory();
             
             System.out.println("✓ SessionFactory creada exitosamente");
             
+            sincronizarGeneradoresId(nueva);
+            CampoFiltro.registrarConsultas(nueva);
+            
+            // Solo se publica cuando está lista para usarse
+            sessionFactory = nueva;
+            
         } catch (Exception e) {
+            // Una SessionFactory a medio preparar no se publica: se cierra
+            if (nueva != null && !nueva.isClosed()) nueva.close();
             System.err.println("✗ Error al crear SessionFactory: " + e.getMessage());
             e.printStackTrace();
-            throw new ExceptionInInitializerError(e);
+            throw new IllegalStateException("No se pudo crear la SessionFactory", e);
         }
     }
     
     /**
-     * Obtiene la instancia de SessionFactory
+     * Migra los IDs existentes a la tabla de generadores pooled.
+     * Las filas creadas con IDENTITY (AUTO_INCREMENT) no están reflejadas en la tabla
+     * de generadores, así que se guarda como último valor usado
+     * MAX(id) + TAMANO_ASIGNACION - 1: el optimizador pooled reserva hacia abajo desde
+     * ese valor y el primer ID generado es MAX(id) + 1. GREATEST evita que el valor
+     * guardado retroceda si ya había bloques reservados.
+     * También se llama después de importar filas con sus IDs (ver principal.ImportarExportar).
+     * 
+     * La sentencia INSERT ... ON DUPLICATE KEY UPDATE ... GREATEST(..., VALUES(...)) es propia
+     * de MySQL; en los tests con H2 funciona solo porque la URL usa MODE=MySQL.
+     * 
+     * @param factory SessionFactory recién creada
+     * @throws IllegalStateException si no se pueden sincronizar: seguir con generadores por
+     *         detrás de los IDs existentes daría IDs repetidos en las próximas inserciones
+     */
+    public static void sincronizarGeneradoresId(SessionFactory factory) {
+        // { valor de la columna entidad, tabla, columna ID }
+        String[][] entidades = {
+                { "Mesa", "Mesa", "idMesa" },
+                { "Producto", "Productos", "idProducto" },
+                { "Factura", "Factura", "idFactura" },
+                { "Pedido", "Pedido", "idPedido" }
+        };
+        
+        Transaction transaction = null;
+        try (Session session = factory.openSession()) {
+            transaction = session.beginTransaction();
+            for (String[] entidad : entidades) {
+                String sql = "INSERT INTO " + GeneradorIds.TABLA
+                        + " (" + GeneradorIds.COLUMNA_ENTIDAD + ", " + GeneradorIds.COLUMNA_VALOR + ")"
+                        + " SELECT '" + entidad[0] + "', COALESCE(MAX(" + entidad[2] + "), 0) + "
+                        + (GeneradorIds.TAMANO_ASIGNACION - 1) + " FROM " + entidad[1]
+                        + " ON DUPLICATE KEY UPDATE " + GeneradorIds.COLUMNA_VALOR
+                        + " = GREATEST(" + GeneradorIds.COLUMNA_VALOR + ", VALUES(" + GeneradorIds.COLUMNA_VALOR + "))";
+                session.createNativeMutationQuery(sql).executeUpdate();
+            }
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            throw new IllegalStateException("No se pudieron sincronizar los generadores de ID: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Obtiene la instancia de SessionFactory, creándola si todavía no existe o está cerrada.
+     * Si otro hilo la está creando o reiniciando, espera a que termine.
      * 
      * @return SessionFactory única de la aplicación
+     * @throws IllegalStateException si no se puede crear o si la espera supera ESPERA_MAXIMA_SEGUNDOS
      */
     public static SessionFactory getSessionFactory() {
-        if (sessionFactory == null || sessionFactory.isClosed()) {
-            buildSessionFactory();
+        SessionFactory actual = sessionFactory;
+        if (actual != null && !actual.isClosed()) {
+            return actual;
+        }
+        
+        bloquear();
+        try {
+            // Otro hilo puede haberla creado mientras se esperaba el cerrojo
+            if (sessionFactory == null || sessionFactory.isClosed()) {
+                buildSessionFactory();
+            }
+            return sessionFactory;
+        } finally {
+            CERROJO.unlock();
         }
-        return sessionFactory;
+    }
+    
+    /**
+     * Crea la SessionFactory en segundo plano para que el arranque no tenga que esperarla.
+     * Las llamadas a getSessionFactory() que lleguen antes de que termine esperan al cerrojo.
+     * 
+     * @return futuro que se completa con la SessionFactory (o con el error de creación)
+     */
+    public static CompletableFuture<SessionFactory> precalentar() {
+        return CompletableFuture.supplyAsync(HibernateUtil::getSessionFactory);
     }
     
     /**
      * Reinicia la SessionFactory.
      * Útil después de eliminar tablas para que Hibernate las vuelva a crear.
+     * Mientras dura, los hilos que piden la SessionFactory esperan a la nueva.
      */
     public static void restart() {
-        shutdown();
-        buildSessionFactory();
-        System.out.println("✓ SessionFactory reiniciada correctamente");
+        bloquear();
+        try {
+            cerrar();
+            buildSessionFactory();
+            System.out.println("✓ SessionFactory reiniciada correctamente");
+        } finally {
+            CERROJO.unlock();
+        }
     }
     
     /**
@@ -68,9 +173,40 @@ public class HibernateUtil {
      * Debe llamarse al finalizar la aplicación.
      */
     public static void shutdown() {
-        if (sessionFactory != null && !sessionFactory.isClosed()) {
-            sessionFactory.close();
+        bloquear();
+        try {
+            cerrar();
+        } finally {
+            CERROJO.unlock();
+        }
+    }
+    
+    /**
+     * Retira la SessionFactory actual y la cierra. Debe llamarse con el cerrojo adquirido.
+     * Se retira antes de cerrarla para que los demás hilos no la obtengan ya cerrándose.
+     */
+    private static void cerrar() {
+        SessionFactory anterior = sessionFactory;
+        sessionFactory = null;
+        if (anterior != null && !anterior.isClosed()) {
+            anterior.close();
             System.out.println("✓ SessionFactory cerrada correctamente");
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Adquiere el cerrojo esperando como máximo ESPERA_MAXIMA_SEGUNDOS.
+     * 
+     * @throws IllegalStateException si no se consigue a tiempo o el hilo es interrumpido
+     */
+    private static void bloquear() {
+        try {
+            if (!CERROJO.tryLock(ESPERA_MAXIMA_SEGUNDOS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Tiempo de espera agotado: la SessionFactory se está creando o reiniciando");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se esperaba la SessionFactory", e);
+        }
+    }
+}
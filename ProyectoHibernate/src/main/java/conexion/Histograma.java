@@ -0,0 +1,131 @@
+package conexion;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de tiempos con cubetas fijas (de 0,1 ms a 10 s).
+ * Se puede registrar desde muchos hilos a la vez sin bloquear y ocupa lo mismo
+ * tenga diez muestras o diez millones. Los percentiles son aproximados:
+ * se devuelve el límite superior de la cubeta en la que cae el percentil.
+ */
+public class Histograma {
+
+    /**
+     * Límite superior de cada cubeta en nanosegundos. La última cubeta (sin límite)
+     * recoge lo que supere 10 s.
+     */
+    private static final long[] LIMITES_NS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L,
+            10_000_000_000L
+    };
+
+    private final LongAdder[] cubetas = new LongAdder[LIMITES_NS.length + 1];
+    private final LongAdder sumaNs = new LongAdder();
+    private final LongAccumulator maximoNs = new LongAccumulator(Math::max, 0);
+
+    public Histograma() {
+        for (int i = 0; i < cubetas.length; i++) {
+            cubetas[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Anota una muestra.
+     *
+     * @param nanos duración en nanosegundos
+     */
+    public void registrar(long nanos) {
+        int i = 0;
+        while (i < LIMITES_NS.length && nanos > LIMITES_NS[i]) {
+            i++;
+        }
+        cubetas[i].increment();
+        sumaNs.add(nanos);
+        maximoNs.accumulate(nanos);
+    }
+
+    /**
+     * @return número de muestras registradas
+     */
+    public long cuenta() {
+        long total = 0;
+        for (LongAdder cubeta : cubetas) {
+            total += cubeta.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return tiempo total acumulado en milisegundos
+     */
+    public double totalMs() {
+        return sumaNs.sum() / 1e6;
+    }
+
+    /**
+     * @return tiempo medio en milisegundos, o 0 si no hay muestras
+     */
+    public double mediaMs() {
+        long cuenta = cuenta();
+        return cuenta == 0 ? 0 : totalMs() / cuenta;
+    }
+
+    /**
+     * @return tiempo máximo en milisegundos
+     */
+    public double maximoMs() {
+        return maximoNs.get() / 1e6;
+    }
+
+    /**
+     * Estima un percentil a partir de las cubetas.
+     *
+     * @param percentil percentil entre 0 y 100
+     * @return límite superior de la cubeta del percentil en milisegundos
+     *         (nunca mayor que el máximo observado), o 0 si no hay muestras
+     */
+    public double percentilMs(double percentil) {
+        long[] copia = new long[cubetas.length];
+        long total = 0;
+        for (int i = 0; i < cubetas.length; i++) {
+            copia[i] = cubetas[i].sum();
+            total += copia[i];
+        }
+        if (total == 0) return 0;
+
+        long objetivo = (long) Math.ceil(percentil / 100.0 * total);
+        long acumulado = 0;
+        for (int i = 0; i < LIMITES_NS.length; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(LIMITES_NS[i], maximoNs.get()) / 1e6;
+            }
+        }
+        return maximoMs();
+    }
+
+    /**
+     * Pone todas las cubetas a cero.
+     */
+    public void reiniciar() {
+        for (LongAdder cubeta : cubetas) {
+            cubeta.reset();
+        }
+        sumaNs.reset();
+        maximoNs.reset();
+    }
+
+    /**
+     * @return resumen de una línea: muestras, media, percentiles y máximo
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d media=%.2fms p50≤%.2fms p95≤%.2fms p99≤%.2fms max=%.2fms",
+                cuenta(), mediaMs(), percentilMs(50), percentilMs(95), percentilMs(99), maximoMs());
+    }
+}
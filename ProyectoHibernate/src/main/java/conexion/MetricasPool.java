@@ -0,0 +1,145 @@
+package conexion;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Métricas del pool de conexiones HikariCP.
+ * HikariCP crea esta clase a partir de la propiedad hibernate.hikari.metricsTrackerFactory
+ * y le notifica cada préstamo de conexión, así que se puede saber cuánto esperan los hilos
+ * por una conexión además del estado actual del pool (activas, libres y en espera).
+ */
+public class MetricasPool implements MetricsTrackerFactory {
+
+    /**
+     * Nombre del pool configurado en hibernate.cfg.xml (hibernate.hikari.poolName)
+     */
+    public static final String POOL_RESTAURANTE = "RestaurantePool";
+
+    /**
+     * Métricas de cada pool, por nombre
+     */
+    private static final Map<String, Registro> REGISTROS = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Registro registro = new Registro(poolStats);
+        REGISTROS.put(poolName, registro);
+        return registro;
+    }
+
+    /**
+     * Genera un resumen del pool de la aplicación.
+     *
+     * @return String con las métricas del pool
+     */
+    public static String resumen() {
+        // El pool se arranca al crear la SessionFactory
+        HibernateUtil.getSessionFactory();
+        return resumen(POOL_RESTAURANTE);
+    }
+
+    /**
+     * Genera un resumen de un pool: estado actual y tiempos de espera acumulados.
+     * El estado lo refresca HikariCP como mucho una vez por segundo.
+     *
+     * @param nombrePool nombre del pool
+     * @return String con las métricas del pool
+     */
+    public static String resumen(String nombrePool) {
+        Registro registro = REGISTROS.get(nombrePool);
+        if (registro == null) {
+            return nombrePool + ": sin datos (el pool no es HikariCP o no se ha iniciado)";
+        }
+
+        PoolStats estado = registro.estado;
+        long prestamos = registro.prestamos.sum();
+        return nombrePool
+                + ": activas=" + estado.getActiveConnections()
+                + ", libres=" + estado.getIdleConnections()
+                + ", total=" + estado.getTotalConnections() + "/" + estado.getMaxConnections()
+                + ", hilos esperando=" + estado.getPendingThreads() + "\n"
+                + "Préstamos: " + prestamos
+                + ", espera media=" + formatearMs(prestamos == 0 ? 0 : registro.nanosEspera.sum() / prestamos)
+                + ", espera máxima=" + formatearMs(registro.maxNanosEspera.get())
+                + ", uso medio=" + (prestamos == 0 ? 0 : registro.msUso.sum() / prestamos) + " ms"
+                + ", tiempos agotados=" + registro.tiemposAgotados.sum()
+                + ", conexiones creadas=" + registro.conexionesCreadas.sum();
+    }
+
+    /**
+     * Pone a cero los contadores acumulados del pool de la aplicación.
+     */
+    public static void reiniciar() {
+        Registro registro = REGISTROS.get(POOL_RESTAURANTE);
+        if (registro != null) {
+            registro.reiniciar();
+        }
+    }
+
+    /**
+     * Convierte nanosegundos a milisegundos con tres decimales.
+     *
+     * @param nanos tiempo en nanosegundos
+     * @return String con el tiempo en ms
+     */
+    private static String formatearMs(long nanos) {
+        return String.format("%.3f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Contadores de un pool. HikariCP llama a estos métodos desde los hilos que piden conexiones,
+     * por eso se usan acumuladores sin bloqueo.
+     */
+    private static class Registro implements IMetricsTracker {
+
+        private final PoolStats estado;
+        private final LongAdder prestamos = new LongAdder();
+        private final LongAdder nanosEspera = new LongAdder();
+        private final LongAccumulator maxNanosEspera = new LongAccumulator(Math::max, 0);
+        private final LongAdder msUso = new LongAdder();
+        private final LongAdder tiemposAgotados = new LongAdder();
+        private final LongAdder conexionesCreadas = new LongAdder();
+
+        private Registro(PoolStats estado) {
+            this.estado = estado;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            conexionesCreadas.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            prestamos.increment();
+            nanosEspera.add(elapsedAcquiredNanos);
+            maxNanosEspera.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            msUso.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            tiemposAgotados.increment();
+        }
+
+        private void reiniciar() {
+            prestamos.reset();
+            nanosEspera.reset();
+            maxNanosEspera.reset();
+            msUso.reset();
+            tiemposAgotados.reset();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package conexion;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import javax.management.ObjectName;
+
+import org.hibernate.stat.Statistics;
+
+/**
+ * Métricas de la aplicación: tiempos de cada consulta HQL (con su histograma),
+ * consultas lentas, latencia de cada método de RestauranteCRUDHibernate y
+ * sesiones/transacciones abiertas por Hibernate.
+ * Las consultas las notifica EstadisticasHibernate y los métodos se miden con medir().
+ * Todo se publica por JMX como restaurante:type=Metricas y se puede volcar
+ * por consola cada cierto tiempo con iniciarVolcado().
+ */
+public class MetricasRestaurante implements MetricasRestauranteMXBean {
+
+    /**
+     * Nombre del MBean
+     */
+    public static final String NOMBRE_JMX = "restaurante:type=Metricas";
+
+    /**
+     * Consultas distintas que se guardan por separado; el resto se acumulan juntas
+     * para que un programa que genere HQL dinámico no llene la memoria.
+     */
+    private static final int MAX_CONSULTAS = 500;
+
+    /**
+     * Clave de las consultas que no caben en el mapa
+     */
+    private static final String OTRAS_CONSULTAS = "(otras consultas)";
+
+    /**
+     * Consultas que se muestran en el resumen (las de más tiempo acumulado)
+     */
+    private static final int CONSULTAS_RESUMEN = 10;
+
+    /**
+     * Log de consultas lentas (sustituye a hibernate.show_sql)
+     */
+    private static final Logger LOG_LENTAS = Logger.getLogger("restaurante.consultas.lentas");
+
+    private static final MetricasRestaurante INSTANCIA = new MetricasRestaurante();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCIA, new ObjectName(NOMBRE_JMX));
+        } catch (Exception e) {
+            System.out.println("✗ No se pudieron publicar las métricas por JMX: " + e.getMessage());
+        }
+    }
+
+    private final Map<String, Histograma> consultas = new ConcurrentHashMap<>();
+    private final Map<String, Histograma> metodos = new ConcurrentHashMap<>();
+    private final LongAdder consultasLentas = new LongAdder();
+    private final LongAdder sentenciasLentas = new LongAdder();
+    private volatile long umbralConsultaLentaMs = 200;
+    private volatile Statistics estadisticas;
+
+    private ScheduledExecutorService volcador;
+    private ScheduledFuture<?> volcado;
+
+    private MetricasRestaurante() {
+    }
+
+    /**
+     * @return instancia única (la misma que se publica por JMX)
+     */
+    public static MetricasRestaurante instancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Ejecuta el cuerpo de un método y anota su duración, también si termina con una excepción.
+     *
+     *   return MetricasRestaurante.medir("insertarMesa", () -> { ... });
+     *
+     * @param metodo nombre del método
+     * @param cuerpo código del método
+     * @return lo que devuelve el cuerpo
+     */
+    public static <T> T medir(String metodo, Supplier<T> cuerpo) {
+        Histograma histograma = INSTANCIA.metodos.computeIfAbsent(metodo, m -> new Histograma());
+        long inicio = System.nanoTime();
+        try {
+            return cuerpo.get();
+        } finally {
+            histograma.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Genera el resumen de todas las métricas.
+     *
+     * @return String con las métricas
+     */
+    public static String resumen() {
+        return INSTANCIA.getResumen();
+    }
+
+    /**
+     * Vuelca el resumen por consola cada cierto tiempo en un hilo en segundo plano.
+     * Si ya había un volcado en marcha se sustituye.
+     *
+     * @param segundos intervalo entre volcados
+     */
+    public static synchronized void iniciarVolcado(int segundos) {
+        detenerVolcado();
+        if (INSTANCIA.volcador == null) {
+            INSTANCIA.volcador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "volcado-metricas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        INSTANCIA.volcado = INSTANCIA.volcador.scheduleAtFixedRate(
+                () -> System.out.println("\n=== MÉTRICAS ===\n" + resumen()),
+                segundos, segundos, TimeUnit.SECONDS);
+        System.out.println("✓ Volcado de métricas cada " + segundos + " s");
+    }
+
+    /**
+     * Detiene el volcado periódico (si estaba en marcha).
+     */
+    public static synchronized void detenerVolcado() {
+        if (INSTANCIA.volcado != null) {
+            INSTANCIA.volcado.cancel(false);
+            INSTANCIA.volcado = null;
+            System.out.println("✓ Volcado de métricas detenido");
+        }
+    }
+
+    /**
+     * Indica las estadísticas de la SessionFactory activa (se llama al crearla).
+     *
+     * @param estadisticas estadísticas de Hibernate
+     * @param umbralMs umbral de consulta lenta configurado (hibernate.log_slow_query), o 0 para no cambiarlo
+     */
+    void conectar(Statistics estadisticas, long umbralMs) {
+        this.estadisticas = estadisticas;
+        if (umbralMs > 0) umbralConsultaLentaMs = umbralMs;
+    }
+
+    /**
+     * Anota la ejecución de una consulta HQL y la registra en el log si es lenta.
+     *
+     * @param hql consulta
+     * @param filas filas devueltas o modificadas
+     * @param milisegundos duración
+     */
+    void consultaEjecutada(String hql, int filas, long milisegundos) {
+        Histograma histograma = consultas.get(hql);
+        if (histograma == null) {
+            histograma = consultas.size() < MAX_CONSULTAS
+                    ? consultas.computeIfAbsent(hql, c -> new Histograma())
+                    : consultas.computeIfAbsent(OTRAS_CONSULTAS, c -> new Histograma());
+        }
+        histograma.registrar(TimeUnit.MILLISECONDS.toNanos(milisegundos));
+
+        if (milisegundos >= umbralConsultaLentaMs) {
+            consultasLentas.increment();
+            LOG_LENTAS.warning(String.format("Consulta lenta (%d ms, %d filas): %s", milisegundos, filas, hql));
+        }
+    }
+
+    /**
+     * Anota una sentencia SQL que ha superado hibernate.log_slow_query
+     * (Hibernate ya la escribe en su propio log).
+     */
+    void sentenciaLenta() {
+        sentenciasLentas.increment();
+    }
+
+    @Override
+    public long getUmbralConsultaLentaMs() {
+        return umbralConsultaLentaMs;
+    }
+
+    @Override
+    public void setUmbralConsultaLentaMs(long umbral) {
+        if (umbral < 0) throw new IllegalArgumentException("El umbral no puede ser negativo");
+        umbralConsultaLentaMs = umbral;
+    }
+
+    @Override
+    public long getConsultasEjecutadas() {
+        return consultas.values().stream().mapToLong(Histograma::cuenta).sum();
+    }
+
+    @Override
+    public long getConsultasLentas() {
+        return consultasLentas.sum();
+    }
+
+    @Override
+    public long getSentenciasLentas() {
+        return sentenciasLentas.sum();
+    }
+
+    @Override
+    public long getSesionesAbiertas() {
+        Statistics stats = estadisticas;
+        return stats == null ? 0 : stats.getSessionOpenCount();
+    }
+
+    @Override
+    public long getSesionesCerradas() {
+        Statistics stats = estadisticas;
+        return stats == null ? 0 : stats.getSessionCloseCount();
+    }
+
+    @Override
+    public long getTransacciones() {
+        Statistics stats = estadisticas;
+        return stats == null ? 0 : stats.getTransactionCount();
+    }
+
+    @Override
+    public long getTransaccionesCorrectas() {
+        Statistics stats = estadisticas;
+        return stats == null ? 0 : stats.getSuccessfulTransactionCount();
+    }
+
+    @Override
+    public Map<String, Long> getLlamadasPorMetodo() {
+        Map<String, Long> resultado = new TreeMap<>();
+        metodos.forEach((metodo, histograma) -> resultado.put(metodo, histograma.cuenta()));
+        return resultado;
+    }
+
+    @Override
+    public Map<String, Double> getMediaMsPorMetodo() {
+        Map<String, Double> resultado = new TreeMap<>();
+        metodos.forEach((metodo, histograma) -> resultado.put(metodo, histograma.mediaMs()));
+        return resultado;
+    }
+
+    @Override
+    public Map<String, Double> getP95MsPorMetodo() {
+        Map<String, Double> resultado = new TreeMap<>();
+        metodos.forEach((metodo, histograma) -> resultado.put(metodo, histograma.percentilMs(95)));
+        return resultado;
+    }
+
+    @Override
+    public String getResumen() {
+        StringBuilder resultado = new StringBuilder();
+
+        resultado.append("Sesiones: abiertas=").append(getSesionesAbiertas())
+                .append(", cerradas=").append(getSesionesCerradas())
+                .append(" | Transacciones: ").append(getTransacciones())
+                .append(" (correctas=").append(getTransaccionesCorrectas()).append(")\n");
+        resultado.append("Consultas: ejecutadas=").append(getConsultasEjecutadas())
+                .append(", lentas=").append(getConsultasLentas())
+                .append(" (umbral ").append(umbralConsultaLentaMs).append(" ms)")
+                .append(", sentencias SQL lentas=").append(getSentenciasLentas()).append("\n");
+
+        resultado.append("--- Métodos ---\n");
+        if (metodos.isEmpty()) resultado.append("Sin datos todavía\n");
+        new TreeMap<>(metodos).forEach((metodo, histograma) ->
+                resultado.append(metodo).append(": ").append(histograma).append("\n"));
+
+        resultado.append("--- Consultas con más tiempo acumulado ---\n");
+        if (consultas.isEmpty()) resultado.append("Sin datos todavía\n");
+        consultas.entrySet().stream()
+                .sorted(Comparator.comparingDouble(
+                        (Map.Entry<String, Histograma> e) -> e.getValue().totalMs()).reversed())
+                .limit(CONSULTAS_RESUMEN)
+                .forEach(e -> resultado.append(e.getValue()).append("\n    ")
+                        .append(abreviar(e.getKey())).append("\n"));
+
+        return resultado.toString().stripTrailing();
+    }
+
+    @Override
+    public void reiniciar() {
+        consultas.clear();
+        metodos.clear();
+        consultasLentas.reset();
+        sentenciasLentas.reset();
+        Statistics stats = estadisticas;
+        if (stats != null) stats.clear();
+    }
+
+    /**
+     * Acorta una consulta larga para el resumen.
+     *
+     * @param hql consulta
+     * @return consulta de 120 caracteres como mucho
+     */
+    private static String abreviar(String hql) {
+        String linea = hql.replaceAll("\\s+", " ").trim();
+        return linea.length() <= 120 ? linea : linea.substring(0, 117) + "...";
+    }
+}
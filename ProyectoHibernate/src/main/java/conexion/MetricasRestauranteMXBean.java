@@ -0,0 +1,38 @@
+package conexion;
+
+import java.util.Map;
+
+/**
+ * Interfaz JMX de las métricas de la aplicación (restaurante:type=Metricas).
+ * Se puede consultar con JConsole o VisualVM mientras el programa está en marcha.
+ */
+public interface MetricasRestauranteMXBean {
+
+    long getUmbralConsultaLentaMs();
+
+    void setUmbralConsultaLentaMs(long umbral);
+
+    long getConsultasEjecutadas();
+
+    long getConsultasLentas();
+
+    long getSentenciasLentas();
+
+    long getSesionesAbiertas();
+
+    long getSesionesCerradas();
+
+    long getTransacciones();
+
+    long getTransaccionesCorrectas();
+
+    Map<String, Long> getLlamadasPorMetodo();
+
+    Map<String, Double> getMediaMsPorMetodo();
+
+    Map<String, Double> getP95MsPorMetodo();
+
+    String getResumen();
+
+    void reiniciar();
+}
@@ -0,0 +1,259 @@
+package crud;
+
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import dto.FacturaView;
+import dto.MesaView;
+import dto.PedidoView;
+import dto.ProductoView;
+import dto.Vista;
+import entidades.Factura;
+import entidades.Mesa;
+import entidades.Pedido;
+import entidades.Producto;
+
+/**
+ * Campos por los que se pueden filtrar los listados.
+ * Cada campo tiene sus consultas registradas como consultas con nombre al crear la SessionFactory,
+ * así que Hibernate las analiza una sola vez y todas las llamadas reutilizan el mismo plan
+ * (y la misma sentencia preparada en MySQL). El nombre del campo que escribe el usuario
+ * nunca forma parte del texto de la consulta: solo sirve para elegir una de estas constantes.
+ */
+public enum CampoFiltro {
+
+    MESA_ID(Mesa.class, "idMesa", "idMesa", Integer.class, Comparacion.IGUAL),
+    MESA_COMENSALES(Mesa.class, "numComensales", "numComensales", Integer.class, Comparacion.IGUAL),
+    MESA_RESERVA(Mesa.class, "reserva", "reserva", Integer.class, Comparacion.IGUAL),
+
+    PRODUCTO_ID(Producto.class, "idProducto", "idProducto", Integer.class, Comparacion.IGUAL),
+    PRODUCTO_NOMBRE(Producto.class, "nombre", "nombre", String.class, Comparacion.CONTIENE),
+    PRODUCTO_PREFIJO(Producto.class, "prefijo", "nombre", String.class, Comparacion.EMPIEZA),
+    PRODUCTO_PRECIO(Producto.class, "precio", "precio", Double.class, Comparacion.IGUAL),
+
+    FACTURA_ID(Factura.class, "idFactura", "idFactura", Integer.class, Comparacion.IGUAL),
+    FACTURA_MESA(Factura.class, "idMesa", "mesa.idMesa", Integer.class, Comparacion.IGUAL),
+    FACTURA_TIPO_PAGO(Factura.class, "tipoPago", "tipoPago", String.class, Comparacion.IGUAL),
+    FACTURA_IMPORTE(Factura.class, "importe", "importe", Double.class, Comparacion.IGUAL),
+
+    PEDIDO_ID(Pedido.class, "idPedido", "idPedido", Integer.class, Comparacion.IGUAL),
+    PEDIDO_FACTURA(Pedido.class, "idFactura", "factura.idFactura", Integer.class, Comparacion.IGUAL),
+    PEDIDO_PRODUCTO(Pedido.class, "idProducto", "producto.idProducto", Integer.class, Comparacion.IGUAL),
+    PEDIDO_CANTIDAD(Pedido.class, "cantidad", "cantidad", Integer.class, Comparacion.IGUAL);
+
+    /** Entidad a la que pertenece el campo */
+    private final Class<?> entidad;
+
+    /** Nombre con el que lo escribe el usuario */
+    private final String nombre;
+
+    /** Ruta del atributo en HQL (puede atravesar una relación) */
+    private final String ruta;
+
+    /** Tipo del valor del filtro */
+    private final Class<?> tipo;
+
+    /** Cómo se compara el campo con el valor */
+    private final Comparacion comparacion;
+
+    /**
+     * Carácter de escape de los LIKE: los % y _ que escribe el usuario se buscan tal cual.
+     * No se usa la barra invertida porque MySQL también la trata como escape dentro de los literales.
+     */
+    public static final char ESCAPE_LIKE = '!';
+
+    /**
+     * Tipos de comparación de un filtro.
+     * CONTIENE (LIKE '%valor%') no puede usar el índice de la columna porque el patrón empieza
+     * por un comodín, así que recorre la tabla entera; EMPIEZA (LIKE 'valor%') sí lo usa
+     * como un rango del índice, igual que IGUAL.
+     */
+    private enum Comparacion {
+        IGUAL, CONTIENE, EMPIEZA
+    }
+
+    CampoFiltro(Class<?> entidad, String nombre, String ruta, Class<?> tipo, Comparacion comparacion) {
+        this.entidad = entidad;
+        this.nombre = nombre;
+        this.ruta = ruta;
+        this.tipo = tipo;
+        this.comparacion = comparacion;
+    }
+
+    /**
+     * Busca el filtro de una entidad por el nombre del campo (sin distinguir mayúsculas).
+     *
+     * @param entidad clase de la entidad
+     * @param campo nombre del campo escrito por el usuario
+     * @return filtro correspondiente
+     * @throws IllegalArgumentException si la entidad no tiene ese campo
+     */
+    public static CampoFiltro de(Class<?> entidad, String campo) {
+        for (CampoFiltro filtro : values()) {
+            if (filtro.entidad == entidad && filtro.nombre.equalsIgnoreCase(campo)) {
+                return filtro;
+            }
+        }
+        throw new IllegalArgumentException("Campo '" + campo + "' no válido para " + entidad.getSimpleName()
+                + ". Opciones: " + Arrays.stream(values())
+                        .filter(f -> f.entidad == entidad)
+                        .map(f -> f.nombre)
+                        .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Nombre de la consulta registrada para este filtro.
+     * Las consultas devuelven la vista de la entidad (MesaView, ProductoView...) ordenada por ID
+     * y reciben el parámetro :valor; la variante "desde" recibe además :ultimoId y solo devuelve
+     * IDs mayores (paginación por clave).
+     *
+     * @param desde true para la variante con :ultimoId
+     * @return nombre de la consulta con nombre
+     */
+    public String consulta(boolean desde) {
+        return entidad.getSimpleName() + ".por_" + nombre + (desde ? ".desde" : "");
+    }
+
+    /**
+     * Convierte el valor escrito por el usuario al tipo del campo
+     * (y, si el filtro es LIKE, escapa sus comodines y añade los del filtro).
+     *
+     * @param valor valor del filtro
+     * @return valor listo para setParameter("valor", ...)
+     * @throws NumberFormatException si el campo es numérico y el valor no
+     */
+    public Object valor(String valor) {
+        if (comparacion == Comparacion.CONTIENE) return "%" + escaparLike(valor) + "%";
+        if (comparacion == Comparacion.EMPIEZA) return escaparLike(valor) + "%";
+        if (tipo == Integer.class) return Integer.parseInt(valor.trim());
+        if (tipo == Double.class) return Double.parseDouble(valor.trim());
+        return valor;
+    }
+
+    /**
+     * Escapa los comodines de LIKE (% y _) y el propio carácter de escape,
+     * para usar el texto dentro de un patrón con ESCAPE ESCAPE_LIKE.
+     *
+     * @param texto texto escrito por el usuario
+     * @return texto que solo coincide consigo mismo dentro del patrón
+     */
+    public static String escaparLike(String texto) {
+        StringBuilder escapado = new StringBuilder(texto.length() + 4);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE_LIKE) escapado.append(ESCAPE_LIKE);
+            escapado.append(c);
+        }
+        return escapado.toString();
+    }
+
+    /**
+     * Comprueba los filtros contra el metamodelo de Hibernate y registra sus consultas con nombre.
+     * Se llama una vez al crear la SessionFactory; si un campo no existe o su tipo no coincide
+     * falla en ese momento en lugar de en el primer listado.
+     *
+     * @param factory SessionFactory recién creada
+     * @throws IllegalStateException si algún filtro no corresponde con el metamodelo
+     */
+    public static void registrarConsultas(SessionFactory factory) {
+        Metamodel metamodel = factory.getMetamodel();
+        try (Session session = factory.openSession()) {
+            for (CampoFiltro filtro : values()) {
+                filtro.validar(metamodel);
+
+                String id = atributoId(metamodel.entity(filtro.entidad));
+                String hql = proyeccion(filtro.entidad) + " WHERE e." + filtro.ruta
+                        + (filtro.comparacion == Comparacion.IGUAL ? " = :valor" : " LIKE :valor ESCAPE '" + ESCAPE_LIKE + "'");
+                String orden = " ORDER BY e." + id;
+                Class<? extends Vista> vista = vista(filtro.entidad);
+
+                factory.addNamedQuery(filtro.consulta(false),
+                        session.createQuery(hql + orden, vista));
+                factory.addNamedQuery(filtro.consulta(true),
+                        session.createQuery(hql + " AND e." + id + " > :ultimoId" + orden, vista));
+            }
+        }
+    }
+
+    /**
+     * Recorre la ruta del filtro en el metamodelo y comprueba el tipo del atributo final.
+     *
+     * @param metamodel metamodelo de la SessionFactory
+     */
+    private void validar(Metamodel metamodel) {
+        ManagedType<?> actual = metamodel.entity(entidad);
+        Attribute<?, ?> atributo = null;
+        try {
+            for (String parte : ruta.split("\\.")) {
+                if (atributo != null) {
+                    actual = metamodel.managedType(atributo.getJavaType());
+                }
+                atributo = actual.getAttribute(parte);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("El filtro " + name() + " usa un atributo que no existe: " + ruta, e);
+        }
+
+        Class<?> tipoAtributo = MethodType.methodType(atributo.getJavaType()).wrap().returnType();
+        if (tipoAtributo != tipo) {
+            throw new IllegalStateException("El filtro " + name() + " espera " + tipo.getSimpleName()
+                    + " pero " + ruta + " es " + tipoAtributo.getSimpleName());
+        }
+    }
+
+    /**
+     * Obtiene la vista de solo lectura en la que se proyecta cada entidad.
+     *
+     * @param entidad clase de la entidad
+     * @return clase de la vista
+     */
+    public static Class<? extends Vista> vista(Class<?> entidad) {
+        return switch (entidad.getSimpleName()) {
+            case "Mesa" -> MesaView.class;
+            case "Producto" -> ProductoView.class;
+            case "Factura" -> FacturaView.class;
+            case "Pedido" -> PedidoView.class;
+            default -> throw new IllegalArgumentException("Entidad sin vista: " + entidad.getSimpleName());
+        };
+    }
+
+    /**
+     * Obtiene la consulta base (SELECT new ... FROM Entidad e) de la vista de cada entidad.
+     *
+     * @param entidad clase de la entidad
+     * @return consulta sin WHERE ni ORDER BY
+     */
+    public static String proyeccion(Class<?> entidad) {
+        return switch (entidad.getSimpleName()) {
+            case "Mesa" -> MesaView.CONSULTA;
+            case "Producto" -> ProductoView.CONSULTA;
+            case "Factura" -> FacturaView.CONSULTA;
+            case "Pedido" -> PedidoView.CONSULTA;
+            default -> throw new IllegalArgumentException("Entidad sin vista: " + entidad.getSimpleName());
+        };
+    }
+
+    /**
+     * Obtiene el nombre del atributo ID de una entidad.
+     *
+     * @param entidad tipo de la entidad en el metamodelo
+     * @return nombre del atributo marcado con @Id
+     */
+    private static String atributoId(EntityType<?> entidad) {
+        return entidad.getSingularAttributes().stream()
+                .filter(SingularAttribute::isId)
+                .findFirst()
+                .orElseThrow()
+                .getName();
+    }
+}
@@ -0,0 +1,627 @@
+package crud;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.QueryTimeoutException;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.exception.LockAcquisitionException;
+
+import conexion.HibernateUtil;
+import dto.LineaPedido;
+import dto.ResultadoLote;
+import entidades.PuntoControlCola;
+
+/**
+ * Escritura diferida de pedidos (write-behind).
+ * Mientras está activa, encolar() guarda el pedido en un diario local y en una cola en memoria
+ * y vuelve en cuanto el diario está en disco, sin esperar a la base de datos remota. Un hilo
+ * en segundo plano vacía la cola en lotes de TAMANO_LOTE con insertarPedidos (batching JDBC)
+ * y, cuando el lote se confirma, anota en el diario un punto de control.
+ *
+ * El diario es un fichero de texto al que solo se añaden líneas:
+ *   I identificador                                      (primera línea: identifica el diario)
+ *   P secuencia momento idFactura idProducto cantidad   (pedido encolado)
+ *   C secuencia                                          (todo hasta esta secuencia está en la BD)
+ * Si el programa se cierra con pedidos pendientes, al arrancar se leen los pedidos posteriores
+ * al último punto de control y se vuelven a encolar.
+ *
+ * encolar() no responde hasta que su línea se ha volcado a disco (fsync), así que un pedido
+ * aceptado sobrevive también a un apagado del equipo. Para no hacer un fsync por pedido, los
+ * volcados se agrupan: el terminal que vuelca cubre las líneas que otros han escrito mientras
+ * tanto, y esos no necesitan volcar de nuevo.
+ *
+ * La última secuencia escrita se guarda también en la base de datos (PuntoControlCola), en la
+ * misma transacción que los pedidos del lote. Si el programa se cierra después del commit pero
+ * antes de anotar la línea C, al repetir el lote se saltan los pedidos que ya estaban.
+ *
+ * Si la base de datos no responde (conexión o bloqueo agotados), el lote se reintenta con esperas
+ * crecientes sin perder el orden. Si lo rechaza por otro motivo, se divide en dos mitades hasta
+ * dar con los pedidos que fallan, que se apartan al fichero de descartados (ruta del diario
+ * terminada en .descartados) junto con el motivo. También se apartan los pedidos cuya factura
+ * o producto no existe.
+ */
+public class ColaPedidos {
+
+    /**
+     * Propiedad del sistema con la ruta del diario
+     */
+    public static final String PROPIEDAD_DIARIO = "restaurante.cola.diario";
+
+    /**
+     * Diario por defecto (en el directorio de trabajo)
+     */
+    public static final String DIARIO_POR_DEFECTO = "pedidos-pendientes.diario";
+
+    /**
+     * Pedidos que caben en la cola; si está llena, encolar() devuelve false
+     */
+    public static final int CAPACIDAD = 10_000;
+
+    /**
+     * Tamaño a partir del cual se vacía el diario cuando no queda nada pendiente
+     */
+    private static final long TAMANO_MAXIMO_DIARIO = 1024 * 1024;
+
+    /**
+     * Espera máxima entre reintentos cuando la base de datos no responde
+     */
+    private static final long ESPERA_MAXIMA_REINTENTO_MS = 30_000;
+
+    private static final BlockingQueue<Entrada> COLA = new ArrayBlockingQueue<>(CAPACIDAD);
+    private static final LongAdder ENCOLADOS = new LongAdder();
+    private static final LongAdder ESCRITOS = new LongAdder();
+    private static final LongAdder DESCARTADOS = new LongAdder();
+    private static final LongAdder REINTENTOS = new LongAdder();
+
+    private static volatile FileChannel diario;
+    private static volatile long secuencia;
+    private static String identificador;
+    private static Thread escritor;
+    private static volatile boolean activa;
+
+    /**
+     * Cerrojo de los volcados del diario a disco (solo uno a la vez)
+     */
+    private static final Object VOLCADO = new Object();
+
+    /**
+     * Última secuencia que se sabe en disco (protegida por VOLCADO)
+     */
+    private static long volcadaHasta;
+
+    /**
+     * Momento (epoch ms) en que se encoló el pedido más antiguo del lote que se está escribiendo,
+     * o 0 si no hay ninguno
+     */
+    private static volatile long loteEnCursoDesde;
+
+    /**
+     * Pedido encolado.
+     *
+     * @param secuencia número de orden en el diario
+     * @param encolado momento en que se encoló (epoch ms)
+     * @param linea datos del pedido
+     */
+    private record Entrada(long secuencia, long encolado, LineaPedido linea) {
+    }
+
+    /**
+     * Contenido de un diario.
+     *
+     * @param identificador identificador del diario (null si no tiene línea I)
+     * @param puntoControl último punto de control anotado
+     * @param pendientes pedidos posteriores al punto de control, en orden de secuencia
+     */
+    private record ContenidoDiario(String identificador, long puntoControl, List<Entrada> pendientes) {
+    }
+
+    /**
+     * Activa la escritura diferida: abre el diario, vuelve a encolar los pedidos que
+     * quedaron pendientes y arranca el hilo de escritura. Si ya estaba activa no hace nada.
+     *
+     * @return true si la cola quedó activa
+     */
+    public static synchronized boolean iniciar() {
+        if (activa) return true;
+        try {
+            Path ruta = rutaDiario();
+            ContenidoDiario contenido = leerDiario(ruta);
+            List<Entrada> pendientes = contenido.pendientes();
+            String id = contenido.identificador() != null ? contenido.identificador() : UUID.randomUUID().toString();
+            // Las secuencias siguen donde se quedaron: el punto de control de la base de datos
+            // solo sirve si no vuelven a empezar mientras el diario tenga el mismo identificador
+            long ultima = pendientes.isEmpty()
+                    ? contenido.puntoControl()
+                    : pendientes.get(pendientes.size() - 1).secuencia();
+
+            // Se reescribe el diario solo con lo pendiente (así no crece sin límite entre arranques)
+            Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+            try (FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                escribir(nuevo, cabecera(id, contenido.puntoControl()));
+                for (Entrada entrada : pendientes) {
+                    escribir(nuevo, lineaPedido(entrada));
+                }
+                nuevo.force(true);
+            }
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            diario = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            COLA.clear();
+            COLA.addAll(pendientes);
+            identificador = id;
+            secuencia = ultima;
+            synchronized (VOLCADO) {
+                volcadaHasta = ultima;
+            }
+
+            activa = true;
+            escritor = new Thread(ColaPedidos::escribirLotes, "escritor-pedidos");
+            escritor.setDaemon(true);
+            escritor.start();
+
+            System.out.println("✓ Escritura diferida de pedidos activada (diario: " + ruta + ")");
+            if (!pendientes.isEmpty()) {
+                System.out.println("✓ Se recuperaron " + pendientes.size() + " pedidos pendientes del diario");
+            }
+            return true;
+
+        } catch (IOException e) {
+            System.out.println("✗ No se pudo abrir el diario de pedidos: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Si el diario tiene pedidos sin escribir en la base de datos (el programa se cerró
+     * con la cola activa), activa la cola para que se escriban.
+     */
+    public static void recuperarPendientes() {
+        try {
+            if (!leerDiario(rutaDiario()).pendientes().isEmpty()) {
+                iniciar();
+            }
+        } catch (IOException e) {
+            System.out.println("✗ No se pudo leer el diario de pedidos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Desactiva la escritura diferida: deja de aceptar pedidos, espera a que el hilo
+     * escriba los que quedan en la cola (como mucho esperaSegundos) y cierra el diario.
+     * Lo que no se haya escrito sigue en el diario y se recupera al volver a activarla.
+     *
+     * @param esperaSegundos segundos que se espera a que se vacíe la cola
+     */
+    public static void detener(int esperaSegundos) {
+        Thread hilo;
+        synchronized (ColaPedidos.class) {
+            if (!activa) return;
+            activa = false;
+            hilo = escritor;
+        }
+        try {
+            hilo.join(TimeUnit.SECONDS.toMillis(esperaSegundos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        hilo.interrupt();
+
+        synchronized (ColaPedidos.class) {
+            try {
+                diario.force(true);
+                diario.close();
+            } catch (IOException e) {
+                System.out.println("✗ Error al cerrar el diario de pedidos: " + e.getMessage());
+            }
+            int pendientes = COLA.size();
+            COLA.clear();
+            System.out.println("✓ Escritura diferida de pedidos desactivada"
+                    + (pendientes > 0 ? " (" + pendientes + " pedidos quedan en el diario)" : ""));
+        }
+    }
+
+    /**
+     * @return true si la escritura diferida está activa
+     */
+    public static boolean activa() {
+        return activa;
+    }
+
+    /**
+     * Encola un pedido para escribirlo en segundo plano.
+     * Vuelve cuando la línea del pedido está en disco (ver volcarHasta).
+     * No comprueba que existan la factura y el producto: eso se hace al escribir el lote.
+     *
+     * @param idFactura ID de la factura asociada.
+     * @param idProducto ID del producto.
+     * @param cantidad cantidad pedida.
+     * @return true si quedó encolado, false si la cola no está activa, está llena
+     *         o no se pudo escribir en el diario (entonces hay que insertarlo directamente)
+     */
+    public static boolean encolar(int idFactura, int idProducto, int cantidad) {
+        long propia;
+        synchronized (ColaPedidos.class) {
+            if (!activa || COLA.remainingCapacity() == 0) return false;
+
+            Entrada entrada = new Entrada(secuencia + 1, System.currentTimeMillis(),
+                    new LineaPedido(idFactura, idProducto, cantidad));
+            try {
+                escribir(diario, lineaPedido(entrada));
+            } catch (IOException e) {
+                System.out.println("✗ Error al escribir en el diario de pedidos: " + e.getMessage());
+                return false;
+            }
+            secuencia++;
+            COLA.add(entrada);
+            propia = entrada.secuencia();
+        }
+        volcarHasta(propia);
+        ENCOLADOS.increment();
+        return true;
+    }
+
+    /**
+     * Vuelca el diario a disco (fsync) si la línea de una secuencia todavía no lo está.
+     * Mientras un hilo vuelca, los demás esperan el cerrojo; al entrar, si aquel volcado ya
+     * cubría su línea, vuelven sin volcar otra vez (commit en grupo).
+     * Si el volcado falla, el pedido ya está en la cola y se escribirá igualmente
+     * (devolver false haría que se insertara dos veces), pero se avisa de que no
+     * sobreviviría a un apagado del equipo.
+     *
+     * @param hasta secuencia que tiene que quedar en disco
+     */
+    private static void volcarHasta(long hasta) {
+        synchronized (VOLCADO) {
+            if (volcadaHasta >= hasta) return;
+            // Todo lo que tiene secuencia menor o igual ya está escrito en el canal
+            long escrita = secuencia;
+            try {
+                diario.force(false);
+                volcadaHasta = escrita;
+            } catch (IOException e) {
+                System.out.println("✗ No se pudo volcar el diario de pedidos a disco: " + e.getMessage());
+                System.out.println("  El pedido se escribirá, pero se perdería si se apaga el equipo antes.");
+            }
+        }
+    }
+
+    /**
+     * Profundidad de la cola: pedidos aceptados que aún no están en la base de datos.
+     *
+     * @return pedidos pendientes
+     */
+    public static int profundidad() {
+        return COLA.size();
+    }
+
+    /**
+     * Retraso de la escritura: cuánto lleva esperando el pedido pendiente más antiguo.
+     *
+     * @return milisegundos, o 0 si no hay nada pendiente
+     */
+    public static long retrasoMs() {
+        long desde = loteEnCursoDesde;
+        if (desde == 0) {
+            Entrada primera = COLA.peek();
+            if (primera == null) return 0;
+            desde = primera.encolado();
+        }
+        return Math.max(0, System.currentTimeMillis() - desde);
+    }
+
+    /**
+     * Genera un resumen del estado de la cola.
+     *
+     * @return String de una línea con el estado
+     */
+    public static String estado() {
+        return String.format("activa=%s profundidad=%d/%d retraso=%dms encolados=%d escritos=%d"
+                        + " descartados=%d reintentos=%d",
+                activa ? "sí" : "no", profundidad(), CAPACIDAD, retrasoMs(),
+                ENCOLADOS.sum(), ESCRITOS.sum(), DESCARTADOS.sum(), REINTENTOS.sum());
+    }
+
+    /**
+     * Bucle del hilo de escritura: saca lotes de la cola y los inserta hasta que la cola
+     * se desactiva y queda vacía.
+     */
+    private static void escribirLotes() {
+        List<Entrada> lote = new ArrayList<>(RestauranteCRUDHibernate.TAMANO_LOTE);
+        try {
+            while (activa || !COLA.isEmpty()) {
+                Entrada primera = COLA.poll(200, TimeUnit.MILLISECONDS);
+                if (primera == null) continue;
+
+                lote.add(primera);
+                COLA.drainTo(lote, RestauranteCRUDHibernate.TAMANO_LOTE - 1);
+                loteEnCursoDesde = primera.encolado();
+
+                escribirLote(lote);
+
+                loteEnCursoDesde = 0;
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            // detener() ha agotado la espera: lo pendiente sigue en el diario
+        }
+    }
+
+    /**
+     * Inserta un lote y anota el punto de control en el diario.
+     * Si la base de datos lo rechaza por un fallo que no es pasajero, se divide en dos mitades
+     * y se escribe cada una; un pedido que falla solo se aparta al fichero de descartados.
+     *
+     * @param lote pedidos a insertar, en orden de secuencia
+     * @throws InterruptedException si se interrumpe el hilo mientras espera para reintentar
+     */
+    private static void escribirLote(List<Entrada> lote) throws InterruptedException {
+        long hasta = lote.get(lote.size() - 1).secuencia();
+        try {
+            confirmarConReintentos(lote, hasta);
+
+        } catch (RuntimeException e) {
+            System.out.println("✗ La base de datos rechazó un lote de " + lote.size() + " pedidos: " + e.getMessage());
+            if (lote.size() > 1) {
+                int mitad = lote.size() / 2;
+                escribirLote(lote.subList(0, mitad));
+                escribirLote(lote.subList(mitad, lote.size()));
+                return;
+            }
+            descartar(lote.get(0), e.getMessage());
+            try {
+                // Solo avanza el punto de control de la base de datos más allá del descartado
+                confirmarConReintentos(List.of(), hasta);
+            } catch (RuntimeException error) {
+                System.out.println("✗ Error al guardar el punto de control: " + error.getMessage());
+            }
+        }
+        anotarPuntoControl(hasta);
+    }
+
+    /**
+     * Llama a confirmar hasta que la base de datos responde, con esperas crecientes
+     * mientras falle por un motivo pasajero.
+     *
+     * @param lote pedidos a insertar, en orden de secuencia
+     * @param hasta secuencia que se guarda como punto de control
+     * @throws InterruptedException si se interrumpe el hilo mientras espera para reintentar
+     * @throws RuntimeException el error de la base de datos, si no es pasajero
+     */
+    private static void confirmarConReintentos(List<Entrada> lote, long hasta) throws InterruptedException {
+        long espera = 500;
+        while (true) {
+            try {
+                confirmar(lote, hasta);
+                return;
+            } catch (RuntimeException e) {
+                if (!esPasajero(e)) throw e;
+                REINTENTOS.increment();
+                System.out.println("✗ La base de datos no responde, se reintenta en " + espera + " ms: " + e.getMessage());
+                Thread.sleep(espera);
+                espera = Math.min(ESPERA_MAXIMA_REINTENTO_MS, espera * 2);
+            }
+        }
+    }
+
+    /**
+     * Inserta en una transacción los pedidos del lote que la base de datos aún no tiene
+     * y guarda hasta como punto de control de este diario. Como los dos cambios se confirman
+     * juntos, si el lote se repite tras un cierre inesperado no se insertan pedidos dos veces.
+     * Los pedidos con factura o producto inexistente se apartan después del commit.
+     *
+     * @param lote pedidos a insertar, en orden de secuencia
+     * @param hasta secuencia que se guarda como punto de control
+     * @throws RuntimeException si la base de datos falla (la transacción se deshace)
+     */
+    private static void confirmar(List<Entrada> lote, long hasta) {
+        List<Entrada> nuevas = new ArrayList<>(lote.size());
+        ResultadoLote resultado;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            // El rollback tiene que hacerse antes de cerrar la sesión (el catch de un
+            // try-with-resources ya la encuentra cerrada)
+            Transaction transaction = session.beginTransaction();
+            try {
+                PuntoControlCola punto = session.find(PuntoControlCola.class, identificador,
+                        LockModeType.PESSIMISTIC_WRITE);
+                long aplicada = punto == null ? 0 : punto.getSecuencia();
+                if (punto == null) {
+                    session.persist(new PuntoControlCola(identificador, hasta));
+                } else if (hasta > aplicada) {
+                    punto.setSecuencia(hasta);
+                }
+                // Se envía ya: insertarPedidos vacía la sesión
+                session.flush();
+
+                lote.stream().filter(entrada -> entrada.secuencia() > aplicada).forEach(nuevas::add);
+                List<LineaPedido> lineas = new ArrayList<>(nuevas.size());
+                nuevas.forEach(entrada -> lineas.add(entrada.linea()));
+
+                resultado = RestauranteCRUDHibernate.insertarPedidos(session, lineas);
+                transaction.commit();
+
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) transaction.rollback();
+                throw e;
+            }
+        }
+
+        ESCRITOS.add(resultado.insertados());
+        if (nuevas.size() < lote.size()) {
+            System.out.println("✓ " + (lote.size() - nuevas.size()) + " pedidos del diario ya estaban en la base de datos");
+        }
+        for (int i = 0; i < resultado.rechazadas().size(); i++) {
+            // El número de fila es el de dentro del lote: en el fichero se identifica por la secuencia
+            String motivo = resultado.errores().get(i).replaceFirst("^Fila \\d+: ", "");
+            descartar(nuevas.get(resultado.rechazadas().get(i)), motivo);
+        }
+    }
+
+    /**
+     * Indica si un error de la base de datos es pasajero (no se puede conectar, se ha agotado
+     * la espera de un bloqueo o de una consulta) y tiene sentido repetir el lote tal cual.
+     * Los demás (clave ajena, restricción, dato no válido) fallarían igual al repetirlo.
+     *
+     * @param e excepción lanzada al insertar o confirmar
+     * @return true si el lote se puede reintentar sin cambios
+     */
+    private static boolean esPasajero(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof JDBCConnectionException
+                    || causa instanceof LockAcquisitionException
+                    || causa instanceof LockTimeoutException
+                    || causa instanceof QueryTimeoutException
+                    || causa instanceof SQLTransientException
+                    || causa instanceof SQLRecoverableException
+                    || causa instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aparta un pedido al fichero de descartados (su línea P seguida del motivo) y lo cuenta.
+     *
+     * @param entrada pedido descartado
+     * @param motivo por qué no se pudo escribir
+     */
+    private static void descartar(Entrada entrada, String motivo) {
+        DESCARTADOS.increment();
+        motivo = String.valueOf(motivo).replace('\n', ' ');
+        Path ruta = rutaDiario().resolveSibling(rutaDiario().getFileName() + ".descartados");
+        String linea = lineaPedido(entrada).replace("\n", " # " + motivo + "\n");
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            escribir(canal, linea);
+            canal.force(false);
+            System.out.println("✗ Pedido " + entrada.secuencia() + " descartado (" + motivo + "), ver " + ruta);
+        } catch (IOException e) {
+            System.out.println("✗ Pedido " + entrada.secuencia() + " descartado (" + motivo
+                    + ") y no se pudo guardar en " + ruta + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe en el diario que todo hasta una secuencia está en la base de datos.
+     * Si no queda nada pendiente y el diario ha crecido mucho, lo vacía.
+     *
+     * @param hasta última secuencia escrita
+     */
+    private static synchronized void anotarPuntoControl(long hasta) {
+        try {
+            if (COLA.isEmpty() && diario.size() > TAMANO_MAXIMO_DIARIO) {
+                diario.truncate(0);
+                escribir(diario, cabecera(identificador, hasta));
+            } else {
+                escribir(diario, "C " + hasta + "\n");
+            }
+        } catch (IOException e) {
+            System.out.println("✗ Error al escribir el punto de control del diario: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee el identificador del diario, su último punto de control y los pedidos posteriores.
+     * Las líneas incompletas (el programa se cerró a mitad de escritura) se ignoran.
+     *
+     * @param ruta ruta del diario
+     * @return contenido del diario (vacío si no existe)
+     * @throws IOException si no se puede leer el fichero
+     */
+    private static ContenidoDiario leerDiario(Path ruta) throws IOException {
+        List<Entrada> pedidos = new ArrayList<>();
+        String id = null;
+        long puntoControl = 0;
+        if (!Files.exists(ruta)) return new ContenidoDiario(null, 0, pedidos);
+
+        try (BufferedReader lector = Files.newBufferedReader(ruta, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                String[] partes = linea.trim().split(" ");
+                try {
+                    if (partes[0].equals("I") && partes.length == 2) {
+                        id = UUID.fromString(partes[1]).toString();
+                    } else if (partes[0].equals("P") && partes.length == 6) {
+                        pedidos.add(new Entrada(Long.parseLong(partes[1]), Long.parseLong(partes[2]),
+                                new LineaPedido(Integer.parseInt(partes[3]), Integer.parseInt(partes[4]),
+                                        Integer.parseInt(partes[5]))));
+                    } else if (partes[0].equals("C") && partes.length == 2) {
+                        puntoControl = Math.max(puntoControl, Long.parseLong(partes[1]));
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Línea cortada
+                }
+            }
+        }
+
+        long hasta = puntoControl;
+        pedidos.removeIf(entrada -> entrada.secuencia() <= hasta);
+        return new ContenidoDiario(id, puntoControl, pedidos);
+    }
+
+    /**
+     * @param id identificador del diario
+     * @param puntoControl último punto de control
+     * @return líneas I y C con las que empieza un diario reescrito
+     */
+    private static String cabecera(String id, long puntoControl) {
+        return "I " + id + "\n" + "C " + puntoControl + "\n";
+    }
+
+    /**
+     * @param entrada pedido encolado
+     * @return línea P del diario
+     */
+    private static String lineaPedido(Entrada entrada) {
+        LineaPedido linea = entrada.linea();
+        return "P " + entrada.secuencia() + " " + entrada.encolado() + " "
+                + linea.idFactura() + " " + linea.idProducto() + " " + linea.cantidad() + "\n";
+    }
+
+    /**
+     * Escribe una línea completa en el canal.
+     *
+     * @param canal fichero abierto para escritura
+     * @param linea línea terminada en \n
+     * @throws IOException si falla la escritura
+     */
+    private static void escribir(FileChannel canal, String linea) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(linea.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    /**
+     * @return ruta del diario (propiedad PROPIEDAD_DIARIO o DIARIO_POR_DEFECTO)
+     */
+    private static Path rutaDiario() {
+        return Paths.get(System.getProperty(PROPIEDAD_DIARIO, DIARIO_POR_DEFECTO));
+    }
+}
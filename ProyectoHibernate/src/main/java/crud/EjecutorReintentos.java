@@ -0,0 +1,147 @@
+package crud;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import jakarta.persistence.OptimisticLockException;
+
+import org.hibernate.Session;
+import org.hibernate.StaleStateException;
+import org.hibernate.Transaction;
+
+import conexion.HibernateUtil;
+
+/**
+ * Ejecuta modificaciones de entidades con versión (Mesa, Factura) en su propia transacción
+ * y las repite si fallan por bloqueo optimista.
+ * Con @Version, un UPDATE que llega después de que otro terminal haya modificado la misma fila
+ * no se aplica (se lanza OptimisticLockException al confirmar) en lugar de pisar el cambio.
+ * Entonces se deshace la transacción, se espera un poco y se vuelve a ejecutar la operación
+ * desde el principio, así que lee los datos ya actualizados.
+ * No se bloquea ninguna fila mientras se trabaja, de modo que los terminales que modifican
+ * mesas o facturas distintas no se esperan entre sí.
+ */
+public class EjecutorReintentos {
+
+    /**
+     * Intentos como máximo por operación (el primero más los reintentos)
+     */
+    public static final int MAX_INTENTOS = 5;
+
+    /**
+     * Espera antes del primer reintento; se duplica en cada reintento
+     */
+    private static final long ESPERA_BASE_MS = 5;
+
+    /**
+     * Espera máxima entre dos intentos
+     */
+    private static final long ESPERA_MAXIMA_MS = 200;
+
+    private static final LongAdder OPERACIONES = new LongAdder();
+    private static final LongAdder INTENTOS = new LongAdder();
+    private static final LongAdder CONFLICTOS = new LongAdder();
+    private static final LongAdder AGOTADAS = new LongAdder();
+
+    /**
+     * Ejecuta una operación en una sesión y transacción nuevas, reintentando si hay conflicto.
+     * La operación recibe la sesión con la transacción iniciada y devuelve true para
+     * confirmar o false para deshacer (por ejemplo, si el registro no existe).
+     * Debe poder repetirse: en cada intento se llama con una sesión nueva.
+     *
+     * @param operacion operación a ejecutar (por ejemplo una llamada a modificarMesa)
+     * @return true si se confirmó, false si la operación falló o se agotaron los intentos
+     */
+    public static boolean ejecutar(Predicate<Session> operacion) {
+        OPERACIONES.increment();
+
+        for (int intento = 1; ; intento++) {
+            INTENTOS.increment();
+            Transaction transaction = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                transaction = session.beginTransaction();
+
+                if (!operacion.test(session)) {
+                    transaction.rollback();
+                    return false;
+                }
+                transaction.commit();
+                return true;
+
+            } catch (Exception e) {
+                if (transaction != null && transaction.isActive()) transaction.rollback();
+                if (!esConflicto(e)) {
+                    System.out.println("✗ Error al ejecutar la operación: " + e.getMessage());
+                    return false;
+                }
+
+                CONFLICTOS.increment();
+                if (intento == MAX_INTENTOS) {
+                    AGOTADAS.increment();
+                    System.out.println("✗ El registro se está modificando desde otro terminal. "
+                            + "Se ha intentado " + MAX_INTENTOS + " veces sin éxito.");
+                    return false;
+                }
+                if (!esperar(intento)) return false;
+            }
+        }
+    }
+
+    /**
+     * Indica si una excepción (o alguna de sus causas) es un conflicto de bloqueo optimista.
+     *
+     * @param e excepción lanzada al modificar o confirmar
+     * @return true si otro terminal modificó el registro a la vez
+     */
+    public static boolean esConflicto(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof OptimisticLockException || causa instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Genera un resumen de los conflictos desde el arranque.
+     *
+     * @return String de una línea con operaciones, intentos y tasa de conflictos
+     */
+    public static String resumen() {
+        long intentos = INTENTOS.sum();
+        long conflictos = CONFLICTOS.sum();
+        return String.format("operaciones=%d intentos=%d conflictos=%d (%.1f%% de los intentos) agotadas=%d",
+                OPERACIONES.sum(), intentos, conflictos,
+                intentos == 0 ? 0.0 : 100.0 * conflictos / intentos, AGOTADAS.sum());
+    }
+
+    /**
+     * Pone a cero los contadores.
+     */
+    public static void reiniciar() {
+        OPERACIONES.reset();
+        INTENTOS.reset();
+        CONFLICTOS.reset();
+        AGOTADAS.reset();
+    }
+
+    /**
+     * Espera antes de reintentar: un tiempo aleatorio hasta ESPERA_BASE_MS · 2^(intento-1),
+     * sin pasar de ESPERA_MAXIMA_MS. El azar evita que los terminales que chocaron
+     * vuelvan a chocar en el siguiente intento.
+     *
+     * @param intento número del intento que acaba de fallar
+     * @return false si el hilo se ha interrumpido mientras esperaba
+     */
+    private static boolean esperar(int intento) {
+        long limite = Math.min(ESPERA_MAXIMA_MS, ESPERA_BASE_MS << (intento - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(limite + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package crud;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.query.SelectionQuery;
+
+import conexion.HibernateUtil;
+import dto.IngresoMesa;
+import dto.TotalTipoPago;
+import dto.VentaProducto;
+
+/**
+ * Informes de ingresos calculados en la base de datos.
+ * Cada informe es una consulta HQL con GROUP BY que proyecta directamente en un record,
+ * así que solo viajan por la red las filas ya agregadas y no se crea ninguna entidad.
+ * Todos admiten un rango de fechas opcional (sobre Factura.fecha) y paginación.
+ */
+public class InformesRestaurante {
+
+    /**
+     * Ingresos por mesa: número de facturas y suma de importes.
+     *
+     * @param desde primer día incluido (null para no limitar)
+     * @param hasta último día incluido (null para no limitar)
+     * @param pagina número de página (empieza en 0)
+     * @param tamanoPagina filas por página
+     * @return filas del informe ordenadas de mayor a menor total
+     */
+    public static List<IngresoMesa> ingresosPorMesa(LocalDate desde, LocalDate hasta, int pagina, int tamanoPagina) {
+        String hql = "SELECT new dto.IngresoMesa(m.idMesa, COUNT(f), SUM(f.importe))"
+                + " FROM Factura f JOIN f.mesa m"
+                + filtroFechas(desde, hasta)
+                + " GROUP BY m.idMesa"
+                + " ORDER BY SUM(f.importe) DESC, m.idMesa";
+        return ejecutar(hql, IngresoMesa.class, desde, hasta, pagina, tamanoPagina);
+    }
+
+    /**
+     * Ventas por producto: unidades vendidas e ingresos (cantidad × precio de cada pedido).
+     *
+     * @param desde primer día incluido (null para no limitar)
+     * @param hasta último día incluido (null para no limitar)
+     * @param pagina número de página (empieza en 0)
+     * @param tamanoPagina filas por página
+     * @return filas del informe ordenadas de mayor a menor ingreso
+     */
+    public static List<VentaProducto> ventasPorProducto(LocalDate desde, LocalDate hasta, int pagina, int tamanoPagina) {
+        String hql = "SELECT new dto.VentaProducto(pr.idProducto, pr.nombre, SUM(p.cantidad), SUM(p.cantidad * COALESCE(p.precio, pr.precio)))"
+                + " FROM Pedido p JOIN p.producto pr JOIN p.factura f"
+                + filtroFechas(desde, hasta)
+                + " GROUP BY pr.idProducto, pr.nombre"
+                + " ORDER BY SUM(p.cantidad * COALESCE(p.precio, pr.precio)) DESC, pr.idProducto";
+        return ejecutar(hql, VentaProducto.class, desde, hasta, pagina, tamanoPagina);
+    }
+
+    /**
+     * Totales por tipo de pago: número de facturas y suma de importes.
+     *
+     * @param desde primer día incluido (null para no limitar)
+     * @param hasta último día incluido (null para no limitar)
+     * @param pagina número de página (empieza en 0)
+     * @param tamanoPagina filas por página
+     * @return filas del informe ordenadas de mayor a menor total
+     */
+    public static List<TotalTipoPago> totalesPorTipoPago(LocalDate desde, LocalDate hasta, int pagina, int tamanoPagina) {
+        String hql = "SELECT new dto.TotalTipoPago(f.tipoPago, COUNT(f), SUM(f.importe))"
+                + " FROM Factura f"
+                + filtroFechas(desde, hasta)
+                + " GROUP BY f.tipoPago"
+                + " ORDER BY SUM(f.importe) DESC, f.tipoPago";
+        return ejecutar(hql, TotalTipoPago.class, desde, hasta, pagina, tamanoPagina);
+    }
+
+    /**
+     * Construye la cláusula WHERE del rango de fechas sobre el alias f (Factura).
+     *
+     * @param desde primer día incluido (null para no limitar)
+     * @param hasta último día incluido (null para no limitar)
+     * @return cláusula WHERE, o cadena vacía si no hay rango
+     */
+    private static String filtroFechas(LocalDate desde, LocalDate hasta) {
+        List<String> condiciones = new ArrayList<>();
+        if (desde != null) condiciones.add("f.fecha >= :desde");
+        if (hasta != null) condiciones.add("f.fecha < :hasta");
+        return condiciones.isEmpty() ? "" : " WHERE " + String.join(" AND ", condiciones);
+    }
+
+    /**
+     * Ejecuta un informe en una sesión sin estado.
+     *
+     * @param hql consulta con proyección al record del informe
+     * @param tipo clase del record
+     * @param desde primer día incluido (null para no limitar)
+     * @param hasta último día incluido (null para no limitar)
+     * @param pagina número de página (empieza en 0)
+     * @param tamanoPagina filas por página
+     * @return filas del informe, o lista vacía si hubo error
+     */
+    private static <T> List<T> ejecutar(String hql, Class<T> tipo, LocalDate desde, LocalDate hasta,
+            int pagina, int tamanoPagina) {
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            SelectionQuery<T> query = session.createSelectionQuery(hql, tipo);
+            if (desde != null) query.setParameter("desde", desde.atStartOfDay());
+            if (hasta != null) query.setParameter("hasta", hasta.plusDays(1).atStartOfDay());
+            return query.setFirstResult(pagina * tamanoPagina)
+                    .setMaxResults(tamanoPagina)
+                    .list();
+
+        } catch (Exception e) {
+            System.out.println("✗ Error al generar el informe: " + e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -1,12 +1,46 @@
 package crud;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.jpa.SpecHints;
 import org.hibernate.query.Query;
+import org.hibernate.query.SelectionQuery;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 
 import conexion.HibernateUtil;
+import conexion.MetricasRestaurante;
+import dto.FacturaView;
+import dto.LineaCuenta;
+import dto.LineaPedido;
+import dto.MesaView;
+import dto.Pagina;
+import dto.PedidoView;
+import dto.ProductoView;
+import dto.ResultadoLote;
+import dto.Vista;
 import entidades.Factura;
 import entidades.Mesa;
 import entidades.Pedido;
@@ -18,6 +52,65 @@ import entidades.Producto;
  */
 public class RestauranteCRUDHibernate {
 
+    /**
+     * Número de filas por tramo en las inserciones en lote.
+     * Coincide con hibernate.jdbc.batch_size del hibernate.cfg.xml.
+     */
+    public static final int TAMANO_LOTE = 50;
+
+    /**
+     * Región de la caché de consultas para los listados de productos (ver ehcache.xml).
+     */
+    public static final String REGION_CONSULTAS_PRODUCTOS = "consultas.productos";
+
+    /**
+     * Filas que el driver trae en cada viaje a la base de datos al recorrer un listado.
+     * Con useCursorFetch=true en la URL, MySQL usa un cursor en el servidor.
+     */
+    public static final int TAMANO_FETCH = 500;
+
+    /**
+     * Facturas por tramo (rango de IDs) al recalcular los totales.
+     */
+    public static final int TAMANO_TRAMO_TOTALES = 1000;
+
+    /**
+     * Suma una diferencia al total y al número de líneas de una factura.
+     * La suma la hace la base de datos sobre el valor actual de la fila, así que dos terminales
+     * que añaden pedidos a la misma factura no se pisan; no cambia la versión de la factura
+     * para no provocar conflictos con quien la esté modificando.
+     * Es SQL nativo porque en HQL Hibernate añade un CAST a los parámetros de la suma
+     * que no todas las bases de datos aceptan.
+     */
+    private static final String SUMAR_TOTAL_FACTURA = "UPDATE Factura"
+            + " SET total = total + :importe, numLineas = numLineas + :lineas"
+            + " WHERE idFactura = :idFactura";
+
+    /**
+     * Guarda el precio actual del producto en los pedidos que aún no tienen precio
+     * (los anteriores a la columna Pedido.precio o los importados por JDBC) de unas facturas.
+     * Se completa con POR_RANGO o POR_IDS.
+     */
+    private static final String FIJAR_PRECIOS_PEDIDOS = "UPDATE Pedido p"
+            + " SET p.precio = (SELECT pr.precio FROM Producto pr WHERE pr.idProducto = p.producto.idProducto)"
+            + " WHERE p.precio IS NULL AND p.factura.idFactura";
+
+    /**
+     * Recalcula desde los pedidos el total y el número de líneas de unas facturas,
+     * con el precio guardado en cada pedido. Se completa con POR_RANGO o POR_IDS.
+     */
+    private static final String RECALCULAR_TOTALES = "UPDATE Factura f"
+            + " SET f.total = COALESCE((SELECT SUM(p.cantidad * p.precio) FROM Pedido p"
+            + " WHERE p.factura.idFactura = f.idFactura), 0),"
+            + " f.numLineas = (SELECT CAST(COUNT(p) AS Integer) FROM Pedido p WHERE p.factura.idFactura = f.idFactura)"
+            + " WHERE f.idFactura";
+
+    /** Facturas con ID entre :desde y :hasta */
+    private static final String POR_RANGO = " BETWEEN :desde AND :hasta";
+
+    /** Facturas cuyo ID está en la lista :ids */
+    private static final String POR_IDS = " IN :ids";
+
     // ==================== CREAR TABLAS ====================
     
 	/**
@@ -46,22 +139,31 @@ public class RestauranteCRUDHibernate {
      * @return true si la inserción fue exitosa, false si hubo error.
      */
     public static boolean insertarMesa(int numComensales, int reserva) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            
-            Mesa mesa = new Mesa(numComensales, reserva);
-            session.persist(mesa);
-            
-            transaction.commit();
-            System.out.println("✓ Mesa insertada correctamente con ID: " + mesa.getIdMesa());
-            return true;
-            
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            System.out.println("✗ Error al insertar mesa: " + e.getMessage());
-            return false;
-        }
+        return enTransaccion(session -> insertarMesa(session, numComensales, reserva));
+    }
+
+    /**
+     * Inserta una nueva mesa usando una sesión abierta por quien llama.
+     *
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @param numComensales número de comensales de la mesa.
+     * @param reserva estado de reserva (1 reservada, 0 libre).
+     * @return true si la inserción fue exitosa, false si hubo error.
+     */
+    public static boolean insertarMesa(Session session, int numComensales, int reserva) {
+        return MetricasRestaurante.medir("insertarMesa", () -> {
+            try {
+                Mesa mesa = new Mesa(numComensales, reserva);
+                session.persist(mesa);
+
+                System.out.println("✓ Mesa insertada correctamente con ID: " + mesa.getIdMesa());
+                return true;
+
+            } catch (Exception e) {
+                System.out.println("✗ Error al insertar mesa: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
     /**
@@ -72,22 +174,24 @@ public class RestauranteCRUDHibernate {
      * @return true si la inserción fue exitosa, false si hubo error.
      */
     public static boolean insertarProducto(String nombre, double precio) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        return MetricasRestaurante.medir("insertarProducto", () -> {
+            Transaction transaction = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                transaction = session.beginTransaction();
             
-            Producto producto = new Producto(nombre, precio);
-            session.persist(producto);
+                Producto producto = new Producto(nombre, precio);
+                session.persist(producto);
             
-            transaction.commit();
-            System.out.println("✓ Producto insertado correctamente con ID: " + producto.getIdProducto());
-            return true;
+                transaction.commit();
+                System.out.println("✓ Producto insertado correctamente con ID: " + producto.getIdProducto());
+                return true;
             
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            System.out.println("✗ Error al insertar producto: " + e.getMessage());
-            return false;
-        }
+            } catch (Exception e) {
+                if (transaction != null) transaction.rollback();
+                System.out.println("✗ Error al insertar producto: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
     /**
@@ -99,34 +203,44 @@ public class RestauranteCRUDHibernate {
      * @return true si la inserción fue exitosa, false si hubo error.
      */
     public static boolean insertarFactura(int idMesa, String tipoPago, double importe) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        return enTransaccion(session -> insertarFactura(session, idMesa, tipoPago, importe));
+    }
+
+    /**
+     * Inserta una nueva factura usando una sesión abierta por quien llama.
+     *
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @param idMesa ID de la mesa asociada.
+     * @param tipoPago tipo de pago ("Efectivo", "Tarjeta").
+     * @param importe importe total.
+     * @return true si la inserción fue exitosa, false si hubo error.
+     */
+    public static boolean insertarFactura(Session session, int idMesa, String tipoPago, double importe) {
+        return MetricasRestaurante.medir("insertarFactura", () -> {
+            try {
+                // Primero obtenemos la mesa
+                Mesa mesa = session.get(Mesa.class, idMesa);
+                if (mesa == null) {
+                    System.out.println("✗ Error: No existe una mesa con ID " + idMesa);
+                    System.out.println("  No se puede insertar una factura para una mesa que no existe en la base de datos.");
+                    return false;
+                }
             
-            // Primero obtenemos la mesa
-            Mesa mesa = session.get(Mesa.class, idMesa);
-            if (mesa == null) {
-                System.out.println("✗ Error: No existe una mesa con ID " + idMesa);
-                System.out.println("  No se puede insertar una factura para una mesa que no existe en la base de datos.");
+                Factura factura = new Factura(mesa, tipoPago, importe);
+                session.persist(factura);
+
+                System.out.println("✓ Factura insertada correctamente con ID: " + factura.getIdFactura());
+                return true;
+
+            } catch (Exception e) {
+                System.out.println("✗ Error al insertar factura: " + e.getMessage());
                 return false;
             }
-            
-            Factura factura = new Factura(mesa, tipoPago, importe);
-            session.persist(factura);
-            
-            transaction.commit();
-            System.out.println("✓ Factura insertada correctamente con ID: " + factura.getIdFactura());
-            return true;
-            
-        } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            System.out.println("✗ Error al insertar factura: " + e.getMessage());
-            return false;
-        }
+        });
     }
     
     /**
-     * Inserta un nuevo pedido en la base de datos.
+     * Inserta un nuevo pedido en la base de datos y suma su importe al total de la factura.
      * 
      * @param idFactura ID de la factura asociada.
      * @param idProducto ID del producto.
@@ -134,43 +248,298 @@ public class RestauranteCRUDHibernate {
      * @return true si la inserción fue exitosa, false si hubo error.
      */
     public static boolean insertarPedido(int idFactura, int idProducto, int cantidad) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        return enTransaccion(session -> insertarPedido(session, idFactura, idProducto, cantidad));
+    }
+
+    /**
+     * Inserta un nuevo pedido usando una sesión abierta por quien llama
+     * y suma su importe al total de la factura en la misma transacción.
+     *
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @param idFactura ID de la factura asociada.
+     * @param idProducto ID del producto.
+     * @param cantidad cantidad pedida.
+     * @return true si la inserción fue exitosa, false si hubo error.
+     */
+    public static boolean insertarPedido(Session session, int idFactura, int idProducto, int cantidad) {
+        return MetricasRestaurante.medir("insertarPedido", () -> {
+            try {
+                // Obtenemos la factura y el producto
+                Factura factura = session.get(Factura.class, idFactura);
+                Producto producto = session.get(Producto.class, idProducto);
             
-            // Obtenemos la factura y el producto
-            Factura factura = session.get(Factura.class, idFactura);
-            Producto producto = session.get(Producto.class, idProducto);
+                if (factura == null) {
+                    System.out.println("✗ Error: No existe una factura con ID " + idFactura);
+                    System.out.println("  No se puede insertar un pedido para una factura que no existe en la base de datos.");
+                    return false;
+                }
+                if (producto == null) {
+                    System.out.println("✗ Error: No existe un producto con ID " + idProducto);
+                    System.out.println("  No se puede insertar un pedido para un producto que no existe en la base de datos.");
+                    return false;
+                }
             
-            if (factura == null) {
-                System.out.println("✗ Error: No existe una factura con ID " + idFactura);
-                System.out.println("  No se puede insertar un pedido para una factura que no existe en la base de datos.");
+                Pedido pedido = new Pedido(factura, producto, cantidad, producto.getPrecio());
+                session.persist(pedido);
+                sumarTotalFactura(session, idFactura, cantidad * pedido.getPrecio(), 1);
+
+                System.out.println("✓ Pedido insertado correctamente con ID: " + pedido.getIdPedido());
+                return true;
+
+            } catch (Exception e) {
+                System.out.println("✗ Error al insertar pedido: " + e.getMessage());
                 return false;
             }
-            if (producto == null) {
-                System.out.println("✗ Error: No existe un producto con ID " + idProducto);
-                System.out.println("  No se puede insertar un pedido para un producto que no existe en la base de datos.");
+        });
+    }
+
+    /**
+     * Ejecuta una operación que recibe la sesión en una sesión y transacción nuevas.
+     * Si la operación devuelve false se deshace la transacción; si no, se confirma.
+     *
+     * @param operacion operación a ejecutar
+     * @return true si la operación terminó bien y se confirmó
+     */
+    private static boolean enTransaccion(java.util.function.Predicate<Session> operacion) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            if (!operacion.test(session)) {
+                transaction.rollback();
                 return false;
             }
-            
-            Pedido pedido = new Pedido(factura, producto, cantidad);
-            session.persist(pedido);
-            
             transaction.commit();
-            System.out.println("✓ Pedido insertado correctamente con ID: " + pedido.getIdPedido());
             return true;
-            
+
         } catch (Exception e) {
-            if (transaction != null) transaction.rollback();
-            System.out.println("✗ Error al insertar pedido: " + e.getMessage());
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            System.out.println("✗ Error al confirmar la transacción: " + e.getMessage());
             return false;
         }
     }
-    
+
+    /**
+     * Inserta varios pedidos en una única transacción usando el batching JDBC de Hibernate.
+     * Las facturas y productos referenciados se comprueban con una consulta IN por tramo
+     * (solo los IDs que aún no se conocen) y la sesión se vacía (flush/clear) cada
+     * TAMANO_LOTE filas para que la memoria no crezca con el tamaño de la importación.
+     * Las filas con referencias inexistentes o cantidad no válida se informan y se saltan
+     * sin deshacer el resto del lote. Los totales se acumulan por factura y se suman
+     * al final con un UPDATE por factura, en la misma transacción.
+     *
+     * @param lineas líneas a insertar (idFactura, idProducto, cantidad).
+     * @return resultado con el número de filas insertadas y los errores por fila.
+     */
+    public static ResultadoLote insertarPedidos(List<LineaPedido> lineas) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+
+            ResultadoLote resultado = insertarPedidos(session, lineas);
+
+            transaction.commit();
+            System.out.println("✓ Se insertaron " + resultado.insertados() + " pedidos de " + lineas.size());
+            resultado.errores().forEach(error -> System.out.println("✗ " + error));
+            return new ResultadoLote(resultado.insertados(), resultado.errores(), resultado.rechazadas(), true);
+
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            System.out.println("✗ Error al insertar pedidos en lote: " + e.getMessage());
+            return new ResultadoLote(0, List.of("Lote deshecho: " + e.getMessage()), List.of(), false);
+        }
+    }
+
+    /**
+     * Inserta varios pedidos usando una sesión abierta por quien llama, igual que
+     * insertarPedidos(List), pero sin confirmar: el resultado lleva confirmado = false y
+     * el commit (o el rollback) lo hace quien llama, que puede añadir otros cambios a la
+     * misma transacción. Los errores de la base de datos no se capturan.
+     * Cada tramo termina con flush/clear, así que las entidades que quien llama haya
+     * cargado antes en la sesión quedan separadas (sus cambios ya se han enviado).
+     *
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @param lineas líneas a insertar (idFactura, idProducto, cantidad).
+     * @return resultado con el número de filas insertadas y las filas rechazadas.
+     */
+    public static ResultadoLote insertarPedidos(Session session, List<LineaPedido> lineas) {
+        return MetricasRestaurante.medir("insertarPedidos", () -> {
+            List<String> errores = new ArrayList<>();
+            List<Integer> rechazadas = new ArrayList<>();
+            int insertados = 0;
+            session.setJdbcBatchSize(TAMANO_LOTE);
+
+            // IDs ya comprobados en tramos anteriores (solo enteros, no entidades)
+            Set<Integer> facturasExistentes = new HashSet<>();
+            Map<Integer, Double> preciosProductos = new HashMap<>();
+            // Importe y líneas añadidos a cada factura
+            Map<Integer, double[]> sumasFacturas = new HashMap<>();
+
+            for (int inicio = 0; inicio < lineas.size(); inicio += TAMANO_LOTE) {
+                List<LineaPedido> tramo = lineas.subList(inicio, Math.min(inicio + TAMANO_LOTE, lineas.size()));
+
+                Set<Integer> facturasPendientes = new HashSet<>();
+                Set<Integer> productosPendientes = new HashSet<>();
+                for (LineaPedido linea : tramo) {
+                    if (!facturasExistentes.contains(linea.idFactura())) facturasPendientes.add(linea.idFactura());
+                    if (!preciosProductos.containsKey(linea.idProducto())) productosPendientes.add(linea.idProducto());
+                }
+                if (!facturasPendientes.isEmpty()) {
+                    facturasExistentes.addAll(session.createQuery(
+                            "SELECT f.idFactura FROM Factura f WHERE f.idFactura IN :ids", Integer.class)
+                            .setParameter("ids", facturasPendientes)
+                            .list());
+                }
+                if (!productosPendientes.isEmpty()) {
+                    session.createQuery(
+                            "SELECT p.idProducto, p.precio FROM Producto p WHERE p.idProducto IN :ids", Object[].class)
+                            .setParameter("ids", productosPendientes)
+                            .list()
+                            .forEach(fila -> preciosProductos.put((Integer) fila[0], (Double) fila[1]));
+                }
+
+                for (int i = 0; i < tramo.size(); i++) {
+                    LineaPedido linea = tramo.get(i);
+                    int fila = inicio + i;
+                    if (linea.cantidad() <= 0) {
+                        rechazar(errores, rechazadas, fila, "cantidad no válida (" + linea.cantidad() + ")");
+                    } else if (!facturasExistentes.contains(linea.idFactura())) {
+                        rechazar(errores, rechazadas, fila, "no existe una factura con ID " + linea.idFactura());
+                    } else if (!preciosProductos.containsKey(linea.idProducto())) {
+                        rechazar(errores, rechazadas, fila, "no existe un producto con ID " + linea.idProducto());
+                    } else {
+                        // getReference no lanza SELECT: la existencia ya se ha comprobado
+                        Pedido pedido = new Pedido(
+                                session.getReference(Factura.class, linea.idFactura()),
+                                session.getReference(Producto.class, linea.idProducto()),
+                                linea.cantidad(),
+                                preciosProductos.get(linea.idProducto()));
+                        session.persist(pedido);
+                        insertados++;
+
+                        double[] suma = sumasFacturas.computeIfAbsent(linea.idFactura(), id -> new double[2]);
+                        suma[0] += linea.cantidad() * preciosProductos.get(linea.idProducto());
+                        suma[1]++;
+                    }
+                }
+
+                // Enviamos el tramo en batch y liberamos el contexto de persistencia
+                session.flush();
+                session.clear();
+            }
+
+            for (Map.Entry<Integer, double[]> suma : sumasFacturas.entrySet()) {
+                sumarTotalFactura(session, suma.getKey(), suma.getValue()[0], (int) suma.getValue()[1]);
+            }
+
+            return new ResultadoLote(insertados, errores, rechazadas, false);
+        });
+    }
+
+    /**
+     * Anota una fila rechazada por insertarPedidos.
+     *
+     * @param errores mensajes de las filas rechazadas
+     * @param rechazadas posiciones de las filas rechazadas
+     * @param fila posición de la fila en la lista (desde 0)
+     * @param motivo por qué no se inserta
+     */
+    private static void rechazar(List<String> errores, List<Integer> rechazadas, int fila, String motivo) {
+        errores.add("Fila " + (fila + 1) + ": " + motivo);
+        rechazadas.add(fila);
+    }
+
+    // ==================== CERRAR MESA ====================
+
+    /**
+     * Cierra una mesa: crea su factura con todos los pedidos y libera la reserva,
+     * todo en una única transacción (o se guarda todo o nada).
+     * Los productos se cargan con una sola consulta IN y el importe se calcula con sus precios;
+     * los pedidos se guardan con la factura gracias al cascade de Factura.pedidos,
+     * así que el número de sentencias no depende del número de líneas
+     * (un INSERT de factura, un lote de INSERT de pedidos y un UPDATE de la mesa).
+     *
+     * @param idMesa ID de la mesa que se cierra.
+     * @param tipoPago tipo de pago ("Efectivo", "Tarjeta").
+     * @param lineas productos y cantidades consumidos.
+     * @return ID de la factura creada, o -1 si hubo error.
+     */
+    public static int cerrarMesa(int idMesa, String tipoPago, List<LineaCuenta> lineas) {
+        return MetricasRestaurante.medir("cerrarMesa", () -> {
+            if (lineas == null || lineas.isEmpty()) {
+                System.out.println("✗ Error: La cuenta no tiene ninguna línea.");
+                return -1;
+            }
+            for (LineaCuenta linea : lineas) {
+                if (linea.cantidad() <= 0) {
+                    System.out.println("✗ Error: Cantidad no válida (" + linea.cantidad()
+                            + ") para el producto " + linea.idProducto());
+                    return -1;
+                }
+            }
+
+            Transaction transaction = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                session.setJdbcBatchSize(TAMANO_LOTE);
+                transaction = session.beginTransaction();
+
+                Mesa mesa = session.get(Mesa.class, idMesa);
+                if (mesa == null) {
+                    System.out.println("✗ Error: No existe una mesa con ID " + idMesa);
+                    transaction.rollback();
+                    return -1;
+                }
+
+                // Todos los productos de la cuenta en una sola consulta
+                Set<Integer> idsProductos = new HashSet<>();
+                lineas.forEach(linea -> idsProductos.add(linea.idProducto()));
+                Map<Integer, Producto> productos = new HashMap<>();
+                session.createQuery("FROM Producto p WHERE p.idProducto IN :ids", Producto.class)
+                        .setParameter("ids", idsProductos)
+                        .list()
+                        .forEach(producto -> productos.put(producto.getIdProducto(), producto));
+
+                for (Integer idProducto : idsProductos) {
+                    if (!productos.containsKey(idProducto)) {
+                        System.out.println("✗ Error: No existe un producto con ID " + idProducto);
+                        transaction.rollback();
+                        return -1;
+                    }
+                }
+
+                // agregarPedido va sumando el total y el número de líneas de la factura nueva
+                Factura factura = new Factura(mesa, tipoPago, 0);
+                for (LineaCuenta linea : lineas) {
+                    Producto producto = productos.get(linea.idProducto());
+                    factura.agregarPedido(new Pedido(factura, producto, linea.cantidad(), producto.getPrecio()));
+                }
+                double importe = factura.getTotal();
+                factura.setImporte(importe);
+                session.persist(factura);
+
+                // La mesa queda libre
+                mesa.setReserva(0);
+
+                transaction.commit();
+                System.out.println("✓ Mesa " + idMesa + " cerrada: factura " + factura.getIdFactura()
+                        + " con " + lineas.size() + " pedidos, importe " + importe);
+                return factura.getIdFactura();
+
+            } catch (Exception e) {
+                if (transaction != null && transaction.isActive()) transaction.rollback();
+                System.out.println("✗ Error al cerrar la mesa: " + e.getMessage());
+                return -1;
+            }
+        });
+    }
+
     // ==================== LISTAR ====================
     
     /**
      * Lista registros de una tabla con opción de filtrado.
+     * Las consultas proyectan directamente en las vistas (MesaView, ProductoView...),
+     * así que no se crean entidades, proxies ni copias para el dirty checking.
+     * Se usa una Session normal de solo lectura, y no una StatelessSession,
+     * para que el listado de productos siga usando la caché de consultas.
      * 
      * @param tabla Nombre de la tabla (Mesa, Producto, Factura, Pedido)
      * @param campo Campo por el que filtrar (null para listar todo)
@@ -178,110 +547,277 @@ public class RestauranteCRUDHibernate {
      * @return String con los registros encontrados
      */
     public static String listar(String tabla, String campo, String valor) {
-        StringBuilder resultado = new StringBuilder();
+        return MetricasRestaurante.medir("listar", () -> {
+            StringBuilder resultado = new StringBuilder();
         
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
             
-            switch (tabla.toLowerCase()) {
-                case "mesa":
-                    if (campo != null && valor != null) {
-                        String hql = "FROM Mesa WHERE " + campo + " = :valor";
-                        Query<Mesa> queryMesa = session.createQuery(hql, Mesa.class);
-                        queryMesa.setParameter("valor", Integer.parseInt(valor));
-                        List<Mesa> mesas = queryMesa.list();
-                        if (mesas.isEmpty()) {
-                            resultado.append("No se encontraron mesas con ese filtro.");
+                switch (tabla.toLowerCase()) {
+                    case "mesa":
+                        if (campo != null && valor != null) {
+                            CampoFiltro filtro = CampoFiltro.de(Mesa.class, campo);
+                            Query<MesaView> queryMesa = session.createNamedQuery(filtro.consulta(false), MesaView.class);
+                            queryMesa.setParameter("valor", filtro.valor(valor));
+                            List<MesaView> mesas = queryMesa.list();
+                            if (mesas.isEmpty()) {
+                                resultado.append("No se encontraron mesas con ese filtro.");
+                            } else {
+                                mesas.forEach(m -> resultado.append(m).append("\n"));
+                            }
                         } else {
-                            mesas.forEach(m -> resultado.append(m).append("\n"));
+                            List<MesaView> mesas = session.createQuery(MesaView.CONSULTA, MesaView.class).list();
+                            if (mesas.isEmpty()) {
+                                resultado.append("No hay mesas registradas.");
+                            } else {
+                                mesas.forEach(m -> resultado.append(m).append("\n"));
+                            }
                         }
-                    } else {
-                        List<Mesa> mesas = session.createQuery("FROM Mesa", Mesa.class).list();
-                        if (mesas.isEmpty()) {
-                            resultado.append("No hay mesas registradas.");
-                        } else {
-                            mesas.forEach(m -> resultado.append(m).append("\n"));
-                        }
-                    }
-                    break;
+                        break;
                     
-                case "producto":
-                    if (campo != null && valor != null) {
-                        String hql = "FROM Producto WHERE " + campo + " LIKE :valor";
-                        Query<Producto> queryProd = session.createQuery(hql, Producto.class);
-                        queryProd.setParameter("valor", "%" + valor + "%");
-                        List<Producto> productos = queryProd.list();
-                        if (productos.isEmpty()) {
-                            resultado.append("No se encontraron productos con ese filtro.");
+                    case "producto":
+                        if (campo != null && valor != null) {
+                            CampoFiltro filtro = CampoFiltro.de(Producto.class, campo);
+                            Query<ProductoView> queryProd = session.createNamedQuery(filtro.consulta(false), ProductoView.class);
+                            queryProd.setParameter("valor", filtro.valor(valor));
+                            queryProd.setCacheable(true).setCacheRegion(REGION_CONSULTAS_PRODUCTOS);
+                            List<ProductoView> productos = queryProd.list();
+                            if (productos.isEmpty()) {
+                                resultado.append("No se encontraron productos con ese filtro.");
+                            } else {
+                                productos.forEach(p -> resultado.append(p).append("\n"));
+                            }
                         } else {
-                            productos.forEach(p -> resultado.append(p).append("\n"));
+                            List<ProductoView> productos = session.createQuery(ProductoView.CONSULTA, ProductoView.class)
+                                    .setCacheable(true)
+                                    .setCacheRegion(REGION_CONSULTAS_PRODUCTOS)
+                                    .list();
+                            if (productos.isEmpty()) {
+                                resultado.append("No hay productos registrados.");
+                            } else {
+                                productos.forEach(p -> resultado.append(p).append("\n"));
+                            }
                         }
-                    } else {
-                        List<Producto> productos = session.createQuery("FROM Producto", Producto.class).list();
-                        if (productos.isEmpty()) {
-                            resultado.append("No hay productos registrados.");
-                        } else {
-                            productos.forEach(p -> resultado.append(p).append("\n"));
-                        }
-                    }
-                    break;
+                        break;
                     
-                case "factura":
-                    if (campo != null && valor != null) {
-                        String hql = "FROM Factura WHERE " + campo + " = :valor";
-                        Query<Factura> queryFact = session.createQuery(hql, Factura.class);
-                        queryFact.setParameter("valor", valor);
-                        List<Factura> facturas = queryFact.list();
-                        if (facturas.isEmpty()) {
-                            resultado.append("No se encontraron facturas con ese filtro.");
+                    case "factura":
+                        if (campo != null && valor != null) {
+                            CampoFiltro filtro = CampoFiltro.de(Factura.class, campo);
+                            Query<FacturaView> queryFact = session.createNamedQuery(filtro.consulta(false), FacturaView.class);
+                            queryFact.setParameter("valor", filtro.valor(valor));
+                            List<FacturaView> facturas = queryFact.list();
+                            if (facturas.isEmpty()) {
+                                resultado.append("No se encontraron facturas con ese filtro.");
+                            } else {
+                                facturas.forEach(f -> resultado.append(f).append("\n"));
+                            }
                         } else {
-                            facturas.forEach(f -> resultado.append(f).append("\n"));
+                            List<FacturaView> facturas = session.createQuery(FacturaView.CONSULTA, FacturaView.class).list();
+                            if (facturas.isEmpty()) {
+                                resultado.append("No hay facturas registradas.");
+                            } else {
+                                facturas.forEach(f -> resultado.append(f).append("\n"));
+                            }
                         }
-                    } else {
-                        List<Factura> facturas = session.createQuery("FROM Factura", Factura.class).list();
-                        if (facturas.isEmpty()) {
-                            resultado.append("No hay facturas registradas.");
-                        } else {
-                            facturas.forEach(f -> resultado.append(f).append("\n"));
-                        }
-                    }
-                    break;
+                        break;
                     
-                case "pedido":
-                    if (campo != null && valor != null) {
-                        String hql = "FROM Pedido WHERE " + campo + " = :valor";
-                        Query<Pedido> queryPed = session.createQuery(hql, Pedido.class);
-                        queryPed.setParameter("valor", Integer.parseInt(valor));
-                        List<Pedido> pedidos = queryPed.list();
-                        if (pedidos.isEmpty()) {
-                            resultado.append("No se encontraron pedidos con ese filtro.");
-                        } else {
-                            pedidos.forEach(p -> resultado.append(p).append("\n"));
-                        }
-                    } else {
-                        List<Pedido> pedidos = session.createQuery("FROM Pedido", Pedido.class).list();
-                        if (pedidos.isEmpty()) {
-                            resultado.append("No hay pedidos registrados.");
+                    case "pedido":
+                        if (campo != null && valor != null) {
+                            CampoFiltro filtro = CampoFiltro.de(Pedido.class, campo);
+                            Query<PedidoView> queryPed = session.createNamedQuery(filtro.consulta(false), PedidoView.class);
+                            queryPed.setParameter("valor", filtro.valor(valor));
+                            List<PedidoView> pedidos = queryPed.list();
+                            if (pedidos.isEmpty()) {
+                                resultado.append("No se encontraron pedidos con ese filtro.");
+                            } else {
+                                pedidos.forEach(p -> resultado.append(p).append("\n"));
+                            }
                         } else {
-                            pedidos.forEach(p -> resultado.append(p).append("\n"));
+                            List<PedidoView> pedidos = session.createQuery(PedidoView.CONSULTA, PedidoView.class).list();
+                            if (pedidos.isEmpty()) {
+                                resultado.append("No hay pedidos registrados.");
+                            } else {
+                                pedidos.forEach(p -> resultado.append(p).append("\n"));
+                            }
                         }
-                    }
-                    break;
+                        break;
                     
-                default:
-                    return "✗ Tabla no válida. Opciones: Mesa, Producto, Factura, Pedido";
+                    default:
+                        return "✗ Tabla no válida. Opciones: Mesa, Producto, Factura, Pedido";
+                }
+            
+                return resultado.toString();
+            
+            } catch (Exception e) {
+                return "✗ Error al listar: " + e.getMessage();
             }
+        });
+    }
+    
+    /**
+     * Recorre los registros de una tabla sin cargarlos todos en memoria.
+     * Usa una StatelessSession (sin contexto de persistencia ni dirty checking) y un
+     * Stream sobre un cursor con TAMANO_FETCH filas por viaje; cada registro se entrega
+     * a la acción como vista en cuanto llega y después puede ser recolectado.
+     * 
+     * @param tabla Nombre de la tabla (Mesa, Producto, Factura, Pedido)
+     * @param campo Campo por el que filtrar (null para recorrer todo)
+     * @param valor Valor del filtro (null para recorrer todo)
+     * @param accion Acción a ejecutar con cada registro, en orden de ID
+     * @return número de registros recorridos, o -1 si hubo error
+     */
+    public static long recorrer(String tabla, String campo, String valor, Consumer<? super Vista> accion) {
+        return MetricasRestaurante.medir("recorrer", () -> {
+            try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+                SelectionQuery<? extends Vista> query = crearConsultaPorId(session, tabla, campo, valor, null);
+                if (query == null) {
+                    System.out.println("✗ Tabla no válida. Opciones: Mesa, Producto, Factura, Pedido");
+                    return -1L;
+                }
             
-            return resultado.toString();
+                long total = 0;
+                try (Stream<? extends Vista> filas = query.setFetchSize(TAMANO_FETCH).stream()) {
+                    Iterator<? extends Vista> iterador = filas.iterator();
+                    while (iterador.hasNext()) {
+                        accion.accept(iterador.next());
+                        total++;
+                    }
+                }
+                return total;
             
-        } catch (Exception e) {
-            return "✗ Error al listar: " + e.getMessage();
+            } catch (Exception e) {
+                System.out.println("✗ Error al listar: " + e.getMessage());
+                return -1L;
+            }
+        });
+    }
+    
+    /**
+     * Obtiene una página de registros usando paginación por clave (keyset):
+     * WHERE id > :ultimoId ORDER BY id LIMIT tamanoPagina.
+     * A diferencia de OFFSET, el coste de cada página no depende de su posición.
+     * 
+     * @param tabla Nombre de la tabla (Mesa, Producto, Factura, Pedido)
+     * @param campo Campo por el que filtrar (null para listar todo)
+     * @param valor Valor del filtro (null para listar todo)
+     * @param ultimoId ID del último registro de la página anterior (0 para la primera)
+     * @param tamanoPagina número máximo de registros de la página
+     * @return página con las vistas de los registros; vacía si la tabla no es válida o hubo error
+     */
+    public static Pagina<Vista> listarPagina(String tabla, String campo, String valor, int ultimoId, int tamanoPagina) {
+        return MetricasRestaurante.medir("listarPagina", () -> {
+            try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+                SelectionQuery<? extends Vista> query = crearConsultaPorId(session, tabla, campo, valor, ultimoId);
+                if (query == null) {
+                    System.out.println("✗ Tabla no válida. Opciones: Mesa, Producto, Factura, Pedido");
+                    return new Pagina<>(List.of(), ultimoId, false);
+                }
+            
+                // Pedimos una fila de más para saber si hay otra página sin hacer COUNT
+                List<Vista> filas = new ArrayList<>(query.setMaxResults(tamanoPagina + 1).list());
+                boolean hayMas = filas.size() > tamanoPagina;
+                if (hayMas) {
+                    filas.remove(tamanoPagina);
+                }
+            
+                int nuevoUltimoId = filas.isEmpty() ? ultimoId : filas.get(filas.size() - 1).id();
+                return new Pagina<>(filas, nuevoUltimoId, hayMas);
+            
+            } catch (Exception e) {
+                System.out.println("✗ Error al listar: " + e.getMessage());
+                return new Pagina<>(List.of(), ultimoId, false);
+            }
+        });
+    }
+    
+    /**
+     * Crea la consulta ordenada por ID que usan recorrer y listarPagina.
+     * Devuelve vistas en lugar de entidades; con filtro se usa la consulta con nombre
+     * de CampoFiltro, igual que en listar.
+     * 
+     * @param session Sesión sin estado abierta
+     * @param tabla Nombre de la tabla
+     * @param campo Campo por el que filtrar (null para no filtrar)
+     * @param valor Valor del filtro (null para no filtrar)
+     * @param ultimoId si no es null, solo se devuelven registros con ID mayor
+     * @return consulta preparada, o null si la tabla no es válida
+     * @throws IllegalArgumentException si el campo no es válido para la tabla
+     */
+    private static SelectionQuery<? extends Vista> crearConsultaPorId(StatelessSession session, String tabla,
+            String campo, String valor, Integer ultimoId) {
+        Class<?> clase;
+        String id;
+        
+        switch (tabla.toLowerCase()) {
+            case "mesa" -> {
+                clase = Mesa.class;
+                id = "idMesa";
+            }
+            case "producto" -> {
+                clase = Producto.class;
+                id = "idProducto";
+            }
+            case "factura" -> {
+                clase = Factura.class;
+                id = "idFactura";
+            }
+            case "pedido" -> {
+                clase = Pedido.class;
+                id = "idPedido";
+            }
+            default -> {
+                return null;
+            }
         }
+        
+        Class<? extends Vista> vista = CampoFiltro.vista(clase);
+        SelectionQuery<? extends Vista> query;
+        if (campo != null && valor != null) {
+            CampoFiltro filtro = CampoFiltro.de(clase, campo);
+            query = session.createNamedSelectionQuery(filtro.consulta(ultimoId != null), vista)
+                    .setParameter("valor", filtro.valor(valor));
+        } else {
+            String hql = CampoFiltro.proyeccion(clase)
+                    + (ultimoId != null ? " WHERE e." + id + " > :ultimoId" : "")
+                    + " ORDER BY e." + id;
+            query = session.createSelectionQuery(hql, vista);
+        }
+        if (ultimoId != null) query.setParameter("ultimoId", ultimoId);
+        return query;
+    }
+    
+    /**
+     * Obtiene una factura con su mesa, sus pedidos y el producto de cada pedido ya cargados.
+     * Usa el grafo Factura.completa, que Hibernate resuelve con una única SELECT con JOINs,
+     * de modo que recorrer después los pedidos y productos no lanza más consultas (sin N+1).
+     * 
+     * @param idFactura ID de la factura
+     * @return la factura completa, o null si no existe o hubo error
+     */
+    public static Factura obtenerFacturaCompleta(int idFactura) {
+        return MetricasRestaurante.medir("obtenerFacturaCompleta", () -> {
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                Factura factura = session.find(Factura.class, idFactura,
+                        Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, session.getEntityGraph(Factura.GRAFO_COMPLETA)));
+                if (factura == null) {
+                    System.out.println("✗ No existe una factura con ID " + idFactura);
+                }
+                return factura;
+            
+            } catch (Exception e) {
+                System.out.println("✗ Error al obtener la factura: " + e.getMessage());
+                return null;
+            }
+        });
     }
     
     // ==================== MODIFICAR ====================
     
     /**
      * Modifica una mesa existente.
+     * Si otro terminal modifica la mesa a la vez, el commit falla por bloqueo optimista
+     * (@Version); con EjecutorReintentos.ejecutar se repite automáticamente.
      * 
      * @param session Sesión de Hibernate activa con transacción iniciada
      * @param idMesa ID de la mesa a modificar
@@ -290,24 +826,26 @@ public class RestauranteCRUDHibernate {
      * @return true si se modificó correctamente
      */
     public static boolean modificarMesa(Session session, int idMesa, Integer numComensales, Integer reserva) {
-        try {
-            Mesa mesa = session.get(Mesa.class, idMesa);
-            if (mesa == null) {
-                System.out.println("✗ No existe una mesa con ID " + idMesa);
-                return false;
-            }
+        return MetricasRestaurante.medir("modificarMesa", () -> {
+            try {
+                Mesa mesa = session.get(Mesa.class, idMesa);
+                if (mesa == null) {
+                    System.out.println("✗ No existe una mesa con ID " + idMesa);
+                    return false;
+                }
             
-            if (numComensales != null) mesa.setNumComensales(numComensales);
-            if (reserva != null) mesa.setReserva(reserva);
+                if (numComensales != null) mesa.setNumComensales(numComensales);
+                if (reserva != null) mesa.setReserva(reserva);
             
-            session.merge(mesa);
-            System.out.println("✓ Mesa modificada correctamente");
-            return true;
+                session.merge(mesa);
+                System.out.println("✓ Mesa modificada correctamente");
+                return true;
             
-        } catch (Exception e) {
-            System.out.println("✗ Error al modificar mesa: " + e.getMessage());
-            return false;
-        }
+            } catch (Exception e) {
+                System.out.println("✗ Error al modificar mesa: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
     /**
@@ -320,28 +858,33 @@ public class RestauranteCRUDHibernate {
      * @return true si se modificó correctamente
      */
     public static boolean modificarProducto(Session session, int idProducto, String nombre, Double precio) {
-        try {
-            Producto producto = session.get(Producto.class, idProducto);
-            if (producto == null) {
-                System.out.println("✗ No existe un producto con ID " + idProducto);
-                return false;
-            }
+        return MetricasRestaurante.medir("modificarProducto", () -> {
+            try {
+                Producto producto = session.get(Producto.class, idProducto);
+                if (producto == null) {
+                    System.out.println("✗ No existe un producto con ID " + idProducto);
+                    return false;
+                }
             
-            if (nombre != null) producto.setNombre(nombre);
-            if (precio != null) producto.setPrecio(precio);
+                if (nombre != null) producto.setNombre(nombre);
+                if (precio != null) producto.setPrecio(precio);
             
-            session.merge(producto);
-            System.out.println("✓ Producto modificado correctamente");
-            return true;
+                session.merge(producto);
+                invalidarConsultasProductos(session);
+                System.out.println("✓ Producto modificado correctamente");
+                return true;
             
-        } catch (Exception e) {
-            System.out.println("✗ Error al modificar producto: " + e.getMessage());
-            return false;
-        }
+            } catch (Exception e) {
+                System.out.println("✗ Error al modificar producto: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
     /**
      * Modifica una factura existente.
+     * Si otro terminal modifica la factura a la vez, el commit falla por bloqueo optimista
+     * (@Version); con EjecutorReintentos.ejecutar se repite automáticamente.
      * 
      * @param session Sesión de Hibernate activa con transacción iniciada
      * @param idFactura ID de la factura a modificar
@@ -350,28 +893,32 @@ public class RestauranteCRUDHibernate {
      * @return true si se modificó correctamente
      */
     public static boolean modificarFactura(Session session, int idFactura, String tipoPago, Double importe) {
-        try {
-            Factura factura = session.get(Factura.class, idFactura);
-            if (factura == null) {
-                System.out.println("✗ No existe una factura con ID " + idFactura);
-                return false;
-            }
+        return MetricasRestaurante.medir("modificarFactura", () -> {
+            try {
+                Factura factura = session.get(Factura.class, idFactura);
+                if (factura == null) {
+                    System.out.println("✗ No existe una factura con ID " + idFactura);
+                    return false;
+                }
             
-            if (tipoPago != null) factura.setTipoPago(tipoPago);
-            if (importe != null) factura.setImporte(importe);
+                if (tipoPago != null) factura.setTipoPago(tipoPago);
+                if (importe != null) factura.setImporte(importe);
             
-            session.merge(factura);
-            System.out.println("✓ Factura modificada correctamente");
-            return true;
+                session.merge(factura);
+                System.out.println("✓ Factura modificada correctamente");
+                return true;
             
-        } catch (Exception e) {
-            System.out.println("✗ Error al modificar factura: " + e.getMessage());
-            return false;
-        }
+            } catch (Exception e) {
+                System.out.println("✗ Error al modificar factura: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
     /**
      * Modifica un pedido existente.
+     * Si cambia la cantidad, la diferencia de importe (con el precio guardado en el pedido,
+     * no el actual del producto) se suma al total de su factura.
      * 
      * @param session Sesión de Hibernate activa con transacción iniciada
      * @param idPedido ID del pedido a modificar
@@ -379,23 +926,29 @@ public class RestauranteCRUDHibernate {
      * @return true si se modificó correctamente
      */
     public static boolean modificarPedido(Session session, int idPedido, Integer cantidad) {
-        try {
-            Pedido pedido = session.get(Pedido.class, idPedido);
-            if (pedido == null) {
-                System.out.println("✗ No existe un pedido con ID " + idPedido);
-                return false;
-            }
+        return MetricasRestaurante.medir("modificarPedido", () -> {
+            try {
+                Pedido pedido = session.get(Pedido.class, idPedido);
+                if (pedido == null) {
+                    System.out.println("✗ No existe un pedido con ID " + idPedido);
+                    return false;
+                }
             
-            if (cantidad != null) pedido.setCantidad(cantidad);
+                if (cantidad != null && cantidad != pedido.getCantidad()) {
+                    double diferencia = (cantidad - pedido.getCantidad()) * pedido.getPrecioUnitario();
+                    pedido.setCantidad(cantidad);
+                    sumarTotalFactura(session, pedido.getFactura().getIdFactura(), diferencia, 0);
+                }
             
-            session.merge(pedido);
-            System.out.println("✓ Pedido modificado correctamente");
-            return true;
+                session.merge(pedido);
+                System.out.println("✓ Pedido modificado correctamente");
+                return true;
             
-        } catch (Exception e) {
-            System.out.println("✗ Error al modificar pedido: " + e.getMessage());
-            return false;
-        }
+            } catch (Exception e) {
+                System.out.println("✗ Error al modificar pedido: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
     // ==================== BORRAR ====================
@@ -408,44 +961,59 @@ public class RestauranteCRUDHibernate {
      * @return true si se borró correctamente
      */
     public static boolean borrarMesa(Session session, int idMesa) {
-        try {
-            Mesa mesa = session.get(Mesa.class, idMesa);
-            if (mesa == null) {
-                System.out.println("✗ No existe una mesa con ID " + idMesa);
+        return MetricasRestaurante.medir("borrarMesa", () -> {
+            try {
+                Mesa mesa = session.get(Mesa.class, idMesa);
+                if (mesa == null) {
+                    System.out.println("✗ No existe una mesa con ID " + idMesa);
+                    return false;
+                }
+                session.remove(mesa);
+                System.out.println("✓ Mesa borrada correctamente");
+                return true;
+            } catch (Exception e) {
+                System.out.println("✗ Error al borrar mesa: " + e.getMessage());
+                System.out.println("  Puede que tenga facturas asociadas. Elimínelas primero.");
                 return false;
             }
-            session.remove(mesa);
-            System.out.println("✓ Mesa borrada correctamente");
-            return true;
-        } catch (Exception e) {
-            System.out.println("✗ Error al borrar mesa: " + e.getMessage());
-            System.out.println("  Puede que tenga facturas asociadas. Elimínelas primero.");
-            return false;
-        }
+        });
     }
     
     /**
-     * Borra un producto por ID.
+     * Borra un producto por ID. Sus pedidos se borran con él (cascade de Producto.pedidos),
+     * así que antes se resta su importe y su número de líneas del total de cada factura,
+     * en la misma transacción.
      * 
      * @param session Sesión de Hibernate activa con transacción iniciada
      * @param idProducto ID del producto a borrar
      * @return true si se borró correctamente
      */
     public static boolean borrarProducto(Session session, int idProducto) {
-        try {
-            Producto producto = session.get(Producto.class, idProducto);
-            if (producto == null) {
-                System.out.println("✗ No existe un producto con ID " + idProducto);
+        return MetricasRestaurante.medir("borrarProducto", () -> {
+            try {
+                Producto producto = session.get(Producto.class, idProducto);
+                if (producto == null) {
+                    System.out.println("✗ No existe un producto con ID " + idProducto);
+                    return false;
+                }
+                // Una fila por factura con el importe y las líneas de este producto
+                session.createQuery("SELECT p.factura.idFactura, SUM(p.cantidad * COALESCE(p.precio, pr.precio)), COUNT(p)"
+                        + " FROM Pedido p JOIN p.producto pr WHERE pr.idProducto = :idProducto"
+                        + " GROUP BY p.factura.idFactura", Object[].class)
+                        .setParameter("idProducto", idProducto)
+                        .list()
+                        .forEach(fila -> sumarTotalFactura(session, (Integer) fila[0],
+                                -((Number) fila[1]).doubleValue(), -((Number) fila[2]).intValue()));
+                session.remove(producto);
+                invalidarConsultasProductos(session);
+                System.out.println("✓ Producto borrado correctamente");
+                return true;
+            } catch (Exception e) {
+                System.out.println("✗ Error al borrar producto: " + e.getMessage());
+                System.out.println("  Puede que tenga pedidos asociados. Elimínelos primero.");
                 return false;
             }
-            session.remove(producto);
-            System.out.println("✓ Producto borrado correctamente");
-            return true;
-        } catch (Exception e) {
-            System.out.println("✗ Error al borrar producto: " + e.getMessage());
-            System.out.println("  Puede que tenga pedidos asociados. Elimínelos primero.");
-            return false;
-        }
+        });
     }
     
     /**
@@ -456,43 +1024,49 @@ public class RestauranteCRUDHibernate {
      * @return true si se borró correctamente
      */
     public static boolean borrarFactura(Session session, int idFactura) {
-        try {
-            Factura factura = session.get(Factura.class, idFactura);
-            if (factura == null) {
-                System.out.println("✗ No existe una factura con ID " + idFactura);
+        return MetricasRestaurante.medir("borrarFactura", () -> {
+            try {
+                Factura factura = session.get(Factura.class, idFactura);
+                if (factura == null) {
+                    System.out.println("✗ No existe una factura con ID " + idFactura);
+                    return false;
+                }
+                session.remove(factura);
+                System.out.println("✓ Factura borrada correctamente");
+                return true;
+            } catch (Exception e) {
+                System.out.println("✗ Error al borrar factura: " + e.getMessage());
+                System.out.println("  Puede que tenga pedidos asociados. Elimínelos primero.");
                 return false;
             }
-            session.remove(factura);
-            System.out.println("✓ Factura borrada correctamente");
-            return true;
-        } catch (Exception e) {
-            System.out.println("✗ Error al borrar factura: " + e.getMessage());
-            System.out.println("  Puede que tenga pedidos asociados. Elimínelos primero.");
-            return false;
-        }
+        });
     }
     
     /**
-     * Borra un pedido por ID.
+     * Borra un pedido por ID y resta su importe (con el precio guardado en el pedido) del total de su factura.
      * 
      * @param session Sesión de Hibernate activa con transacción iniciada
      * @param idPedido ID del pedido a borrar
      * @return true si se borró correctamente
      */
     public static boolean borrarPedido(Session session, int idPedido) {
-        try {
-            Pedido pedido = session.get(Pedido.class, idPedido);
-            if (pedido == null) {
-                System.out.println("✗ No existe un pedido con ID " + idPedido);
+        return MetricasRestaurante.medir("borrarPedido", () -> {
+            try {
+                Pedido pedido = session.get(Pedido.class, idPedido);
+                if (pedido == null) {
+                    System.out.println("✗ No existe un pedido con ID " + idPedido);
+                    return false;
+                }
+                sumarTotalFactura(session, pedido.getFactura().getIdFactura(),
+                        -pedido.getCantidad() * pedido.getPrecioUnitario(), -1);
+                session.remove(pedido);
+                System.out.println("✓ Pedido borrado correctamente");
+                return true;
+            } catch (Exception e) {
+                System.out.println("✗ Error al borrar pedido: " + e.getMessage());
                 return false;
             }
-            session.remove(pedido);
-            System.out.println("✓ Pedido borrado correctamente");
-            return true;
-        } catch (Exception e) {
-            System.out.println("✗ Error al borrar pedido: " + e.getMessage());
-            return false;
-        }
+        });
     }
     
     /**
@@ -502,16 +1076,18 @@ public class RestauranteCRUDHibernate {
      * @return true si se borraron correctamente
      */
     public static boolean borrarTodasMesas(Session session) {
-        try {
-            Query query = session.createQuery("DELETE FROM Mesa");
-            int deletedCount = query.executeUpdate();
-            System.out.println("✓ Se borraron " + deletedCount + " mesas");
-            return true;
-        } catch (Exception e) {
-            System.out.println("✗ Error al borrar todas las mesas: " + e.getMessage());
-            System.out.println("  Puede que tengan facturas asociadas. Elimínelas primero.");
-            return false;
-        }
+        return MetricasRestaurante.medir("borrarTodasMesas", () -> {
+            try {
+                Query query = session.createQuery("DELETE FROM Mesa");
+                int deletedCount = query.executeUpdate();
+                System.out.println("✓ Se borraron " + deletedCount + " mesas");
+                return true;
+            } catch (Exception e) {
+                System.out.println("✗ Error al borrar todas las mesas: " + e.getMessage());
+                System.out.println("  Puede que tengan facturas asociadas. Elimínelas primero.");
+                return false;
+            }
+        });
     }
     
     /**
@@ -521,16 +1097,19 @@ public class RestauranteCRUDHibernate {
      * @return true si se borraron correctamente
      */
     public static boolean borrarTodosProductos(Session session) {
-        try {
-            Query query = session.createQuery("DELETE FROM Producto");
-            int deletedCount = query.executeUpdate();
-            System.out.println("✓ Se borraron " + deletedCount + " productos");
-            return true;
-        } catch (Exception e) {
-            System.out.println("✗ Error al borrar todos los productos: " + e.getMessage());
-            System.out.println("  Puede que tengan pedidos asociados. Elimínelos primero.");
-            return false;
-        }
+        return MetricasRestaurante.medir("borrarTodosProductos", () -> {
+            try {
+                Query query = session.createQuery("DELETE FROM Producto");
+                int deletedCount = query.executeUpdate();
+                invalidarConsultasProductos(session);
+                System.out.println("✓ Se borraron " + deletedCount + " productos");
+                return true;
+            } catch (Exception e) {
+                System.out.println("✗ Error al borrar todos los productos: " + e.getMessage());
+                System.out.println("  Puede que tengan pedidos asociados. Elimínelos primero.");
+                return false;
+            }
+        });
     }
     
     /**
@@ -540,118 +1119,431 @@ public class RestauranteCRUDHibernate {
      * @return true si se borraron correctamente
      */
     public static boolean borrarTodasFacturas(Session session) {
-        try {
-            Query query = session.createQuery("DELETE FROM Factura");
-            int deletedCount = query.executeUpdate();
-            System.out.println("✓ Se borraron " + deletedCount + " facturas");
-            return true;
-        } catch (Exception e) {
-            System.out.println("✗ Error al borrar todas las facturas: " + e.getMessage());
-            System.out.println("  Puede que tengan pedidos asociados. Elimínelos primero.");
-            return false;
-        }
+        return MetricasRestaurante.medir("borrarTodasFacturas", () -> {
+            try {
+                Query query = session.createQuery("DELETE FROM Factura");
+                int deletedCount = query.executeUpdate();
+                System.out.println("✓ Se borraron " + deletedCount + " facturas");
+                return true;
+            } catch (Exception e) {
+                System.out.println("✗ Error al borrar todas las facturas: " + e.getMessage());
+                System.out.println("  Puede que tengan pedidos asociados. Elimínelos primero.");
+                return false;
+            }
+        });
     }
     
     /**
-     * Borra todos los pedidos.
+     * Borra todos los pedidos y deja a cero el total y el número de líneas de las facturas.
      * 
      * @param session Sesión de Hibernate activa con transacción iniciada
      * @return true si se borraron correctamente
      */
     public static boolean borrarTodosPedidos(Session session) {
-        try {
-            Query query = session.createQuery("DELETE FROM Pedido");
-            int deletedCount = query.executeUpdate();
-            System.out.println("✓ Se borraron " + deletedCount + " pedidos");
-            return true;
-        } catch (Exception e) {
-            System.out.println("✗ Error al borrar todos los pedidos: " + e.getMessage());
-            return false;
-        }
+        return MetricasRestaurante.medir("borrarTodosPedidos", () -> {
+            try {
+                Query query = session.createQuery("DELETE FROM Pedido");
+                int deletedCount = query.executeUpdate();
+                session.createMutationQuery("UPDATE Factura f SET f.total = 0, f.numLineas = 0").executeUpdate();
+                System.out.println("✓ Se borraron " + deletedCount + " pedidos");
+                return true;
+            } catch (Exception e) {
+                System.out.println("✗ Error al borrar todos los pedidos: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
-    // ==================== ELIMINAR TABLAS (DROP) ====================
+    /**
+     * Vacía la región de la caché de consultas de productos.
+     * Hibernate ya descarta los resultados cacheados cuando cambia la tabla Productos,
+     * pero así no queda ningún listado antiguo ocupando la región.
+     * 
+     * @param session Sesión de Hibernate activa
+     */
+    private static void invalidarConsultasProductos(Session session) {
+        session.getSessionFactory().getCache().evictQueryRegion(REGION_CONSULTAS_PRODUCTOS);
+    }
+    
+    // ==================== OPERACIONES MASIVAS ====================
+    
+    /*
+     * Estas operaciones se ejecutan con una única sentencia UPDATE/DELETE en la base de datos,
+     * sin cargar las entidades. Las entidades que ya estén cargadas en la sesión no se actualizan,
+     * así que conviene usarlas en una sesión nueva. Hibernate marca como obsoletas las consultas
+     * cacheadas de la tabla afectada; además se vacían explícitamente las regiones de caché
+     * de la entidad para que no quede ningún dato antiguo.
+     * En Mesa y Factura también se incrementa la versión, para que una modificación
+     * que leyó la fila antes de la operación masiva falle por bloqueo optimista.
+     */
     
     /**
-     * Elimina una tabla específica (DROP TABLE).
-     * NOTA: Esto usa SQL nativo y debe hacerse con cuidado.
+     * Multiplica el precio de los productos que cumplen el filtro
+     * (por ejemplo 1.05 para subir un 5%).
      * 
      * @param session Sesión de Hibernate activa con transacción iniciada
-     * @param tabla Nombre de la tabla a eliminar
-     * @return true si se eliminó correctamente
+     * @param factor Factor por el que se multiplica el precio
+     * @param nombreContiene Texto que debe contener el nombre (null para no filtrar)
+     * @param precioMinimo Precio mínimo incluido (null para no filtrar)
+     * @param precioMaximo Precio máximo incluido (null para no filtrar)
+     * @return Número de productos modificados, o -1 si hubo error
      */
-    public static boolean eliminarTabla(Session session, String tabla) {
-        try {
-            // Desactivar temporalmente las comprobaciones de claves foráneas
-            session.createNativeQuery("SET FOREIGN_KEY_CHECKS = 0", Object.class).executeUpdate();
+    public static int actualizarPrecios(Session session, double factor, String nombreContiene,
+            Double precioMinimo, Double precioMaximo) {
+        return MetricasRestaurante.medir("actualizarPrecios", () -> {
+            try {
+                HibernateCriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaUpdate<Producto> update = cb.createCriteriaUpdate(Producto.class);
+                Root<Producto> producto = update.from(Producto.class);
+                Path<Double> precio = producto.get("precio");
             
-            String sql = "DROP TABLE IF EXISTS " + tabla;
-            session.createNativeQuery(sql, Object.class).executeUpdate();
+                List<Predicate> condiciones = new ArrayList<>();
+                if (nombreContiene != null) {
+                    condiciones.add(cb.like(producto.get("nombre"),
+                            "%" + CampoFiltro.escaparLike(nombreContiene) + "%", CampoFiltro.ESCAPE_LIKE));
+                }
+                if (precioMinimo != null) condiciones.add(cb.ge(precio, precioMinimo));
+                if (precioMaximo != null) condiciones.add(cb.le(precio, precioMaximo));
             
-            // Reactivar las comprobaciones de claves foráneas
-            session.createNativeQuery("SET FOREIGN_KEY_CHECKS = 1", Object.class).executeUpdate();
+                update.set(precio, cb.prod(precio, cb.literal(factor))).where(condiciones.toArray(new Predicate[0]));
+                int modificados = session.createMutationQuery(update).executeUpdate();
             
-            System.out.println("✓ Tabla " + tabla + " eliminada correctamente");
-            return true;
+                session.getSessionFactory().getCache().evictEntityData(Producto.class);
+                invalidarConsultasProductos(session);
+                System.out.println("✓ Se actualizó el precio de " + modificados + " productos");
+                return modificados;
             
-        } catch (Exception e) {
-            System.out.println("✗ Error al eliminar tabla " + tabla + ": " + e.getMessage());
-            System.out.println("  Verifica que el nombre de la tabla sea correcto");
-            System.out.println("  Tablas disponibles: Mesa, Productos, Factura, Pedido");
-            return false;
-        }
+            } catch (Exception e) {
+                System.out.println("✗ Error al actualizar precios: " + e.getMessage());
+                return -1;
+            }
+        });
     }
     
     /**
-     * Elimina todas las tablas en el orden correcto (DROP TABLE).
-     * Orden: Pedido → Factura → Productos → Mesa
+     * Quita la reserva de las mesas reservadas (reserva = 0).
      * 
      * @param session Sesión de Hibernate activa con transacción iniciada
-     * @return true si se eliminaron correctamente
+     * @param numComensales Solo las mesas con este número de comensales (null para todas)
+     * @return Número de mesas liberadas, o -1 si hubo error
      */
-    public static boolean eliminarTodasTablas(Session session) {
-        try {
-            // Primero desactivar las comprobaciones de claves foráneas
-            session.createNativeQuery("SET FOREIGN_KEY_CHECKS = 0", Object.class).executeUpdate();
-            
-            // Orden inverso por dependencias
+    public static int liberarMesas(Session session, Integer numComensales) {
+        return MetricasRestaurante.medir("liberarMesas", () -> {
             try {
-                session.createNativeQuery("DROP TABLE IF EXISTS Pedido", Object.class).executeUpdate();
-                System.out.println("✓ Tabla Pedido eliminada");
+                HibernateCriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaUpdate<Mesa> update = cb.createCriteriaUpdate(Mesa.class);
+                Root<Mesa> mesa = update.from(Mesa.class);
+            
+                List<Predicate> condiciones = new ArrayList<>();
+                condiciones.add(cb.notEqual(mesa.get("reserva"), 0));
+                if (numComensales != null) condiciones.add(cb.equal(mesa.get("numComensales"), numComensales));
+            
+                update.set(mesa.<Integer>get("reserva"), 0)
+                        .set(mesa.<Integer>get("version"), cb.sum(mesa.<Integer>get("version"), cb.literal(1)))
+                        .where(condiciones.toArray(new Predicate[0]));
+                int modificadas = session.createMutationQuery(update).executeUpdate();
+            
+                session.getSessionFactory().getCache().evictEntityData(Mesa.class);
+                System.out.println("✓ Se liberaron " + modificadas + " mesas");
+                return modificadas;
+            
             } catch (Exception e) {
-                System.out.println("⚠ Tabla Pedido no existe o ya fue eliminada");
+                System.out.println("✗ Error al liberar mesas: " + e.getMessage());
+                return -1;
             }
+        });
+    }
+    
+    /**
+     * Cambia el tipo de pago de todas las facturas que tienen uno concreto.
+     * 
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @param tipoPagoActual Tipo de pago a sustituir
+     * @param tipoPagoNuevo Nuevo tipo de pago
+     * @return Número de facturas modificadas, o -1 si hubo error
+     */
+    public static int cambiarTipoPago(Session session, String tipoPagoActual, String tipoPagoNuevo) {
+        return MetricasRestaurante.medir("cambiarTipoPago", () -> {
+            try {
+                HibernateCriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaUpdate<Factura> update = cb.createCriteriaUpdate(Factura.class);
+                Root<Factura> factura = update.from(Factura.class);
             
+                update.set(factura.<String>get("tipoPago"), tipoPagoNuevo)
+                        .set(factura.<Integer>get("version"), cb.sum(factura.<Integer>get("version"), cb.literal(1)))
+                        .where(cb.equal(factura.get("tipoPago"), tipoPagoActual));
+                int modificadas = session.createMutationQuery(update).executeUpdate();
+            
+                System.out.println("✓ Se cambió el tipo de pago de " + modificadas + " facturas");
+                return modificadas;
+            
+            } catch (Exception e) {
+                System.out.println("✗ Error al cambiar el tipo de pago: " + e.getMessage());
+                return -1;
+            }
+        });
+    }
+    
+    /**
+     * Borra todos los pedidos de una factura y deja a cero su total y su número de líneas.
+     * 
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @param idFactura ID de la factura
+     * @return Número de pedidos borrados, o -1 si hubo error
+     */
+    public static int borrarPedidosFactura(Session session, int idFactura) {
+        return MetricasRestaurante.medir("borrarPedidosFactura", () -> {
             try {
-                session.createNativeQuery("DROP TABLE IF EXISTS Factura", Object.class).executeUpdate();
-                System.out.println("✓ Tabla Factura eliminada");
+                HibernateCriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaDelete<Pedido> delete = cb.createCriteriaDelete(Pedido.class);
+                Root<Pedido> pedido = delete.from(Pedido.class);
+            
+                delete.where(cb.equal(pedido.get("factura").get("idFactura"), idFactura));
+                int borrados = session.createMutationQuery(delete).executeUpdate();
+                session.createMutationQuery("UPDATE Factura f SET f.total = 0, f.numLineas = 0 WHERE f.idFactura = :idFactura")
+                        .setParameter("idFactura", idFactura)
+                        .executeUpdate();
+            
+                System.out.println("✓ Se borraron " + borrados + " pedidos de la factura " + idFactura);
+                return borrados;
+            
             } catch (Exception e) {
-                System.out.println("⚠ Tabla Factura no existe o ya fue eliminada");
+                System.out.println("✗ Error al borrar los pedidos de la factura: " + e.getMessage());
+                return -1;
             }
+        });
+    }
+    
+    // ==================== TOTALES DE FACTURAS ====================
+    
+    /**
+     * Suma una diferencia al total y al número de líneas de una factura,
+     * en la transacción de la sesión (junto al cambio del pedido que la provoca).
+     * 
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @param idFactura ID de la factura
+     * @param importe importe que se suma (negativo para restar)
+     * @param lineas líneas que se suman (negativo para restar)
+     */
+    private static void sumarTotalFactura(Session session, int idFactura, double importe, int lineas) {
+        session.createNativeQuery(SUMAR_TOTAL_FACTURA, Object.class)
+                .addSynchronizedEntityClass(Factura.class)
+                .setParameter("importe", importe)
+                .setParameter("lineas", lineas)
+                .setParameter("idFactura", idFactura)
+                .executeUpdate();
+    }
+    
+    /**
+     * Recalcula el total y el número de líneas de todas las facturas a partir de sus pedidos,
+     * con el precio guardado en cada pedido; los pedidos que aún no tienen precio guardado
+     * (anteriores a la columna o insertados por JDBC) reciben antes el precio actual del producto.
+     * Sirve para rellenar las columnas en una base con facturas anteriores a ellas
+     * o si se han modificado pedidos fuera de la aplicación.
+     * Las facturas se reparten en tramos de TAMANO_TRAMO_TOTALES IDs que se recalculan en paralelo,
+     * cada uno con un único UPDATE en su propia sesión y transacción, así que si falla un tramo
+     * los demás quedan recalculados y basta con repetir la operación.
+     * Conviene lanzarlo sin terminales añadiendo pedidos a la vez.
+     * 
+     * @param hilos Número de tramos que se recalculan a la vez
+     * @return Número de facturas recalculadas, o -1 si hubo error
+     */
+    public static int recalcularTotales(int hilos) {
+        return MetricasRestaurante.medir("recalcularTotales", () -> {
+            ExecutorService ejecutor = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                Object[] rango = session.createQuery(
+                        "SELECT MIN(f.idFactura), MAX(f.idFactura) FROM Factura f", Object[].class)
+                        .getSingleResult();
+                if (rango[0] == null) {
+                    System.out.println("✓ No hay facturas que recalcular");
+                    return 0;
+                }
+                int minimo = (Integer) rango[0];
+                int maximo = (Integer) rango[1];
             
+                long inicio = System.nanoTime();
+                ejecutor = Executors.newFixedThreadPool(Math.max(1, hilos));
+                List<Future<Integer>> tramos = new ArrayList<>();
+                for (long desde = minimo; desde <= maximo; desde += TAMANO_TRAMO_TOTALES) {
+                    int desdeTramo = (int) desde;
+                    int hastaTramo = (int) Math.min(maximo, desde + TAMANO_TRAMO_TOTALES - 1);
+                    tramos.add(ejecutor.submit(() -> HibernateUtil.getSessionFactory().fromTransaction(sesion ->
+                            recalcularTramo(sesion, desdeTramo, hastaTramo))));
+                }
+            
+                int recalculadas = 0;
+                int fallidos = 0;
+                for (Future<Integer> tramo : tramos) {
+                    try {
+                        recalculadas += tramo.get();
+                    } catch (ExecutionException e) {
+                        if (fallidos++ == 0) {
+                            System.out.println("✗ Error al recalcular un tramo: " + e.getCause().getMessage());
+                        }
+                    }
+                }
+                if (fallidos > 0) {
+                    System.out.println("✗ Fallaron " + fallidos + " de " + tramos.size()
+                            + " tramos; se recalcularon " + recalculadas + " facturas. Repita la operación.");
+                    return -1;
+                }
+            
+                System.out.printf("✓ Totales recalculados de %d facturas en %d tramos con %d hilos (%.0f ms)%n",
+                        recalculadas, tramos.size(), Math.max(1, hilos), (System.nanoTime() - inicio) / 1e6);
+                return recalculadas;
+            
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("✗ Recálculo de totales interrumpido");
+                return -1;
+            } catch (Exception e) {
+                System.out.println("✗ Error al recalcular los totales: " + e.getMessage());
+                return -1;
+            } finally {
+                if (ejecutor != null) ejecutor.shutdownNow();
+            }
+        });
+    }
+    
+    /**
+     * Fija el precio de los pedidos sin precio y recalcula los totales de las facturas
+     * con ID entre desde y hasta, en la transacción de la sesión.
+     * 
+     * @return Número de facturas recalculadas
+     */
+    private static int recalcularTramo(Session session, int desde, int hasta) {
+        session.createMutationQuery(FIJAR_PRECIOS_PEDIDOS + POR_RANGO)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .executeUpdate();
+        return session.createMutationQuery(RECALCULAR_TOTALES + POR_RANGO)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .executeUpdate();
+    }
+    
+    /**
+     * Recalcula el total y el número de líneas solo de las facturas indicadas, igual que
+     * recalcularTotales(int) (fijando antes el precio de sus pedidos sin precio).
+     * Es lo que se usa tras importar pedidos por JDBC: no recorre las demás facturas.
+     * Las facturas se recalculan en tramos de TAMANO_TRAMO_TOTALES IDs, cada uno con su transacción;
+     * si falla un tramo los anteriores quedan recalculados y basta con repetir la operación.
+     * 
+     * @param idsFacturas IDs de las facturas a recalcular
+     * @return Número de facturas recalculadas, o -1 si hubo error
+     */
+    public static int recalcularTotales(Collection<Integer> idsFacturas) {
+        return MetricasRestaurante.medir("recalcularTotalesFacturas", () -> {
             try {
-                session.createNativeQuery("DROP TABLE IF EXISTS Productos", Object.class).executeUpdate();
-                System.out.println("✓ Tabla Productos eliminada");
+                List<Integer> ids = new ArrayList<>(idsFacturas);
+                int recalculadas = 0;
+                for (int inicio = 0; inicio < ids.size(); inicio += TAMANO_TRAMO_TOTALES) {
+                    List<Integer> tramo = ids.subList(inicio, Math.min(inicio + TAMANO_TRAMO_TOTALES, ids.size()));
+                    recalculadas += HibernateUtil.getSessionFactory().fromTransaction(session -> {
+                        session.createMutationQuery(FIJAR_PRECIOS_PEDIDOS + POR_IDS)
+                                .setParameter("ids", tramo)
+                                .executeUpdate();
+                        return session.createMutationQuery(RECALCULAR_TOTALES + POR_IDS)
+                                .setParameter("ids", tramo)
+                                .executeUpdate();
+                    });
+                }
+                System.out.println("✓ Totales recalculados de " + recalculadas + " facturas");
+                return recalculadas;
             } catch (Exception e) {
-                System.out.println("⚠ Tabla Productos no existe o ya fue eliminada");
+                System.out.println("✗ Error al recalcular los totales: " + e.getMessage());
+                return -1;
             }
-            
+        });
+    }
+    
+    // ==================== ELIMINAR TABLAS (DROP) ====================
+    
+    /**
+     * Elimina una tabla específica (DROP TABLE).
+     * NOTA: Esto usa SQL nativo y debe hacerse con cuidado.
+     * 
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @param tabla Nombre de la tabla a eliminar
+     * @return true si se eliminó correctamente
+     */
+    public static boolean eliminarTabla(Session session, String tabla) {
+        return MetricasRestaurante.medir("eliminarTabla", () -> {
             try {
-                session.createNativeQuery("DROP TABLE IF EXISTS Mesa", Object.class).executeUpdate();
-                System.out.println("✓ Tabla Mesa eliminada");
+                // Desactivar temporalmente las comprobaciones de claves foráneas
+                session.createNativeQuery("SET FOREIGN_KEY_CHECKS = 0", Object.class).executeUpdate();
+            
+                String sql = "DROP TABLE IF EXISTS " + tabla;
+                session.createNativeQuery(sql, Object.class).executeUpdate();
+            
+                // Reactivar las comprobaciones de claves foráneas
+                session.createNativeQuery("SET FOREIGN_KEY_CHECKS = 1", Object.class).executeUpdate();
+            
+                System.out.println("✓ Tabla " + tabla + " eliminada correctamente");
+                return true;
+            
             } catch (Exception e) {
-                System.out.println("⚠ Tabla Mesa no existe o ya fue eliminada");
+                System.out.println("✗ Error al eliminar tabla " + tabla + ": " + e.getMessage());
+                System.out.println("  Verifica que el nombre de la tabla sea correcto");
+                System.out.println("  Tablas disponibles: Mesa, Productos, Factura, Pedido");
+                return false;
             }
+        });
+    }
+    
+    /**
+     * Elimina todas las tablas en el orden correcto (DROP TABLE).
+     * Orden: Pedido → Factura → Productos → Mesa
+     * 
+     * @param session Sesión de Hibernate activa con transacción iniciada
+     * @return true si se eliminaron correctamente
+     */
+    public static boolean eliminarTodasTablas(Session session) {
+        return MetricasRestaurante.medir("eliminarTodasTablas", () -> {
+            try {
+                // Primero desactivar las comprobaciones de claves foráneas
+                session.createNativeQuery("SET FOREIGN_KEY_CHECKS = 0", Object.class).executeUpdate();
             
-            // Reactivar las comprobaciones de claves foráneas
-            session.createNativeQuery("SET FOREIGN_KEY_CHECKS = 1", Object.class).executeUpdate();
+                // Orden inverso por dependencias
+                try {
+                    session.createNativeQuery("DROP TABLE IF EXISTS Pedido", Object.class).executeUpdate();
+                    System.out.println("✓ Tabla Pedido eliminada");
+                } catch (Exception e) {
+                    System.out.println("⚠ Tabla Pedido no existe o ya fue eliminada");
+                }
             
-            System.out.println("✓ Proceso de eliminación completado");
-            return true;
+                try {
+                    session.createNativeQuery("DROP TABLE IF EXISTS Factura", Object.class).executeUpdate();
+                    System.out.println("✓ Tabla Factura eliminada");
+                } catch (Exception e) {
+                    System.out.println("⚠ Tabla Factura no existe o ya fue eliminada");
+                }
             
-        } catch (Exception e) {
-            System.out.println("✗ Error al eliminar tablas: " + e.getMessage());
-            return false;
-        }
+                try {
+                    session.createNativeQuery("DROP TABLE IF EXISTS Productos", Object.class).executeUpdate();
+                    System.out.println("✓ Tabla Productos eliminada");
+                } catch (Exception e) {
+                    System.out.println("⚠ Tabla Productos no existe o ya fue eliminada");
+                }
+            
+                try {
+                    session.createNativeQuery("DROP TABLE IF EXISTS Mesa", Object.class).executeUpdate();
+                    System.out.println("✓ Tabla Mesa eliminada");
+                } catch (Exception e) {
+                    System.out.println("⚠ Tabla Mesa no existe o ya fue eliminada");
+                }
+            
+                // Reactivar las comprobaciones de claves foráneas
+                session.createNativeQuery("SET FOREIGN_KEY_CHECKS = 1", Object.class).executeUpdate();
+            
+                System.out.println("✓ Proceso de eliminación completado");
+                return true;
+            
+            } catch (Exception e) {
+                System.out.println("✗ Error al eliminar tablas: " + e.getMessage());
+                return false;
+            }
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista de solo lectura de una factura.
+ * 
+ * @param idFactura ID de la factura.
+ * @param idMesa ID de la mesa (null si no tiene).
+ * @param tipoPago tipo de pago.
+ * @param importe importe de la factura.
+ * @param total suma de los pedidos de la factura.
+ * @param numLineas número de pedidos de la factura.
+ * @param fecha fecha de la factura.
+ */
+public record FacturaView(int idFactura, Integer idMesa, String tipoPago, double importe, double total,
+        int numLineas, LocalDateTime fecha)
+        implements Vista {
+
+    /**
+     * Consulta base que proyecta Factura (alias e) en esta vista.
+     * e.mesa.idMesa se lee de la clave ajena, sin JOIN con Mesa.
+     */
+    public static final String CONSULTA =
+            "SELECT new dto.FacturaView(e.idFactura, e.mesa.idMesa, e.tipoPago, e.importe, e.total, e.numLineas, e.fecha) FROM Factura e";
+
+    @Override
+    public int id() {
+        return idFactura;
+    }
+
+    @Override
+    public String toString() {
+        return "Factura{" +
+                "idFactura=" + idFactura +
+                ", idMesa=" + idMesa +
+                ", tipoPago='" + tipoPago + '\'' +
+                ", importe=" + importe +
+                ", total=" + total +
+                ", numLineas=" + numLineas +
+                ", fecha=" + fecha +
+                '}';
+    }
+}
@@ -0,0 +1,11 @@
+package dto;
+
+/**
+ * Fila del informe de ingresos por mesa.
+ * 
+ * @param idMesa ID de la mesa.
+ * @param numFacturas número de facturas de la mesa.
+ * @param total suma de los importes de sus facturas.
+ */
+public record IngresoMesa(int idMesa, long numFacturas, double total) {
+}
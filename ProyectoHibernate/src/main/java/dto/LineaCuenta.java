@@ -0,0 +1,11 @@
+package dto;
+
+/**
+ * Línea de la cuenta de una mesa al cerrarla: producto y cantidad.
+ * El precio no se indica, se toma del producto al cobrar.
+ *
+ * @param idProducto ID del producto consumido.
+ * @param cantidad cantidad consumida.
+ */
+public record LineaCuenta(int idProducto, int cantidad) {
+}
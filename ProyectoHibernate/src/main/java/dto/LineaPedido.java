@@ -0,0 +1,11 @@
+package dto;
+
+/**
+ * Línea de pedido a insertar en lote: factura, producto y cantidad.
+ * 
+ * @param idFactura ID de la factura a la que pertenece la línea.
+ * @param idProducto ID del producto pedido.
+ * @param cantidad cantidad pedida.
+ */
+public record LineaPedido(int idFactura, int idProducto, int cantidad) {
+}
@@ -0,0 +1,29 @@
+package dto;
+
+/**
+ * Vista de solo lectura de una mesa.
+ * 
+ * @param idMesa ID de la mesa.
+ * @param numComensales número de comensales.
+ * @param reserva 1 si está reservada, 0 si no.
+ */
+public record MesaView(int idMesa, int numComensales, int reserva) implements Vista {
+
+    /** Consulta base que proyecta Mesa (alias e) en esta vista */
+    public static final String CONSULTA =
+            "SELECT new dto.MesaView(e.idMesa, e.numComensales, e.reserva) FROM Mesa e";
+
+    @Override
+    public int id() {
+        return idMesa;
+    }
+
+    @Override
+    public String toString() {
+        return "Mesa{" +
+                "idMesa=" + idMesa +
+                ", numComensales=" + numComensales +
+                ", reserva=" + reserva +
+                '}';
+    }
+}
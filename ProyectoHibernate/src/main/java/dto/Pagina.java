@@ -0,0 +1,13 @@
+package dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados obtenida con paginación por clave (keyset).
+ * 
+ * @param filas registros de la página, ordenados por ID.
+ * @param ultimoId ID del último registro, a usar para pedir la página siguiente.
+ * @param hayMas true si existen más registros después de esta página.
+ */
+public record Pagina<T>(List<T> filas, int ultimoId, boolean hayMas) {
+}
@@ -0,0 +1,34 @@
+package dto;
+
+/**
+ * Vista de solo lectura de un pedido.
+ * 
+ * @param idPedido ID del pedido.
+ * @param idFactura ID de la factura (null si no tiene).
+ * @param idProducto ID del producto (null si no tiene).
+ * @param cantidad unidades pedidas.
+ */
+public record PedidoView(int idPedido, Integer idFactura, Integer idProducto, int cantidad) implements Vista {
+
+    /**
+     * Consulta base que proyecta Pedido (alias e) en esta vista.
+     * Los IDs de factura y producto se leen de las claves ajenas, sin JOIN.
+     */
+    public static final String CONSULTA =
+            "SELECT new dto.PedidoView(e.idPedido, e.factura.idFactura, e.producto.idProducto, e.cantidad) FROM Pedido e";
+
+    @Override
+    public int id() {
+        return idPedido;
+    }
+
+    @Override
+    public String toString() {
+        return "Pedido{" +
+                "idPedido=" + idPedido +
+                ", idFactura=" + idFactura +
+                ", idProducto=" + idProducto +
+                ", cantidad=" + cantidad +
+                '}';
+    }
+}
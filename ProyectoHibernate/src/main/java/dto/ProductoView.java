@@ -0,0 +1,29 @@
+package dto;
+
+/**
+ * Vista de solo lectura de un producto.
+ * 
+ * @param idProducto ID del producto.
+ * @param nombre nombre del producto.
+ * @param precio precio del producto.
+ */
+public record ProductoView(int idProducto, String nombre, double precio) implements Vista {
+
+    /** Consulta base que proyecta Producto (alias e) en esta vista */
+    public static final String CONSULTA =
+            "SELECT new dto.ProductoView(e.idProducto, e.nombre, e.precio) FROM Producto e";
+
+    @Override
+    public int id() {
+        return idProducto;
+    }
+
+    @Override
+    public String toString() {
+        return "Producto{" +
+                "idProducto=" + idProducto +
+                ", nombre='" + nombre + '\'' +
+                ", precio=" + precio +
+                '}';
+    }
+}
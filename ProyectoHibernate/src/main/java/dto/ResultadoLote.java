@@ -0,0 +1,16 @@
+package dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una inserción en lote.
+ * Si el lote se deshizo, errores solo trae el motivo y rechazadas está vacía.
+ *
+ * @param insertados número de filas insertadas.
+ * @param errores mensajes de las filas que no se pudieron insertar.
+ * @param rechazadas posiciones (desde 0) de las filas que no se insertaron por datos no válidos,
+ *                   en el mismo orden que sus mensajes en errores.
+ * @param confirmado true si la transacción se confirmó (commit).
+ */
+public record ResultadoLote(int insertados, List<String> errores, List<Integer> rechazadas, boolean confirmado) {
+}
@@ -0,0 +1,11 @@
+package dto;
+
+/**
+ * Fila del informe de totales por tipo de pago.
+ * 
+ * @param tipoPago tipo de pago ("Efectivo", "Tarjeta"...).
+ * @param numFacturas número de facturas pagadas de esa forma.
+ * @param total suma de los importes.
+ */
+public record TotalTipoPago(String tipoPago, long numFacturas, double total) {
+}
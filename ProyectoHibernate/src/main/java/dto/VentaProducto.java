@@ -0,0 +1,12 @@
+package dto;
+
+/**
+ * Fila del informe de ventas por producto.
+ * 
+ * @param idProducto ID del producto.
+ * @param nombre nombre del producto.
+ * @param unidades suma de las cantidades pedidas.
+ * @param ingresos suma de cantidad × precio.
+ */
+public record VentaProducto(int idProducto, String nombre, long unidades, double ingresos) {
+}
@@ -0,0 +1,14 @@
+package dto;
+
+/**
+ * Proyección de solo lectura de una entidad, usada en los listados.
+ * Las vistas son records sin contexto de persistencia ni proxies:
+ * solo contienen los valores que se muestran.
+ */
+public interface Vista {
+
+    /**
+     * @return ID del registro, usado para la paginación por clave
+     */
+    int id();
+}
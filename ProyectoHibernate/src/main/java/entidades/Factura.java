@@ -1,14 +1,42 @@
 package entidades;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 @Entity
-@Table(name = "Factura")
+// Índices de los filtros de listar por mesa y tipo de pago. Cada índice secundario guarda también
+// la clave primaria, así que sirve para el WHERE, el ORDER BY idFactura y el "idFactura > :ultimoId"
+@Table(name = "Factura", indexes = {
+        @Index(name = "idx_factura_mesa", columnList = "idMesa"),
+        @Index(name = "idx_factura_tipo_pago", columnList = "tipoPago")
+})
+@BatchSize(size = 50)
+@DynamicUpdate
+@NamedEntityGraph(
+        name = Factura.GRAFO_COMPLETA,
+        attributeNodes = {
+                @NamedAttributeNode("mesa"),
+                @NamedAttributeNode(value = "pedidos", subgraph = "pedidos")
+        },
+        subgraphs = @NamedSubgraph(name = "pedidos", attributeNodes = @NamedAttributeNode("producto")))
 public class Factura {
     
+    /**
+     * Grafo de entidades que carga la factura con su mesa, sus pedidos y el producto de cada pedido
+     */
+    public static final String GRAFO_COMPLETA = "Factura.completa";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "gen_factura")
+    @TableGenerator(name = "gen_factura", table = GeneradorIds.TABLA,
+            pkColumnName = GeneradorIds.COLUMNA_ENTIDAD, valueColumnName = GeneradorIds.COLUMNA_VALOR,
+            pkColumnValue = "Factura", allocationSize = GeneradorIds.TAMANO_ASIGNACION)
     @Column(name = "idFactura")
     private int idFactura;
     
@@ -23,8 +51,34 @@ public class Factura {
     @Column(name = "Importe", nullable = false)
     private double importe;
     
+    // Fecha y hora de emisión (las facturas anteriores a esta columna la tienen a null)
+    @Column(name = "fecha")
+    private LocalDateTime fecha;
+    
+    // Versión para el bloqueo optimista: cada UPDATE comprueba que nadie ha modificado
+    // la factura desde que se leyó (las filas anteriores a esta columna empiezan en 0)
+    @Version
+    @Column(name = "version", columnDefinition = "int default 0 not null")
+    private int version;
+    
+    // Suma de cantidad · precio de sus pedidos, con el precio guardado en cada pedido (Pedido.precio).
+    // total y numLineas no se escriben desde la entidad: RestauranteCRUDHibernate les suma la
+    // diferencia con un UPDATE en la misma transacción que inserta, modifica o borra el pedido.
+    // Con @DynamicUpdate el UPDATE de la entidad solo lleva las columnas cambiadas, así que
+    // modificar el tipo de pago o el importe de una factura cargada antes no pisa esas sumas.
+    // (@ColumnDefault y no columnDefinition: Hibernate usa el tipo de la columna al sumarle parámetros)
+    @Column(name = "total", nullable = false)
+    @ColumnDefault("0")
+    private double total;
+    
+    // Número de pedidos de la factura
+    @Column(name = "numLineas", nullable = false)
+    @ColumnDefault("0")
+    private int numLineas;
+    
     // Relación con Pedido (una factura puede tener muchos pedidos)
     @OneToMany(mappedBy = "factura", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private List<Pedido> pedidos;
     
     // Constructores
@@ -35,6 +89,7 @@ public class Factura {
         this.mesa = mesa;
         this.tipoPago = tipoPago;
         this.importe = importe;
+        this.fecha = LocalDateTime.now();
     }
     
     // Getters y Setters
@@ -70,6 +125,14 @@ public class Factura {
         this.importe = importe;
     }
     
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+    
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+    
     public List<Pedido> getPedidos() {
         return pedidos;
     }
@@ -78,6 +141,35 @@ public class Factura {
         this.pedidos = pedidos;
     }
     
+    /**
+     * Añade un pedido a la factura manteniendo los dos lados de la relación.
+     * Al persistir la factura, el pedido se guarda con ella (cascade).
+     * Solo para facturas nuevas: también suma el pedido a total y numLineas.
+     * 
+     * @param pedido pedido a añadir
+     */
+    public void agregarPedido(Pedido pedido) {
+        if (pedidos == null) {
+            pedidos = new ArrayList<>();
+        }
+        pedidos.add(pedido);
+        pedido.setFactura(this);
+        total += pedido.getCantidad() * pedido.getPrecioUnitario();
+        numLineas++;
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+    
+    public double getTotal() {
+        return total;
+    }
+    
+    public int getNumLineas() {
+        return numLineas;
+    }
+    
     @Override
     public String toString() {
         return "Factura{" +
@@ -85,6 +177,9 @@ public class Factura {
                 ", idMesa=" + (mesa != null ? mesa.getIdMesa() : "null") +
                 ", tipoPago='" + tipoPago + '\'' +
                 ", importe=" + importe +
+                ", total=" + total +
+                ", numLineas=" + numLineas +
+                ", fecha=" + fecha +
                 '}';
     }
 }
\ No newline at end of file
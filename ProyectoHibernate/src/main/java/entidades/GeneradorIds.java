@@ -0,0 +1,31 @@
+package entidades;
+
+/**
+ * Constantes compartidas por los generadores de ID de las entidades.
+ * 
+ * Todas las entidades usan un generador de tabla con optimizador pooled:
+ * Hibernate reserva TAMANO_ASIGNACION IDs por cada acceso a la tabla TABLA,
+ * de modo que los INSERT no necesitan leer la clave generada y se pueden
+ * agrupar en batch (algo que IDENTITY impide).
+ */
+public final class GeneradorIds {
+
+    /** Tabla donde se guarda el último ID usado de cada entidad */
+    public static final String TABLA = "id_generadores";
+
+    /** Columna con el nombre de la entidad (clave primaria de TABLA) */
+    public static final String COLUMNA_ENTIDAD = "entidad";
+
+    /** Columna con el último valor reservado */
+    public static final String COLUMNA_VALOR = "valor";
+
+    /**
+     * Número de IDs que se reservan de una vez.
+     * Para cambiarlo basta con modificar esta constante; la sincronización de
+     * HibernateUtil ajusta la tabla para que no se repitan IDs existentes.
+     */
+    public static final int TAMANO_ASIGNACION = 50;
+
+    private GeneradorIds() {
+    }
+}
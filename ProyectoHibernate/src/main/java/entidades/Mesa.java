@@ -3,12 +3,22 @@ package entidades;
 import jakarta.persistence.*;
 import java.util.List;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entidades.Mesa")
 @Table(name = "Mesa")
+@BatchSize(size = 50)
 public class Mesa {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "gen_mesa")
+    @TableGenerator(name = "gen_mesa", table = GeneradorIds.TABLA,
+            pkColumnName = GeneradorIds.COLUMNA_ENTIDAD, valueColumnName = GeneradorIds.COLUMNA_VALOR,
+            pkColumnValue = "Mesa", allocationSize = GeneradorIds.TAMANO_ASIGNACION)
     @Column(name = "idMesa")
     private int idMesa;
     
@@ -18,8 +28,15 @@ public class Mesa {
     @Column(name = "reserva", nullable = false)
     private int reserva;
     
+    // Versión para el bloqueo optimista: cada UPDATE comprueba que nadie ha modificado
+    // la mesa desde que se leyó (las filas anteriores a esta columna empiezan en 0)
+    @Version
+    @Column(name = "version", columnDefinition = "int default 0 not null")
+    private int version;
+    
     // Relación con Factura (una mesa puede tener muchas facturas)
     @OneToMany(mappedBy = "mesa", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private List<Factura> facturas;
     
     // Constructores
@@ -64,6 +81,10 @@ public class Mesa {
         this.facturas = facturas;
     }
     
+    public int getVersion() {
+        return version;
+    }
+    
     @Override
     public String toString() {
         return "Mesa{" +
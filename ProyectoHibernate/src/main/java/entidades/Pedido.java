@@ -3,11 +3,18 @@ package entidades;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "Pedido")
+// Índices de las claves ajenas: los pedidos de una factura y los de un producto
+@Table(name = "Pedido", indexes = {
+        @Index(name = "idx_pedido_factura", columnList = "idFactura"),
+        @Index(name = "idx_pedido_producto", columnList = "idProducto")
+})
 public class Pedido {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "gen_pedido")
+    @TableGenerator(name = "gen_pedido", table = GeneradorIds.TABLA,
+            pkColumnName = GeneradorIds.COLUMNA_ENTIDAD, valueColumnName = GeneradorIds.COLUMNA_VALOR,
+            pkColumnValue = "Pedido", allocationSize = GeneradorIds.TAMANO_ASIGNACION)
     @Column(name = "idPedido")
     private int idPedido;
     
@@ -24,14 +31,32 @@ public class Pedido {
     @Column(name = "cantidad", nullable = false)
     private int cantidad;
     
+    // Precio unitario del producto al añadir el pedido: el total de la factura se calcula con él,
+    // así que cambiar después el precio del producto no cambia las facturas ya hechas.
+    // Es null en los pedidos anteriores a esta columna hasta que se recalculan los totales.
+    @Column(name = "precio")
+    private Double precio;
+    
     // Constructores
     public Pedido() {
     }
     
+    /**
+     * Crea un pedido con el precio actual del producto.
+     */
     public Pedido(Factura factura, Producto producto, int cantidad) {
+        this(factura, producto, cantidad, producto.getPrecio());
+    }
+    
+    /**
+     * Crea un pedido con un precio ya conocido (por ejemplo, si producto es una referencia
+     * sin cargar y leer su precio lanzaría un SELECT).
+     */
+    public Pedido(Factura factura, Producto producto, int cantidad, double precio) {
         this.factura = factura;
         this.producto = producto;
         this.cantidad = cantidad;
+        this.precio = precio;
     }
     
     // Getters y Setters
@@ -67,6 +92,23 @@ public class Pedido {
         this.cantidad = cantidad;
     }
     
+    public Double getPrecio() {
+        return precio;
+    }
+    
+    public void setPrecio(Double precio) {
+        this.precio = precio;
+    }
+    
+    /**
+     * Precio con el que cuenta el pedido en el total de su factura: el guardado al añadirlo
+     * o, en los pedidos anteriores a la columna precio, el actual del producto.
+     */
+    public double getPrecioUnitario() {
+        if (precio != null) return precio;
+        return producto != null ? producto.getPrecio() : 0;
+    }
+    
     @Override
     public String toString() {
         return "Pedido{" +
@@ -74,6 +116,7 @@ public class Pedido {
                 ", idFactura=" + (factura != null ? factura.getIdFactura() : "null") +
                 ", idProducto=" + (producto != null ? producto.getIdProducto() : "null") +
                 ", cantidad=" + cantidad +
+                ", precio=" + precio +
                 '}';
     }
 }
\ No newline at end of file
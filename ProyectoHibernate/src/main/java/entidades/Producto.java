@@ -4,12 +4,23 @@ import jakarta.persistence.*;
 import java.util.List;
 import java.util.ArrayList;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
-@Table(name = "Productos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entidades.Producto")
+// Índice del nombre: lo usan el filtro por prefijo (LIKE 'texto%') y la igualdad, no el LIKE '%texto%'
+@Table(name = "Productos", indexes = @Index(name = "idx_productos_denominacion", columnList = "Denominacion"))
+@BatchSize(size = 50)
 public class Producto {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "gen_producto")
+    @TableGenerator(name = "gen_producto", table = GeneradorIds.TABLA,
+            pkColumnName = GeneradorIds.COLUMNA_ENTIDAD, valueColumnName = GeneradorIds.COLUMNA_VALOR,
+            pkColumnValue = "Producto", allocationSize = GeneradorIds.TAMANO_ASIGNACION)
     @Column(name = "idProducto")
     private int idProducto;
 
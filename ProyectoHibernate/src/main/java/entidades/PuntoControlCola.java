@@ -0,0 +1,56 @@
+package entidades;
+
+import jakarta.persistence.*;
+
+/**
+ * Última secuencia de un diario de crud.ColaPedidos que ya está en la base de datos.
+ * Se actualiza en la misma transacción que inserta el lote, así que los pedidos y el punto
+ * de control se confirman (o se deshacen) juntos: al repetir un lote tras un cierre inesperado,
+ * las entradas con secuencia menor o igual se saltan en lugar de insertarse dos veces.
+ */
+@Entity
+@Table(name = "cola_punto_control")
+public class PuntoControlCola {
+
+    // Identificador del diario (se guarda en su primera línea)
+    @Id
+    @Column(name = "diario", length = 36)
+    private String diario;
+
+    @Column(name = "secuencia", nullable = false)
+    private long secuencia;
+
+    // Constructores
+    public PuntoControlCola() {
+    }
+
+    public PuntoControlCola(String diario, long secuencia) {
+        this.diario = diario;
+        this.secuencia = secuencia;
+    }
+
+    // Getters y Setters
+    public String getDiario() {
+        return diario;
+    }
+
+    public void setDiario(String diario) {
+        this.diario = diario;
+    }
+
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    public void setSecuencia(long secuencia) {
+        this.secuencia = secuencia;
+    }
+
+    @Override
+    public String toString() {
+        return "PuntoControlCola{" +
+                "diario='" + diario + '\'' +
+                ", secuencia=" + secuencia +
+                '}';
+    }
+}
@@ -0,0 +1,745 @@
+package principal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import conexion.HibernateUtil;
+import crud.RestauranteCRUDHibernate;
+
+/**
+ * Importa y exporta las tablas del restaurante en CSV o JSON lines (un objeto JSON por línea),
+ * para migrar cartas y facturas históricas sin pasar por el menú.
+ * Los ficheros se procesan fila a fila, así que la memoria no depende de su tamaño:
+ *
+ * - Importar: el fichero se lee por un FileChannel con buffer de 64 KB. Las claves ajenas
+ *   se comprueban contra los IDs de la tabla padre, cargados al principio en un BitSet
+ *   (un bit por ID). Las filas se insertan con su ID mediante JDBC en lotes de
+ *   FILAS_POR_LOTE con un commit por lote; las filas cuyo ID ya existe o que apuntan a una
+ *   fila inexistente se saltan, así que una importación interrumpida se puede repetir.
+ *   Al terminar se sincronizan los generadores de ID y se vacía la caché de segundo nivel;
+ *   tras importar pedidos se recalculan los totales de las facturas. Los pedidos se exportan
+ *   con el precio al que se vendieron; los que se importan sin precio (ficheros anteriores
+ *   a ese campo) toman el precio actual de su producto.
+ * - Exportar: se recorre la tabla con un cursor (ScrollableResults con fetch size; en MySQL
+ *   un cursor en el servidor gracias a useCursorFetch=true) y se escribe cada fila según llega.
+ *
+ * Conviene importar con la aplicación parada: otra instancia en marcha puede tener reservado
+ * en memoria un bloque de IDs que coincida con los importados.
+ *
+ * Uso: java principal.ImportarExportar (importar|exportar) (Mesa|Producto|Factura|Pedido) fichero.(csv|jsonl)
+ */
+public class ImportarExportar {
+
+    /**
+     * Filas por executeBatch y commit al importar
+     */
+    private static final int FILAS_POR_LOTE = 1000;
+
+    /**
+     * Tamaño de los buffers de lectura y escritura
+     */
+    private static final int TAMANO_BUFFER = 1 << 16;
+
+    /**
+     * Cada cuántas filas se informa del progreso
+     */
+    private static final int INFORME_CADA = 100_000;
+
+    /**
+     * Filas rechazadas que se muestran con su motivo (el resto solo se cuentan)
+     */
+    private static final int RECHAZOS_MOSTRADOS = 20;
+
+    /** Tipos de las columnas */
+    private enum Tipo { ENTERO, DECIMAL, TEXTO, FECHA }
+
+    /**
+     * Resultado de comprobar una fila con preparar()
+     *
+     * @param estado si la fila se inserta, se salta o se rechaza
+     * @param motivo por qué se rechaza (solo si estado es RECHAZADA)
+     */
+    private record Comprobacion(Estado estado, String motivo) {
+
+        /** VALIDA: se inserta; YA_EXISTE: su ID ya está (se importó antes), solo se cuenta; RECHAZADA: error */
+        enum Estado { VALIDA, YA_EXISTE, RECHAZADA }
+
+        static final Comprobacion VALIDA = new Comprobacion(Estado.VALIDA, null);
+        static final Comprobacion YA_EXISTE = new Comprobacion(Estado.YA_EXISTE, null);
+
+        static Comprobacion rechazada(String motivo) {
+            return new Comprobacion(Estado.RECHAZADA, motivo);
+        }
+    }
+
+    /**
+     * Tablas que se pueden importar y exportar. Los campos son los nombres de las columnas
+     * del CSV (o las claves del JSON) y el primero es siempre el ID.
+     */
+    private enum Tabla {
+        MESA("Mesa", "Mesa", true,
+                new String[] { "idMesa", "numComensales", "reserva" },
+                new String[] { "idMesa", "numComensales", "reserva" },
+                new String[] { "e.idMesa", "e.numComensales", "e.reserva" },
+                new Tipo[] { Tipo.ENTERO, Tipo.ENTERO, Tipo.ENTERO }),
+        PRODUCTO("Producto", "Productos", false,
+                new String[] { "idProducto", "nombre", "precio" },
+                new String[] { "idProducto", "Denominacion", "Precio" },
+                new String[] { "e.idProducto", "e.nombre", "e.precio" },
+                new Tipo[] { Tipo.ENTERO, Tipo.TEXTO, Tipo.DECIMAL }),
+        FACTURA("Factura", "Factura", true,
+                new String[] { "idFactura", "idMesa", "tipoPago", "importe", "fecha" },
+                new String[] { "idFactura", "idMesa", "tipoPago", "Importe", "fecha" },
+                new String[] { "e.idFactura", "e.mesa.idMesa", "e.tipoPago", "e.importe", "e.fecha" },
+                new Tipo[] { Tipo.ENTERO, Tipo.ENTERO, Tipo.TEXTO, Tipo.DECIMAL, Tipo.FECHA }),
+        PEDIDO("Pedido", "Pedido", false,
+                new String[] { "idPedido", "idFactura", "idProducto", "cantidad", "precio" },
+                new String[] { "idPedido", "idFactura", "idProducto", "cantidad", "precio" },
+                new String[] { "e.idPedido", "e.factura.idFactura", "e.producto.idProducto", "e.cantidad", "e.precio" },
+                new Tipo[] { Tipo.ENTERO, Tipo.ENTERO, Tipo.ENTERO, Tipo.ENTERO, Tipo.DECIMAL });
+
+        /** Nombre de la entidad en HQL */
+        final String entidad;
+        /** Nombre de la tabla en la base de datos */
+        final String tablaSql;
+        /** true si la tabla tiene columna version (bloqueo optimista) */
+        final boolean versionada;
+        /** Nombres de los campos en el fichero */
+        final String[] campos;
+        /** Columnas SQL de cada campo */
+        final String[] columnas;
+        /** Ruta HQL de cada campo para exportar */
+        final String[] rutas;
+        /** Tipo de cada campo */
+        final Tipo[] tipos;
+
+        Tabla(String entidad, String tablaSql, boolean versionada,
+                String[] campos, String[] columnas, String[] rutas, Tipo[] tipos) {
+            this.entidad = entidad;
+            this.tablaSql = tablaSql;
+            this.versionada = versionada;
+            this.campos = campos;
+            this.columnas = columnas;
+            this.rutas = rutas;
+            this.tipos = tipos;
+        }
+
+        /**
+         * @param campo posición del campo
+         * @return tabla a la que apunta el campo (clave ajena), o null si no es clave ajena
+         */
+        Tabla padre(int campo) {
+            return switch (this) {
+                case FACTURA -> campo == 1 ? MESA : null;
+                case PEDIDO -> campo == 1 ? FACTURA : campo == 2 ? PRODUCTO : null;
+                default -> null;
+            };
+        }
+
+        /**
+         * @param campo posición del campo
+         * @return true si el campo puede faltar o venir vacío (se guarda NULL): las fechas y el
+         *         precio de los pedidos, que los ficheros anteriores a ese campo no traen
+         */
+        boolean opcional(int campo) {
+            return tipos[campo] == Tipo.FECHA || this == PEDIDO && campo == 4;
+        }
+
+        /**
+         * @return INSERT con todas las columnas (la versión empieza en 0)
+         */
+        String insert() {
+            String[] parametros = new String[columnas.length];
+            Arrays.fill(parametros, "?");
+            return "INSERT INTO " + tablaSql + " (" + String.join(", ", columnas) + (versionada ? ", version" : "")
+                    + ") VALUES (" + String.join(", ", parametros) + (versionada ? ", 0" : "") + ")";
+        }
+
+        /**
+         * @return consulta HQL que devuelve los campos de cada fila ordenadas por ID
+         */
+        String consulta() {
+            return "SELECT " + String.join(", ", rutas) + " FROM " + entidad + " e ORDER BY " + rutas[0];
+        }
+
+        static Tabla de(String nombre) {
+            for (Tabla tabla : values()) {
+                if (tabla.entidad.equalsIgnoreCase(nombre)) return tabla;
+            }
+            throw new IllegalArgumentException("Tabla no válida: " + nombre + ". Opciones: Mesa, Producto, Factura, Pedido");
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Uso: ImportarExportar (importar|exportar) (Mesa|Producto|Factura|Pedido) fichero.(csv|jsonl)");
+            return;
+        }
+        try {
+            Tabla tabla = Tabla.de(args[1]);
+            Path fichero = Paths.get(args[2]);
+            switch (args[0].toLowerCase()) {
+                case "importar" -> importar(tabla, fichero);
+                case "exportar" -> exportar(tabla, fichero);
+                default -> System.out.println("✗ Operación no válida: " + args[0]);
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println("✗ " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("✗ Error con el fichero: " + e.getMessage());
+        } finally {
+            HibernateUtil.shutdown();
+        }
+    }
+
+    // ==================== IMPORTAR ====================
+
+    /**
+     * Importa un fichero en una tabla.
+     *
+     * @param tabla tabla de destino
+     * @param fichero fichero CSV (con cabecera) o JSON lines
+     * @throws IOException si no se puede leer el fichero
+     */
+    private static void importar(Tabla tabla, Path fichero) throws IOException {
+        SessionFactory factory = HibernateUtil.getSessionFactory();
+
+        // IDs existentes de la propia tabla (para saltar duplicados) y de las tablas padre
+        BitSet existentes = cargarIds(factory, tabla);
+        BitSet[] padres = new BitSet[tabla.campos.length];
+        for (int i = 0; i < tabla.campos.length; i++) {
+            Tabla padre = tabla.padre(i);
+            if (padre != null) padres[i] = cargarIds(factory, padre);
+        }
+        Calendar zonaJdbc = zonaJdbc(factory);
+
+        long[] contadores = new long[4]; // leídas, insertadas, rechazadas, ya existentes
+        // Facturas a las que se añaden pedidos: solo hay que recalcular sus totales
+        BitSet facturasAfectadas = new BitSet();
+        long inicio = System.nanoTime();
+
+        try (Lector lector = abrirLector(fichero, tabla);
+                Session session = factory.openSession()) {
+            session.doWork(conexion -> {
+                boolean autoCommit = conexion.getAutoCommit();
+                conexion.setAutoCommit(false);
+                try (PreparedStatement insert = conexion.prepareStatement(tabla.insert())) {
+                    int enLote = 0;
+                    String[] fila;
+                    while ((fila = lector.siguiente()) != null) {
+                        contadores[0]++;
+                        Comprobacion comprobacion = preparar(insert, tabla, fila, existentes, padres, zonaJdbc);
+                        if (comprobacion.estado() == Comprobacion.Estado.YA_EXISTE) {
+                            contadores[3]++;
+                        } else if (comprobacion.estado() == Comprobacion.Estado.RECHAZADA) {
+                            if (contadores[2]++ < RECHAZOS_MOSTRADOS) {
+                                System.out.println("✗ Línea " + lector.linea() + ": " + comprobacion.motivo());
+                            }
+                        } else {
+                            insert.addBatch();
+                            if (tabla == Tabla.PEDIDO) facturasAfectadas.set(Integer.parseInt(fila[1].trim()));
+                            if (++enLote == FILAS_POR_LOTE) {
+                                contadores[1] += confirmarLote(conexion, insert);
+                                enLote = 0;
+                            }
+                        }
+                        if (contadores[0] % INFORME_CADA == 0) {
+                            informar("  ... leídas", contadores[0], inicio);
+                        }
+                    }
+                    if (enLote > 0) contadores[1] += confirmarLote(conexion, insert);
+
+                } catch (SQLException e) {
+                    conexion.rollback();
+                    throw e;
+                } catch (IOException e) {
+                    conexion.rollback();
+                    throw new SQLException("Error al leer el fichero: " + e.getMessage(), e);
+                } finally {
+                    conexion.setAutoCommit(autoCommit);
+                }
+            });
+        } catch (RuntimeException e) {
+            System.out.println("✗ Importación interrumpida: " + e.getMessage());
+            System.out.println("  Se confirmaron " + contadores[1] + " filas; al repetirla se saltarán.");
+        }
+
+        // Las filas se han insertado por JDBC: Hibernate no sabe nada de ellas
+        HibernateUtil.sincronizarGeneradoresId(factory);
+        factory.getCache().evictAllRegions();
+        // Los pedidos insertados por JDBC no han sumado nada al total de sus facturas;
+        // los que llegan sin precio toman el precio actual de su producto
+        if (!facturasAfectadas.isEmpty()) {
+            RestauranteCRUDHibernate.recalcularTotales(facturasAfectadas.stream().boxed().toList());
+        }
+
+        informar("✓ Importadas " + contadores[1] + " filas en " + tabla.entidad + " de", contadores[0], inicio);
+        if (contadores[3] > 0) {
+            System.out.println("  Saltadas porque su ID ya existía: " + contadores[3]);
+        }
+        if (contadores[2] > 0) {
+            System.out.println("✗ Rechazadas: " + contadores[2]
+                    + (contadores[2] > RECHAZOS_MOSTRADOS ? " (solo se muestran las " + RECHAZOS_MOSTRADOS + " primeras)" : ""));
+        }
+    }
+
+    /**
+     * Comprueba una fila y pasa sus valores a los parámetros del INSERT.
+     *
+     * @return si la fila es válida, ya existía o se rechaza (con el motivo)
+     */
+    private static Comprobacion preparar(PreparedStatement insert, Tabla tabla, String[] fila,
+            BitSet existentes, BitSet[] padres, Calendar zonaJdbc) throws SQLException {
+        try {
+            for (int i = 0; i < tabla.campos.length; i++) {
+                String valor = fila[i];
+                boolean vacio = valor == null || valor.isBlank();
+                if (vacio && !tabla.opcional(i)) {
+                    return Comprobacion.rechazada("falta el campo " + tabla.campos[i]);
+                }
+                switch (tabla.tipos[i]) {
+                    case ENTERO -> {
+                        int numero = Integer.parseInt(valor.trim());
+                        if (i == 0 && numero <= 0) return Comprobacion.rechazada("ID no válido (" + numero + ")");
+                        if (i == 0 && existentes.get(numero)) return Comprobacion.YA_EXISTE;
+                        if (padres[i] != null && (numero <= 0 || !padres[i].get(numero))) {
+                            return Comprobacion.rechazada("no existe " + tabla.padre(i).entidad + " con ID " + numero);
+                        }
+                        insert.setInt(i + 1, numero);
+                    }
+                    case DECIMAL -> {
+                        if (vacio) insert.setNull(i + 1, Types.DOUBLE);
+                        else insert.setDouble(i + 1, Double.parseDouble(valor.trim()));
+                    }
+                    case TEXTO -> insert.setString(i + 1, valor);
+                    case FECHA -> {
+                        if (vacio) insert.setNull(i + 1, Types.TIMESTAMP);
+                        else insert.setTimestamp(i + 1, Timestamp.valueOf(LocalDateTime.parse(valor.trim())), zonaJdbc);
+                    }
+                }
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return Comprobacion.rechazada("valor no válido (" + e.getMessage() + ")");
+        }
+        // Duplicados dentro del propio fichero
+        existentes.set(Integer.parseInt(fila[0].trim()));
+        return Comprobacion.VALIDA;
+    }
+
+    /**
+     * Envía el lote pendiente y lo confirma.
+     *
+     * @return filas insertadas
+     */
+    private static int confirmarLote(Connection conexion, PreparedStatement insert) throws SQLException {
+        int filas = insert.executeBatch().length;
+        conexion.commit();
+        return filas;
+    }
+
+    /**
+     * Carga los IDs de una tabla en un BitSet recorriéndola con un cursor.
+     *
+     * @param factory SessionFactory
+     * @param tabla tabla cuyos IDs se cargan
+     * @return BitSet con un bit a 1 por cada ID existente
+     */
+    private static BitSet cargarIds(SessionFactory factory, Tabla tabla) {
+        BitSet ids = new BitSet();
+        try (StatelessSession session = factory.openStatelessSession();
+                ScrollableResults<Integer> resultados = session
+                        .createSelectionQuery("SELECT " + tabla.rutas[0] + " FROM " + tabla.entidad + " e", Integer.class)
+                        .setFetchSize(RestauranteCRUDHibernate.TAMANO_FETCH)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (resultados.next()) {
+                ids.set(resultados.get());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Calendario de la zona horaria JDBC (hibernate.jdbc.time_zone), para guardar las fechas
+     * igual que las guarda Hibernate.
+     *
+     * @return calendario de la zona configurada, o de la zona del sistema si no hay ninguna
+     */
+    private static Calendar zonaJdbc(SessionFactory factory) {
+        Object zona = factory.getProperties().get("hibernate.jdbc.time_zone");
+        return zona == null ? Calendar.getInstance() : Calendar.getInstance(TimeZone.getTimeZone(zona.toString()));
+    }
+
+    // ==================== EXPORTAR ====================
+
+    /**
+     * Exporta una tabla a un fichero.
+     *
+     * @param tabla tabla de origen
+     * @param fichero fichero CSV o JSON lines (se sobrescribe)
+     * @throws IOException si no se puede escribir el fichero
+     */
+    private static void exportar(Tabla tabla, Path fichero) throws IOException {
+        SessionFactory factory = HibernateUtil.getSessionFactory();
+        long filas = 0;
+        long inicio = System.nanoTime();
+
+        try (StatelessSession session = factory.openStatelessSession();
+                Escritor escritor = abrirEscritor(fichero, tabla);
+                ScrollableResults<Object[]> resultados = session
+                        .createSelectionQuery(tabla.consulta(), Object[].class)
+                        .setFetchSize(RestauranteCRUDHibernate.TAMANO_FETCH)
+                        .setReadOnly(true)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (resultados.next()) {
+                escritor.escribir(resultados.get());
+                if (++filas % INFORME_CADA == 0) {
+                    informar("  ... exportadas", filas, inicio);
+                }
+            }
+        }
+        informar("✓ Exportadas de " + tabla.entidad + " a " + fichero + ":", filas, inicio);
+    }
+
+    /**
+     * Muestra un número de filas con la velocidad desde el inicio.
+     */
+    private static void informar(String mensaje, long filas, long inicio) {
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("%s %d filas en %.1f s (%.0f filas/s)%n", mensaje, filas, segundos,
+                segundos == 0 ? 0 : filas / segundos);
+    }
+
+    // ==================== FORMATOS ====================
+
+    /**
+     * @return true si el fichero es JSON lines (.jsonl, .ndjson o .json), false si es CSV
+     */
+    private static boolean esJson(Path fichero) {
+        String nombre = fichero.getFileName().toString().toLowerCase();
+        return nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson") || nombre.endsWith(".json");
+    }
+
+    private static BufferedReader abrirLectura(Path fichero) throws IOException {
+        FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ);
+        return new BufferedReader(Channels.newReader(canal, StandardCharsets.UTF_8), TAMANO_BUFFER);
+    }
+
+    private static BufferedWriter abrirEscritura(Path fichero) throws IOException {
+        FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), TAMANO_BUFFER);
+    }
+
+    private static Lector abrirLector(Path fichero, Tabla tabla) throws IOException {
+        return esJson(fichero) ? new LectorJson(abrirLectura(fichero), tabla) : new LectorCsv(abrirLectura(fichero), tabla);
+    }
+
+    private static Escritor abrirEscritor(Path fichero, Tabla tabla) throws IOException {
+        return esJson(fichero) ? new EscritorJson(abrirEscritura(fichero), tabla) : new EscritorCsv(abrirEscritura(fichero), tabla);
+    }
+
+    /**
+     * Lee un fichero fila a fila.
+     */
+    private interface Lector extends Closeable {
+
+        /**
+         * @return valores de la siguiente fila en el orden de Tabla.campos (null si falta),
+         *         o null al llegar al final
+         */
+        String[] siguiente() throws IOException;
+
+        /**
+         * @return número de línea de la última fila leída
+         */
+        long linea();
+    }
+
+    /**
+     * Escribe un fichero fila a fila.
+     */
+    private interface Escritor extends Closeable {
+
+        /**
+         * @param fila valores en el orden de Tabla.campos
+         */
+        void escribir(Object[] fila) throws IOException;
+    }
+
+    /**
+     * CSV con cabecera. Las columnas se buscan por nombre, así que pueden venir en cualquier
+     * orden y las que sobran se ignoran. Los valores pueden ir entre comillas dobles
+     * (con "" para una comilla); entre comillas pueden llevar saltos de línea, como los
+     * escribe EscritorCsv.
+     */
+    private static class LectorCsv implements Lector {
+
+        private final BufferedReader lector;
+        private final int[] posiciones;
+        /** Líneas leídas del fichero */
+        private long lineas = 1;
+        /** Línea en la que empieza la última fila leída */
+        private long linea = 1;
+
+        LectorCsv(BufferedReader lector, Tabla tabla) throws IOException {
+            this.lector = lector;
+            String cabecera = lector.readLine();
+            if (cabecera == null) throw new IOException("el fichero está vacío");
+            List<String> columnas = partir(cabecera.replace("\uFEFF", ""));
+
+            posiciones = new int[tabla.campos.length];
+            for (int i = 0; i < tabla.campos.length; i++) {
+                posiciones[i] = -1;
+                for (int j = 0; j < columnas.size(); j++) {
+                    if (columnas.get(j).trim().equalsIgnoreCase(tabla.campos[i])) posiciones[i] = j;
+                }
+                if (posiciones[i] == -1 && !tabla.opcional(i)) {
+                    lector.close();
+                    throw new IllegalArgumentException("Falta la columna " + tabla.campos[i] + " en la cabecera."
+                            + " Columnas: " + String.join(",", tabla.campos));
+                }
+            }
+        }
+
+        @Override
+        public String[] siguiente() throws IOException {
+            String texto;
+            do {
+                texto = lector.readLine();
+                lineas++;
+                if (texto == null) return null;
+            } while (texto.isBlank());
+            linea = lineas;
+
+            // Con las comillas abiertas el valor sigue en la línea siguiente
+            while (comillasAbiertas(texto)) {
+                String resto = lector.readLine();
+                if (resto == null) throw new IOException("comillas sin cerrar en la fila de la línea " + linea);
+                lineas++;
+                texto = texto + "\n" + resto;
+            }
+
+            List<String> valores = partir(texto);
+            String[] fila = new String[posiciones.length];
+            for (int i = 0; i < posiciones.length; i++) {
+                fila[i] = posiciones[i] >= 0 && posiciones[i] < valores.size() ? valores.get(posiciones[i]) : null;
+            }
+            return fila;
+        }
+
+        @Override
+        public long linea() {
+            return linea;
+        }
+
+        @Override
+        public void close() throws IOException {
+            lector.close();
+        }
+
+        /**
+         * @return true si el texto tiene un número impar de comillas, es decir, si acaba
+         *         dentro de un valor entre comillas ("" cuenta como dos)
+         */
+        static boolean comillasAbiertas(String texto) {
+            boolean abiertas = false;
+            for (int i = 0; i < texto.length(); i++) {
+                if (texto.charAt(i) == '"') abiertas = !abiertas;
+            }
+            return abiertas;
+        }
+
+        /**
+         * Separa una fila CSV en valores respetando las comillas.
+         */
+        static List<String> partir(String texto) {
+            List<String> valores = new ArrayList<>();
+            StringBuilder actual = new StringBuilder();
+            boolean comillas = false;
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                if (comillas) {
+                    if (c == '"' && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        comillas = false;
+                    } else {
+                        actual.append(c);
+                    }
+                } else if (c == '"') {
+                    comillas = true;
+                } else if (c == ',') {
+                    valores.add(actual.toString());
+                    actual.setLength(0);
+                } else {
+                    actual.append(c);
+                }
+            }
+            valores.add(actual.toString());
+            return valores;
+        }
+    }
+
+    /**
+     * JSON lines: un objeto por fila con los campos de la tabla como claves.
+     * Se lee con el parser en streaming de Jackson, sin crear un árbol por objeto.
+     */
+    private static class LectorJson implements Lector {
+
+        private static final JsonFactory FABRICA = new JsonFactory();
+
+        private final JsonParser parser;
+        private final Tabla tabla;
+        private long linea;
+
+        LectorJson(BufferedReader lector, Tabla tabla) throws IOException {
+            this.parser = FABRICA.createParser(lector);
+            this.tabla = tabla;
+        }
+
+        @Override
+        public String[] siguiente() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null) return null;
+            linea = parser.currentLocation().getLineNr();
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("se esperaba un objeto JSON en la línea " + linea);
+            }
+
+            String[] fila = new String[tabla.campos.length];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String nombre = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                int posicion = posicion(nombre);
+                if (valor == JsonToken.START_OBJECT || valor == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                } else if (posicion >= 0 && valor != JsonToken.VALUE_NULL) {
+                    fila[posicion] = parser.getText();
+                }
+            }
+            return fila;
+        }
+
+        private int posicion(String nombre) {
+            for (int i = 0; i < tabla.campos.length; i++) {
+                if (tabla.campos[i].equalsIgnoreCase(nombre)) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public long linea() {
+            return linea;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    /**
+     * CSV con cabecera; los textos con comas, comillas o saltos de línea van entre comillas.
+     */
+    private static class EscritorCsv implements Escritor {
+
+        private final BufferedWriter escritor;
+
+        EscritorCsv(BufferedWriter escritor, Tabla tabla) throws IOException {
+            this.escritor = escritor;
+            escritor.write(String.join(",", tabla.campos));
+            escritor.newLine();
+        }
+
+        @Override
+        public void escribir(Object[] fila) throws IOException {
+            for (int i = 0; i < fila.length; i++) {
+                if (i > 0) escritor.write(',');
+                if (fila[i] == null) continue;
+                String valor = fila[i].toString();
+                if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                        || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+                    valor = '"' + valor.replace("\"", "\"\"") + '"';
+                }
+                escritor.write(valor);
+            }
+            escritor.newLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            escritor.close();
+        }
+    }
+
+    /**
+     * JSON lines escrito con el generador en streaming de Jackson.
+     */
+    private static class EscritorJson implements Escritor {
+
+        private static final JsonFactory FABRICA = new JsonFactory();
+
+        private final JsonGenerator generador;
+        private final Tabla tabla;
+
+        EscritorJson(BufferedWriter escritor, Tabla tabla) throws IOException {
+            this.generador = FABRICA.createGenerator(escritor);
+            this.generador.setRootValueSeparator(new SerializedString("\n"));
+            this.tabla = tabla;
+        }
+
+        @Override
+        public void escribir(Object[] fila) throws IOException {
+            generador.writeStartObject();
+            for (int i = 0; i < fila.length; i++) {
+                String campo = tabla.campos[i];
+                Object valor = fila[i];
+                if (valor == null) generador.writeNullField(campo);
+                else if (valor instanceof Integer entero) generador.writeNumberField(campo, entero);
+                else if (valor instanceof Double decimal) generador.writeNumberField(campo, decimal);
+                else generador.writeStringField(campo, valor.toString());
+            }
+            generador.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generador.writeRaw('\n');
+            generador.close();
+        }
+    }
+}
@@ -1,22 +1,56 @@
 package principal;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 
+import conexion.EstadisticasCache;
 import conexion.HibernateUtil;
+import conexion.MetricasPool;
+import conexion.MetricasRestaurante;
+import crud.ColaPedidos;
+import crud.EjecutorReintentos;
+import crud.InformesRestaurante;
 import crud.RestauranteCRUDHibernate;
+import dto.LineaCuenta;
+import dto.LineaPedido;
+import dto.Pagina;
+import dto.Vista;
+import entidades.Factura;
+import entidades.Pedido;
 
 public class PrincipalHibernate {
 
     /** Scanner para leer datos desde consola */
     private static final Scanner sc = new Scanner(System.in);
 
+    /** Registros que se muestran en cada página de los listados */
+    private static final int TAMANO_PAGINA = 20;
+
     public static void main(String[] args) {
+        // Modo servidor para varios terminales: --servidor [puerto] [--diferido]
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            List<String> opciones = List.of(args);
+            if (opciones.contains("--diferido")) ColaPedidos.iniciar();
+            iniciarServidor(args.length > 1 && !args[1].startsWith("--")
+                    ? Integer.parseInt(args[1]) : ServidorPedidos.PUERTO_POR_DEFECTO);
+            return;
+        }
+
         // Opción seleccionada por el usuario
         int opc;
 
+        // La SessionFactory se crea en segundo plano mientras se muestra el menú
+        HibernateUtil.precalentar();
+        // Si el programa se cerró con pedidos en la cola, se terminan de escribir
+        ColaPedidos.recuperarPendientes();
+
         do {
             mostrarMenu(); // Mostramos el menú principal
             System.out.print("Introduce una opción --> ");
@@ -33,8 +67,19 @@ public class PrincipalHibernate {
                 case 7 -> gestionModificar();
                 case 8 -> gestionBorrar();
                 case 9 -> gestionEliminarTablas();
+                case 10 -> gestionInsertarPedidosLote();
+                case 11 -> gestionEstadisticasCache();
+                case 12 -> gestionVerFactura();
+                case 13 -> gestionInformes();
+                case 14 -> gestionMetricasPool();
+                case 15 -> gestionOperacionesMasivas();
+                case 16 -> gestionMetricas();
+                case 17 -> gestionCerrarMesa();
+                case 18 -> gestionEscrituraDiferida();
+                case 19 -> gestionRecalcularTotales();
                 case 0 -> {
                     System.out.println("Saliendo del programa...");
+                    ColaPedidos.detener(30);
                     HibernateUtil.shutdown();
                 }
                 default -> System.out.println("Opción no válida.");
@@ -45,6 +90,28 @@ public class PrincipalHibernate {
         sc.close(); // Cerramos Scanner
     }
 
+    /**
+     * Arranca el servidor de pedidos y lo mantiene hasta que se detiene el proceso (Ctrl+C).
+     * Al detenerse muestra las estadísticas finales y cierra Hibernate.
+     *
+     * @param puerto puerto TCP en el que escuchar
+     */
+    public static void iniciarServidor(int puerto) {
+        ServidorPedidos servidor = new ServidorPedidos(puerto);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.detener();
+            ColaPedidos.detener(30);
+            System.out.println("Estadísticas finales: " + servidor.estadisticas());
+            HibernateUtil.shutdown();
+        }));
+
+        try {
+            servidor.iniciar();
+        } catch (IOException e) {
+            System.out.println("✗ No se pudo iniciar el servidor: " + e.getMessage());
+        }
+    }
+
     /**
      * Muestra el menú principal con todas las opciones disponibles
      */
@@ -59,6 +126,16 @@ public class PrincipalHibernate {
         System.out.println("7. Modificar");
         System.out.println("8. Borrar");
         System.out.println("9. Eliminar Tabla (DROP)");
+        System.out.println("10. Insertar Pedidos en lote");
+        System.out.println("11. Estadísticas de caché");
+        System.out.println("12. Ver factura con pedidos");
+        System.out.println("13. Informes de ingresos");
+        System.out.println("14. Métricas del pool de conexiones");
+        System.out.println("15. Operaciones masivas");
+        System.out.println("16. Métricas de consultas y métodos");
+        System.out.println("17. Cerrar mesa (cobrar)");
+        System.out.println("18. Escritura diferida de pedidos");
+        System.out.println("19. Recalcular totales de facturas");
         System.out.println("0. Salir");
         System.out.println("====================================");
     }
@@ -146,7 +223,224 @@ public class PrincipalHibernate {
         int cantidad = sc.nextInt();
         sc.nextLine();
 
-        RestauranteCRUDHibernate.insertarPedido(idFactura, idProducto, cantidad);
+        if (ColaPedidos.encolar(idFactura, idProducto, cantidad)) {
+            System.out.println("✓ Pedido encolado (se guardará en segundo plano)");
+        } else {
+            RestauranteCRUDHibernate.insertarPedido(idFactura, idProducto, cantidad);
+        }
+    }
+
+    /**
+     * Gestiona la inserción de varios pedidos de una misma factura en una sola transacción.
+     * Solicita el ID de factura y después productos y cantidades hasta dejar el ID vacío.
+     */
+    public static void gestionInsertarPedidosLote() {
+        System.out.println("\n----- INSERTAR PEDIDOS EN LOTE -----");
+        System.out.println("Facturas disponibles:");
+        System.out.println(RestauranteCRUDHibernate.listar("Factura", null, null));
+        System.out.print("ID de Factura: ");
+        int idFactura = sc.nextInt();
+        sc.nextLine();
+
+        System.out.println("\nProductos disponibles:");
+        System.out.println(RestauranteCRUDHibernate.listar("Producto", null, null));
+
+        List<LineaPedido> lineas = new ArrayList<>();
+        while (true) {
+            System.out.print("ID de Producto (Enter para terminar): ");
+            String idProductoStr = sc.nextLine();
+            if (idProductoStr.isEmpty()) break;
+
+            System.out.print("Cantidad: ");
+            int cantidad = sc.nextInt();
+            sc.nextLine();
+
+            lineas.add(new LineaPedido(idFactura, Integer.parseInt(idProductoStr), cantidad));
+        }
+
+        if (lineas.isEmpty()) {
+            System.out.println("No se ha introducido ningún pedido.");
+            return;
+        }
+
+        RestauranteCRUDHibernate.insertarPedidos(lineas);
+    }
+
+    /**
+     * Cierra una mesa: pide los productos consumidos y crea la factura con sus pedidos
+     * en una sola operación. El importe se calcula con los precios de los productos.
+     */
+    public static void gestionCerrarMesa() {
+        System.out.println("\n----- CERRAR MESA -----");
+        System.out.print("ID de Mesa: ");
+        int idMesa = sc.nextInt();
+        sc.nextLine();
+
+        System.out.print("Tipo de pago (Efectivo/Tarjeta): ");
+        String tipoPago = sc.nextLine();
+
+        List<LineaCuenta> lineas = new ArrayList<>();
+        while (true) {
+            System.out.print("ID de Producto (Enter para terminar): ");
+            String idProductoStr = sc.nextLine();
+            if (idProductoStr.isEmpty()) break;
+
+            System.out.print("Cantidad: ");
+            int cantidad = sc.nextInt();
+            sc.nextLine();
+
+            lineas.add(new LineaCuenta(Integer.parseInt(idProductoStr), cantidad));
+        }
+
+        RestauranteCRUDHibernate.cerrarMesa(idMesa, tipoPago, lineas);
+    }
+
+    /**
+     * Activa o desactiva la escritura diferida de pedidos y muestra el estado de la cola
+     * (profundidad y retraso de escritura).
+     */
+    public static void gestionEscrituraDiferida() {
+        System.out.println("\n----- ESCRITURA DIFERIDA DE PEDIDOS -----");
+        System.out.println(ColaPedidos.estado());
+
+        if (ColaPedidos.activa()) {
+            System.out.print("\n¿Desactivar la escritura diferida? (s/n): ");
+            if (sc.nextLine().equalsIgnoreCase("s")) ColaPedidos.detener(30);
+        } else {
+            System.out.println("Con la escritura diferida, los pedidos se guardan en un diario local");
+            System.out.println("y se escriben en la base de datos en segundo plano, en lotes.");
+            System.out.println("Cada pedido se vuelca a disco antes de aceptarlo, así que no se pierde");
+            System.out.println("aunque se cierre el programa o se apague el equipo.");
+            System.out.print("\n¿Activar la escritura diferida? (s/n): ");
+            if (sc.nextLine().equalsIgnoreCase("s")) ColaPedidos.iniciar();
+        }
+    }
+
+    /**
+     * Recalcula en paralelo el total y el número de líneas de todas las facturas
+     * a partir de sus pedidos (por ejemplo, la primera vez tras añadir esas columnas).
+     */
+    public static void gestionRecalcularTotales() {
+        System.out.println("\n----- RECALCULAR TOTALES DE FACTURAS -----");
+        System.out.println("Los totales se mantienen solos al insertar, modificar o borrar pedidos.");
+        System.out.println("Recalcular usa los precios actuales de los productos.");
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        System.out.print("Número de hilos (Enter para " + procesadores + "): ");
+        String hilos = sc.nextLine().trim();
+
+        RestauranteCRUDHibernate.recalcularTotales(hilos.isEmpty() ? procesadores : Integer.parseInt(hilos));
+    }
+
+    /**
+     * Muestra los contadores de la caché de segundo nivel.
+     * Permite ponerlos a cero para medir un tramo concreto de uso.
+     */
+    public static void gestionEstadisticasCache() {
+        System.out.println("\n----- ESTADÍSTICAS DE CACHÉ -----");
+        System.out.println(EstadisticasCache.resumen());
+
+        System.out.print("\n¿Reiniciar contadores? (s/n): ");
+        if (sc.nextLine().equalsIgnoreCase("s")) {
+            EstadisticasCache.reiniciar();
+            System.out.println("✓ Contadores reiniciados.");
+        }
+    }
+
+    /**
+     * Muestra el estado del pool de conexiones y los tiempos de espera por conexión
+     */
+    public static void gestionMetricasPool() {
+        System.out.println("\n----- MÉTRICAS DEL POOL DE CONEXIONES -----");
+        System.out.println(MetricasPool.resumen());
+
+        System.out.print("\n¿Reiniciar contadores? (s/n): ");
+        if (sc.nextLine().equalsIgnoreCase("s")) {
+            MetricasPool.reiniciar();
+            System.out.println("✓ Contadores reiniciados.");
+        }
+    }
+
+    /**
+     * Muestra los tiempos de las consultas y de los métodos del CRUD, las consultas lentas
+     * y las sesiones/transacciones abiertas. Permite activar un volcado periódico por consola.
+     */
+    public static void gestionMetricas() {
+        System.out.println("\n----- MÉTRICAS DE CONSULTAS Y MÉTODOS -----");
+        // Las estadísticas se enlazan al crear la SessionFactory
+        HibernateUtil.getSessionFactory();
+        System.out.println(MetricasRestaurante.resumen());
+        System.out.println("Bloqueo optimista: " + EjecutorReintentos.resumen());
+
+        System.out.print("\nVolcado periódico cada N segundos (0 para detenerlo, Enter para no cambiar): ");
+        String segundos = sc.nextLine().trim();
+        if (!segundos.isEmpty()) {
+            int intervalo = Integer.parseInt(segundos);
+            if (intervalo > 0) MetricasRestaurante.iniciarVolcado(intervalo);
+            else MetricasRestaurante.detenerVolcado();
+        }
+
+        System.out.print("¿Reiniciar contadores? (s/n): ");
+        if (sc.nextLine().equalsIgnoreCase("s")) {
+            MetricasRestaurante.instancia().reiniciar();
+            EjecutorReintentos.reiniciar();
+            System.out.println("✓ Contadores reiniciados.");
+        }
+    }
+
+    /**
+     * Muestra una factura con su mesa y el detalle de sus pedidos.
+     * Toda la información se carga de una vez con obtenerFacturaCompleta.
+     */
+    public static void gestionVerFactura() {
+        System.out.println("\n----- VER FACTURA -----");
+        System.out.print("ID de Factura: ");
+        int idFactura = sc.nextInt();
+        sc.nextLine();
+
+        Factura factura = RestauranteCRUDHibernate.obtenerFacturaCompleta(idFactura);
+        if (factura == null) return;
+
+        System.out.println(factura);
+        System.out.println("Mesa: " + factura.getMesa());
+        System.out.println("Total de los pedidos: " + factura.getTotal() + " (" + factura.getNumLineas() + " líneas)");
+        if (factura.getPedidos().isEmpty()) {
+            System.out.println("La factura no tiene pedidos.");
+        }
+        for (Pedido pedido : factura.getPedidos()) {
+            System.out.println("  " + pedido.getCantidad() + " x " + pedido.getProducto().getNombre()
+                    + " (" + pedido.getPrecioUnitario() + ") = "
+                    + pedido.getCantidad() * pedido.getPrecioUnitario());
+        }
+    }
+
+    /**
+     * Muestra los informes de ingresos por mesa, por producto y por tipo de pago.
+     * Permite limitar las facturas a un rango de fechas.
+     */
+    public static void gestionInformes() {
+        System.out.println("\n----- INFORMES DE INGRESOS -----");
+        LocalDate desde, hasta;
+        try {
+            System.out.print("Desde (aaaa-mm-dd, Enter para no limitar): ");
+            String desdeStr = sc.nextLine().trim();
+            desde = desdeStr.isEmpty() ? null : LocalDate.parse(desdeStr);
+
+            System.out.print("Hasta (aaaa-mm-dd, Enter para no limitar): ");
+            String hastaStr = sc.nextLine().trim();
+            hasta = hastaStr.isEmpty() ? null : LocalDate.parse(hastaStr);
+        } catch (DateTimeParseException e) {
+            System.out.println("✗ Fecha no válida: " + e.getParsedString() + ". Usa el formato aaaa-mm-dd.");
+            return;
+        }
+
+        System.out.println("\n--- INGRESOS POR MESA ---");
+        InformesRestaurante.ingresosPorMesa(desde, hasta, 0, TAMANO_PAGINA).forEach(System.out::println);
+
+        System.out.println("\n--- VENTAS POR PRODUCTO ---");
+        InformesRestaurante.ventasPorProducto(desde, hasta, 0, TAMANO_PAGINA).forEach(System.out::println);
+
+        System.out.println("\n--- TOTALES POR TIPO DE PAGO ---");
+        InformesRestaurante.totalesPorTipoPago(desde, hasta, 0, TAMANO_PAGINA).forEach(System.out::println);
     }
 
     /**
@@ -191,7 +485,25 @@ public class PrincipalHibernate {
         }
 
         System.out.println("\n----- " + tabla.toUpperCase() + " -----");
-        System.out.println(RestauranteCRUDHibernate.listar(tabla, campo, valor));
+
+        // Mostramos página a página sin cargar la tabla entera en memoria
+        int ultimoId = 0;
+        int mostrados = 0;
+        while (true) {
+            Pagina<Vista> pagina = RestauranteCRUDHibernate.listarPagina(tabla, campo, valor, ultimoId, TAMANO_PAGINA);
+            pagina.filas().forEach(System.out::println);
+            mostrados += pagina.filas().size();
+
+            if (!pagina.hayMas()) break;
+
+            System.out.print("-- " + mostrados + " registros mostrados. ¿Ver la siguiente página? (s/n): ");
+            if (!sc.nextLine().equalsIgnoreCase("s")) break;
+            ultimoId = pagina.ultimoId();
+        }
+
+        if (mostrados == 0) {
+            System.out.println("No se encontraron registros.");
+        }
     }
 
     /**
@@ -252,9 +564,95 @@ public class PrincipalHibernate {
                 System.out.println("✗ Cambios deshechos.");
             }
 
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            if (EjecutorReintentos.esConflicto(e)) {
+                System.out.println("✗ Otro terminal ha modificado el registro mientras tanto. Vuelve a intentarlo.");
+            } else {
+                System.out.println("✗ Error al modificar: " + e.getMessage());
+            }
+        } finally {
+            if (session != null) session.close();
+        }
+    }
+
+    /**
+     * Gestiona las operaciones que modifican o borran muchos registros con una sola sentencia
+     */
+    public static void gestionOperacionesMasivas() {
+        System.out.println("\n----- OPERACIONES MASIVAS -----");
+        System.out.println("1. Cambiar precios de productos (%)");
+        System.out.println("2. Liberar mesas reservadas");
+        System.out.println("3. Cambiar tipo de pago de facturas");
+        System.out.println("4. Borrar pedidos de una factura");
+        System.out.print("Opción: ");
+        int opcion = sc.nextInt();
+        sc.nextLine();
+
+        Session session = null;
+        Transaction transaction = null;
+
+        try {
+            session = HibernateUtil.getSessionFactory().openSession();
+            transaction = session.beginTransaction();
+
+            int afectados = -1;
+
+            switch (opcion) {
+                case 1 -> {
+                    System.out.print("Porcentaje de cambio (ej. 5 o -10): ");
+                    double porcentaje = Double.parseDouble(sc.nextLine());
+                    System.out.print("Nombre contiene (Enter para todos): ");
+                    String nombre = sc.nextLine();
+                    System.out.print("Precio mínimo (Enter para no filtrar): ");
+                    String minimoStr = sc.nextLine();
+                    System.out.print("Precio máximo (Enter para no filtrar): ");
+                    String maximoStr = sc.nextLine();
+                    afectados = RestauranteCRUDHibernate.actualizarPrecios(session, 1 + porcentaje / 100,
+                            nombre.isEmpty() ? null : nombre,
+                            minimoStr.isEmpty() ? null : Double.parseDouble(minimoStr),
+                            maximoStr.isEmpty() ? null : Double.parseDouble(maximoStr));
+                }
+                case 2 -> {
+                    System.out.print("Número de comensales (Enter para todas): ");
+                    String comensalesStr = sc.nextLine();
+                    afectados = RestauranteCRUDHibernate.liberarMesas(session,
+                            comensalesStr.isEmpty() ? null : Integer.parseInt(comensalesStr));
+                }
+                case 3 -> {
+                    System.out.print("Tipo de pago actual: ");
+                    String actual = sc.nextLine();
+                    System.out.print("Nuevo tipo de pago: ");
+                    String nuevo = sc.nextLine();
+                    afectados = RestauranteCRUDHibernate.cambiarTipoPago(session, actual, nuevo);
+                }
+                case 4 -> {
+                    System.out.print("ID de la factura: ");
+                    int idFactura = sc.nextInt();
+                    sc.nextLine();
+                    afectados = RestauranteCRUDHibernate.borrarPedidosFactura(session, idFactura);
+                }
+                default -> System.out.println("Opción no válida.");
+            }
+
+            if (afectados <= 0) {
+                System.out.println("✗ No se modificó ningún registro.");
+                transaction.rollback();
+                return;
+            }
+
+            System.out.print("\n¿Confirmar cambios en " + afectados + " registros? (s/n): ");
+            if (sc.nextLine().equalsIgnoreCase("s")) {
+                transaction.commit();
+                System.out.println("✓ Cambios guardados.");
+            } else {
+                transaction.rollback();
+                System.out.println("✗ Cambios deshechos.");
+            }
+
         } catch (Exception e) {
             if (transaction != null) transaction.rollback();
-            System.out.println("✗ Error al modificar: " + e.getMessage());
+            System.out.println("✗ Error en la operación masiva: " + e.getMessage());
         } finally {
             if (session != null) session.close();
         }
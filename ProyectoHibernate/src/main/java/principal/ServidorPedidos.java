@@ -0,0 +1,367 @@
+package principal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import conexion.HibernateUtil;
+import crud.ColaPedidos;
+import crud.EjecutorReintentos;
+import crud.RestauranteCRUDHibernate;
+
+/**
+ * Modo servidor para que varios terminales de camareros metan comandas a la vez.
+ * Cada terminal se conecta por TCP y envía una orden por línea; el servidor responde
+ * con una línea (OK, ERROR ..., OCUPADO o las estadísticas).
+ *
+ * Órdenes:
+ *   MESA comensales reserva
+ *   FACTURA idMesa tipoPago importe
+ *   PEDIDO idFactura idProducto cantidad
+ *   CANTIDAD idPedido cantidad
+ *   RESERVA idMesa reserva
+ *   IMPORTE idFactura importe
+ *   STATS
+ *   SALIR
+ *
+ * Cada terminal se atiende en su propio hilo (virtual si la JVM es Java 21 o superior)
+ * con su propia Session, en la que se ejecutan MESA, FACTURA, PEDIDO y CANTIDAD
+ * (una transacción por orden). Para no saturar el pool de conexiones, solo puede haber tantas
+ * órdenes en curso como conexiones tiene el pool; si no queda hueco en ESPERA_PERMISO_MS
+ * se responde OCUPADO y el terminal puede reintentar.
+ * RESERVA e IMPORTE modifican entidades con versión y se ejecutan con EjecutorReintentos,
+ * así que si dos terminales cambian la misma mesa o factura a la vez ninguno pisa al otro.
+ * Esas dos no usan la Session del terminal: cada intento abre una nueva para volver a leer
+ * la versión actual sin entidades del intento fallido.
+ * Si la escritura diferida está activa (ColaPedidos), PEDIDO responde OK en cuanto el pedido
+ * queda en el diario local y se escribe en la base de datos en segundo plano.
+ */
+public class ServidorPedidos {
+
+    /** Puerto por defecto del servidor */
+    public static final int PUERTO_POR_DEFECTO = 5050;
+
+    /** Milisegundos que espera una orden a que haya una conexión libre antes de responder OCUPADO */
+    private static final long ESPERA_PERMISO_MS = 2000;
+
+    /** Latencias que se guardan para calcular los percentiles (las más recientes) */
+    private static final int MUESTRAS_LATENCIA = 10_000;
+
+    private final int puerto;
+    private final int capacidad;
+    private final Semaphore permisos;
+    private final ExecutorService ejecutor = crearEjecutor();
+    private final AtomicInteger terminales = new AtomicInteger();
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final long[] latencias = new long[MUESTRAS_LATENCIA];
+    private long muestras;
+    private final long inicio = System.nanoTime();
+    private volatile ServerSocket servidor;
+
+    /**
+     * Crea el servidor. La capacidad se toma del tamaño máximo del pool de conexiones.
+     *
+     * @param puerto puerto TCP en el que escuchar
+     */
+    public ServidorPedidos(int puerto) {
+        this.puerto = puerto;
+        this.capacidad = tamanoPool();
+        this.permisos = new Semaphore(capacidad, true);
+    }
+
+    /**
+     * Acepta terminales hasta que se llama a detener(). Bloquea el hilo que lo llama.
+     *
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public void iniciar() throws IOException {
+        try (ServerSocket socket = new ServerSocket(puerto)) {
+            servidor = socket;
+            System.out.println("✓ Servidor de pedidos escuchando en el puerto " + puerto
+                    + " (" + capacidad + " órdenes simultáneas como máximo)");
+
+            while (!socket.isClosed()) {
+                try {
+                    Socket cliente = socket.accept();
+                    ejecutor.execute(() -> atender(cliente));
+                } catch (SocketException e) {
+                    // detener() ha cerrado el socket
+                }
+            }
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+
+    /**
+     * Deja de aceptar terminales. Los que están conectados terminan su orden en curso.
+     */
+    public void detener() {
+        try {
+            if (servidor != null) servidor.close();
+        } catch (IOException e) {
+            System.out.println("✗ Error al cerrar el servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resume el rendimiento desde el arranque: órdenes por segundo y latencia
+     * (desde que llega la orden hasta que se responde, incluida la espera por el pool).
+     *
+     * @return String de una línea con las estadísticas
+     */
+    public String estadisticas() {
+        long[] copia;
+        synchronized (latencias) {
+            copia = Arrays.copyOf(latencias, (int) Math.min(muestras, MUESTRAS_LATENCIA));
+        }
+        Arrays.sort(copia);
+
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        long total = completadas.sum();
+        return String.format("terminales=%d completadas=%d errores=%d ocupado=%d en_curso=%d"
+                        + " ordenes/s=%.1f p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms | %s",
+                terminales.get(), total, errores.sum(), rechazadas.sum(), capacidad - permisos.availablePermits(),
+                total / segundos,
+                percentil(copia, 50) / 1e6, percentil(copia, 95) / 1e6, percentil(copia, 99) / 1e6,
+                copia.length == 0 ? 0 : copia[copia.length - 1] / 1e6,
+                EjecutorReintentos.resumen())
+                + (ColaPedidos.activa() ? " | cola: " + ColaPedidos.estado() : "");
+    }
+
+    /**
+     * Atiende a un terminal hasta que envía SALIR o cierra la conexión.
+     *
+     * @param cliente socket del terminal
+     */
+    private void atender(Socket cliente) {
+        terminales.incrementAndGet();
+        Session session = HibernateUtil.getSessionFactory().openSession();
+
+        try (cliente;
+                BufferedReader entrada = new BufferedReader(
+                        new InputStreamReader(cliente.getInputStream(), StandardCharsets.UTF_8));
+                PrintWriter salida = new PrintWriter(cliente.getOutputStream(), true, StandardCharsets.UTF_8)) {
+
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                String[] partes = linea.trim().split("\\s+");
+                String orden = partes[0].toUpperCase();
+
+                if (orden.isEmpty()) continue;
+                if (orden.equals("SALIR")) {
+                    salida.println("ADIOS");
+                    break;
+                }
+                if (orden.equals("STATS")) {
+                    salida.println(estadisticas());
+                    continue;
+                }
+
+                long t0 = System.nanoTime();
+                if (!permisos.tryAcquire(ESPERA_PERMISO_MS, TimeUnit.MILLISECONDS)) {
+                    rechazadas.increment();
+                    salida.println("OCUPADO");
+                    continue;
+                }
+
+                String respuesta;
+                try {
+                    respuesta = ejecutar(orden, partes, session);
+                } catch (Exception e) {
+                    // Tras un error de Hibernate la sesión no se puede reutilizar
+                    session.close();
+                    session = HibernateUtil.getSessionFactory().openSession();
+                    respuesta = "ERROR " + e.getMessage();
+                } finally {
+                    permisos.release();
+                }
+
+                registrar(System.nanoTime() - t0, respuesta.equals("OK"));
+                salida.println(respuesta);
+            }
+
+        } catch (IOException e) {
+            System.out.println("✗ Terminal desconectado: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            session.close();
+            terminales.decrementAndGet();
+        }
+    }
+
+    /**
+     * Ejecuta una orden con RestauranteCRUDHibernate.
+     *
+     * @param orden nombre de la orden en mayúsculas
+     * @param partes orden y argumentos
+     * @param session sesión del terminal
+     * @return OK, o ERROR con el motivo
+     */
+    private String ejecutar(String orden, String[] partes, Session session) {
+        boolean correcto;
+        try {
+            switch (orden) {
+                case "MESA" -> {
+                    comprobarArgumentos(partes, 2);
+                    int comensales = Integer.parseInt(partes[1]);
+                    int reserva = Integer.parseInt(partes[2]);
+                    correcto = enTransaccion(session, s -> RestauranteCRUDHibernate.insertarMesa(
+                            s, comensales, reserva));
+                }
+                case "FACTURA" -> {
+                    comprobarArgumentos(partes, 3);
+                    int idMesa = Integer.parseInt(partes[1]);
+                    double importe = Double.parseDouble(partes[3]);
+                    correcto = enTransaccion(session, s -> RestauranteCRUDHibernate.insertarFactura(
+                            s, idMesa, partes[2], importe));
+                }
+                case "PEDIDO" -> {
+                    comprobarArgumentos(partes, 3);
+                    int idFactura = Integer.parseInt(partes[1]);
+                    int idProducto = Integer.parseInt(partes[2]);
+                    int cantidad = Integer.parseInt(partes[3]);
+                    correcto = ColaPedidos.encolar(idFactura, idProducto, cantidad)
+                            || enTransaccion(session, s -> RestauranteCRUDHibernate.insertarPedido(
+                                    s, idFactura, idProducto, cantidad));
+                }
+                case "CANTIDAD" -> {
+                    comprobarArgumentos(partes, 2);
+                    int idPedido = Integer.parseInt(partes[1]);
+                    int cantidad = Integer.parseInt(partes[2]);
+                    correcto = enTransaccion(session, s -> RestauranteCRUDHibernate.modificarPedido(
+                            s, idPedido, cantidad));
+                }
+                case "RESERVA" -> {
+                    comprobarArgumentos(partes, 2);
+                    int idMesa = Integer.parseInt(partes[1]);
+                    int reserva = Integer.parseInt(partes[2]);
+                    correcto = EjecutorReintentos.ejecutar(s -> RestauranteCRUDHibernate.modificarMesa(
+                            s, idMesa, null, reserva));
+                }
+                case "IMPORTE" -> {
+                    comprobarArgumentos(partes, 2);
+                    int idFactura = Integer.parseInt(partes[1]);
+                    double importe = Double.parseDouble(partes[2]);
+                    correcto = EjecutorReintentos.ejecutar(s -> RestauranteCRUDHibernate.modificarFactura(
+                            s, idFactura, null, importe));
+                }
+                default -> {
+                    return "ERROR orden desconocida: " + orden;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return "ERROR formato: " + e.getMessage();
+        }
+        return correcto ? "OK" : "ERROR no se pudo completar la orden";
+    }
+
+    /**
+     * Ejecuta una operación en una transacción de la sesión del terminal.
+     * Se confirma si la operación devuelve true y se deshace si devuelve false. Después se
+     * vacía la sesión para que la siguiente orden no vea entidades de esta.
+     * Si el commit lanza una excepción, atender() cierra la sesión y abre otra.
+     *
+     * @param session sesión del terminal
+     * @param operacion operación a ejecutar con la sesión
+     * @return true si la operación terminó bien y se confirmó
+     */
+    private static boolean enTransaccion(Session session, Predicate<Session> operacion) {
+        Transaction transaction = session.beginTransaction();
+        boolean correcto = operacion.test(session);
+        if (correcto) transaction.commit();
+        else transaction.rollback();
+        session.clear();
+        return correcto;
+    }
+
+    /**
+     * Comprueba que una orden trae el número de argumentos esperado.
+     *
+     * @param partes orden y argumentos
+     * @param argumentos número de argumentos
+     */
+    private static void comprobarArgumentos(String[] partes, int argumentos) {
+        if (partes.length != argumentos + 1) {
+            throw new IllegalArgumentException(partes[0] + " espera " + argumentos + " argumentos");
+        }
+    }
+
+    /**
+     * Anota la latencia de una orden en el buffer circular.
+     *
+     * @param nanos duración de la orden
+     * @param correcta si la orden terminó bien
+     */
+    private void registrar(long nanos, boolean correcta) {
+        if (correcta) completadas.increment();
+        else errores.increment();
+        synchronized (latencias) {
+            latencias[(int) (muestras++ % MUESTRAS_LATENCIA)] = nanos;
+        }
+    }
+
+    /**
+     * Calcula un percentil sobre un array ordenado.
+     *
+     * @param ordenados valores ordenados de menor a mayor
+     * @param percentil percentil entre 0 y 100
+     * @return valor del percentil, o 0 si no hay valores
+     */
+    static long percentil(long[] ordenados, int percentil) {
+        if (ordenados.length == 0) return 0;
+        int indice = (int) Math.ceil(percentil / 100.0 * ordenados.length) - 1;
+        return ordenados[Math.max(0, indice)];
+    }
+
+    /**
+     * Lee el tamaño máximo del pool de conexiones de la configuración de Hibernate.
+     *
+     * @return conexiones máximas del pool (20 si no está configurado)
+     */
+    private static int tamanoPool() {
+        Object tamano = HibernateUtil.getSessionFactory().getProperties().get("hibernate.hikari.maximumPoolSize");
+        if (tamano == null) {
+            tamano = HibernateUtil.getSessionFactory().getProperties().get("hibernate.connection.pool_size");
+        }
+        return tamano == null ? 20 : Integer.parseInt(tamano.toString());
+    }
+
+    /**
+     * Crea el ejecutor de terminales: un hilo virtual por terminal si la JVM lo permite
+     * (Java 21 o superior) y, si no, un pool de hilos normales que crece según haga falta.
+     * Se busca por reflexión porque el proyecto compila para Java 17.
+     *
+     * @return ejecutor de terminales
+     */
+    private static ExecutorService crearEjecutor() {
+        try {
+            Method metodo = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            System.out.println("✓ Terminales atendidos con hilos virtuales");
+            return (ExecutorService) metodo.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Hilos virtuales no disponibles en esta JVM, se usan hilos normales");
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package principal;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simula N terminales de camareros contra ServidorPedidos para medir rendimiento y latencia.
+ * Cada terminal abre su conexión y envía órdenes PEDIDO seguidas, esperando la respuesta de cada una.
+ *
+ * Uso: java principal.SimuladorTerminales terminales pedidosPorTerminal idFactura idProducto [host] [puerto]
+ */
+public class SimuladorTerminales {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Uso: SimuladorTerminales terminales pedidosPorTerminal idFactura idProducto [host] [puerto]");
+            return;
+        }
+        int terminales = Integer.parseInt(args[0]);
+        int pedidos = Integer.parseInt(args[1]);
+        String orden = "PEDIDO " + args[2] + " " + args[3] + " 1";
+        String host = args.length > 4 ? args[4] : "localhost";
+        int puerto = args.length > 5 ? Integer.parseInt(args[5]) : ServidorPedidos.PUERTO_POR_DEFECTO;
+
+        LongAdder correctos = new LongAdder();
+        LongAdder ocupados = new LongAdder();
+        LongAdder errores = new LongAdder();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(terminales);
+        List<Future<long[]>> resultados = new ArrayList<>();
+
+        for (int t = 0; t < terminales; t++) {
+            resultados.add(ejecutor.submit(() -> {
+                long[] tiempos = new long[pedidos];
+                try (Socket socket = new Socket(host, puerto);
+                        BufferedReader entrada = new BufferedReader(
+                                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                        PrintWriter salidaSocket = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+                    salida.await();
+                    for (int i = 0; i < pedidos; i++) {
+                        long t0 = System.nanoTime();
+                        salidaSocket.println(orden);
+                        String respuesta = entrada.readLine();
+                        tiempos[i] = System.nanoTime() - t0;
+
+                        if ("OK".equals(respuesta)) correctos.increment();
+                        else if ("OCUPADO".equals(respuesta)) ocupados.increment();
+                        else errores.increment();
+                    }
+                    salidaSocket.println("SALIR");
+                    entrada.readLine();
+                }
+                return tiempos;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        salida.countDown();
+        long[] latencias = new long[terminales * pedidos];
+        int posicion = 0;
+        for (Future<long[]> resultado : resultados) {
+            long[] tiempos = resultado.get();
+            System.arraycopy(tiempos, 0, latencias, posicion, tiempos.length);
+            posicion += tiempos.length;
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        ejecutor.shutdown();
+
+        Arrays.sort(latencias);
+        System.out.printf("%d terminales x %d pedidos en %.2f s: %.1f pedidos/s%n",
+                terminales, pedidos, segundos, latencias.length / segundos);
+        System.out.printf("OK=%d OCUPADO=%d ERROR=%d%n", correctos.sum(), ocupados.sum(), errores.sum());
+        System.out.printf("Latencia (ida y vuelta): p50=%.2f ms  p95=%.2f ms  p99=%.2f ms  máx=%.2f ms%n",
+                ServidorPedidos.percentil(latencias, 50) / 1e6,
+                ServidorPedidos.percentil(latencias, 95) / 1e6,
+                ServidorPedidos.percentil(latencias, 99) / 1e6,
+                latencias[latencias.length - 1] / 1e6);
+
+        // Estadísticas vistas desde el servidor
+        try (Socket socket = new Socket(host, puerto);
+                BufferedReader entrada = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                PrintWriter salidaSocket = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            salidaSocket.println("STATS");
+            System.out.println("Servidor: " + entrada.readLine());
+            salidaSocket.println("SALIR");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package conexion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Comprueba que HibernateUtil nunca construye dos SessionFactory a la vez.
+ */
+class HibernateUtilTest {
+
+    private static final int HILOS = 16;
+
+    @Test
+    void llamadasConcurrentesCompartenUnaSolaSessionFactory() throws Exception {
+        HibernateUtil.shutdown();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<SessionFactory>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < HILOS; i++) {
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    return HibernateUtil.getSessionFactory();
+                }));
+            }
+            salida.countDown();
+
+            Map<SessionFactory, Boolean> distintas = new IdentityHashMap<>();
+            for (Future<SessionFactory> resultado : resultados) {
+                distintas.put(resultado.get(), true);
+            }
+            assertEquals(1, distintas.size());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void restartSustituyeLaSessionFactory() throws Exception {
+        SessionFactory anterior = HibernateUtil.precalentar().get();
+
+        HibernateUtil.restart();
+        SessionFactory nueva = HibernateUtil.getSessionFactory();
+
+        assertNotSame(anterior, nueva);
+        assertFalse(nueva.isClosed());
+    }
+}
@@ -0,0 +1,66 @@
+package crud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import entidades.Factura;
+import entidades.Producto;
+
+/**
+ * Comprueba que la escritura diferida no repite pedidos si el programa se cierra
+ * después de confirmar un lote pero antes de anotar el punto de control en el diario,
+ * y que los pedidos que la base de datos rechaza van al fichero de descartados.
+ */
+class ColaPedidosTest {
+
+    @TempDir
+    Path carpeta;
+
+    @AfterEach
+    void detenerCola() {
+        ColaPedidos.detener(10);
+        System.clearProperty(ColaPedidos.PROPIEDAD_DIARIO);
+    }
+
+    @Test
+    void repetirElDiarioSinPuntosDeControlNoDuplicaPedidos() throws Exception {
+        DatosPrueba.Ids ids = DatosPrueba.crear(1, new Producto("Caña", 2.0));
+        Path diario = carpeta.resolve("pedidos.diario");
+        System.setProperty(ColaPedidos.PROPIEDAD_DIARIO, diario.toString());
+
+        assertTrue(ColaPedidos.iniciar());
+        assertTrue(ColaPedidos.encolar(ids.factura(), ids.producto(0), 1));
+        assertTrue(ColaPedidos.encolar(ids.factura(), ids.producto(0), 2));
+        assertTrue(ColaPedidos.encolar(-1, ids.producto(0), 1));
+        ColaPedidos.detener(10);
+        assertTotales(ids.factura(), 3 * 2.0, 2);
+        assertTrue(Files.readString(carpeta.resolve("pedidos.diario.descartados")).startsWith("P 3 "));
+
+        // Como si el programa se hubiera cerrado antes de escribir las líneas C tras la cabecera
+        List<String> lineas = Files.readAllLines(diario);
+        List<String> sinPuntosControl = new ArrayList<>(lineas.subList(0, 2));
+        lineas.subList(2, lineas.size()).stream().filter(linea -> !linea.startsWith("C")).forEach(sinPuntosControl::add);
+        Files.write(diario, sinPuntosControl);
+
+        assertTrue(ColaPedidos.iniciar());
+        assertTrue(ColaPedidos.encolar(ids.factura(), ids.producto(0), 4));
+        ColaPedidos.detener(10);
+        assertTotales(ids.factura(), 7 * 2.0, 3);
+    }
+
+    private static void assertTotales(int idFactura, double total, int numLineas) {
+        Factura factura = RestauranteCRUDHibernate.obtenerFacturaCompleta(idFactura);
+        assertEquals(total, factura.getTotal(), 0.001);
+        assertEquals(numLineas, factura.getNumLineas());
+        assertEquals(numLineas, factura.getPedidos().size());
+    }
+}
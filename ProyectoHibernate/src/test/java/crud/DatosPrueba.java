@@ -0,0 +1,76 @@
+package crud;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import conexion.HibernateUtil;
+import entidades.Factura;
+import entidades.Mesa;
+import entidades.Producto;
+
+/**
+ * Datos de partida de los tests: una mesa con sus facturas y unos productos.
+ * Todos los tests comparten la misma base de datos H2 y no la vacían, así que cada test
+ * crea aquí sus propias filas y solo consulta las suyas por ID.
+ * Si cambia lo que hace falta para crear una mesa, una factura o un producto
+ * (por ejemplo una columna NOT NULL nueva), basta con cambiarlo aquí.
+ */
+final class DatosPrueba {
+
+    /**
+     * IDs de las filas creadas por crear()
+     *
+     * @param mesa ID de la mesa
+     * @param facturas IDs de las facturas, en el orden en que se crearon
+     * @param productos IDs de los productos, en el orden en que se pasaron
+     */
+    record Ids(int mesa, List<Integer> facturas, List<Integer> productos) {
+
+        /**
+         * @return ID de la primera factura
+         */
+        int factura() {
+            return facturas.get(0);
+        }
+
+        /**
+         * @param posicion posición del producto en la llamada a crear()
+         * @return ID del producto
+         */
+        int producto(int posicion) {
+            return productos.get(posicion);
+        }
+    }
+
+    private DatosPrueba() {
+    }
+
+    /**
+     * Crea en una transacción una mesa de 4 comensales reservada, numFacturas facturas
+     * vacías de esa mesa pagadas en efectivo y los productos indicados.
+     *
+     * @param numFacturas facturas que se crean
+     * @param productos productos nuevos (sin guardar) que se guardan
+     * @return IDs de todo lo creado
+     */
+    static Ids crear(int numFacturas, Producto... productos) {
+        return HibernateUtil.getSessionFactory().fromTransaction(session -> {
+            Mesa mesa = new Mesa(4, 1);
+            session.persist(mesa);
+
+            List<Integer> facturas = new ArrayList<>();
+            for (int i = 0; i < numFacturas; i++) {
+                Factura factura = new Factura(mesa, "Efectivo", 0);
+                session.persist(factura);
+                facturas.add(factura.getIdFactura());
+            }
+
+            List<Integer> idsProductos = new ArrayList<>();
+            for (Producto producto : productos) {
+                session.persist(producto);
+                idsProductos.add(producto.getIdProducto());
+            }
+            return new Ids(mesa.getIdMesa(), facturas, idsProductos);
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package crud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+
+import entidades.Factura;
+
+/**
+ * Comprueba que con @Version y EjecutorReintentos no se pierde ninguna modificación
+ * cuando varios hilos cambian la misma factura a la vez.
+ */
+class EjecutorReintentosTest {
+
+    private static final int HILOS = 8;
+    private static final int SUMAS_POR_HILO = 10;
+
+    @Test
+    void lasModificacionesConcurrentesNoSePierden() throws Exception {
+        int idFactura = DatosPrueba.crear(1).factura();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Integer>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < HILOS; i++) {
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    int correctas = 0;
+                    for (int j = 0; j < SUMAS_POR_HILO; j++) {
+                        // Lee el importe actual y le suma 1: si dos hilos leen el mismo valor,
+                        // el segundo commit falla y se repite con el valor nuevo
+                        if (EjecutorReintentos.ejecutar(session -> sumarUno(session, idFactura))) {
+                            correctas++;
+                        }
+                    }
+                    return correctas;
+                }));
+            }
+            salida.countDown();
+
+            int correctas = 0;
+            for (Future<Integer> resultado : resultados) {
+                correctas += resultado.get();
+            }
+
+            Factura factura = RestauranteCRUDHibernate.obtenerFacturaCompleta(idFactura);
+            assertTrue(correctas > 0);
+            assertEquals(correctas, factura.getImporte(), 0.001);
+            assertEquals(correctas, factura.getVersion());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private static boolean sumarUno(Session session, int idFactura) {
+        Factura factura = session.get(Factura.class, idFactura);
+        return RestauranteCRUDHibernate.modificarFactura(session, idFactura, null, factura.getImporte() + 1);
+    }
+}
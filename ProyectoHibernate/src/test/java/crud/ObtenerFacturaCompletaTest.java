@@ -0,0 +1,72 @@
+package crud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import conexion.HibernateUtil;
+import dto.LineaPedido;
+import entidades.Factura;
+import entidades.Pedido;
+import entidades.Producto;
+
+/**
+ * Comprueba que obtenerFacturaCompleta carga la factura, su mesa, sus pedidos y sus
+ * productos sin consultas N+1, contando las sentencias que envía Hibernate.
+ */
+class ObtenerFacturaCompletaTest {
+
+    private static final int NUM_PEDIDOS = 5;
+
+    private static int idFactura;
+
+    @BeforeAll
+    static void crearDatos() {
+        Producto[] productos = new Producto[NUM_PEDIDOS];
+        for (int i = 0; i < NUM_PEDIDOS; i++) {
+            productos[i] = new Producto("Producto " + i, 1.5 + i);
+        }
+        DatosPrueba.Ids ids = DatosPrueba.crear(1, productos);
+        idFactura = ids.factura();
+
+        List<LineaPedido> lineas = new ArrayList<>();
+        for (int i = 0; i < NUM_PEDIDOS; i++) {
+            lineas.add(new LineaPedido(idFactura, ids.producto(i), i + 1));
+        }
+        RestauranteCRUDHibernate.insertarPedidos(lineas);
+        // Sin entradas en caché: la prueba mide el peor caso
+        HibernateUtil.getSessionFactory().getCache().evictAllRegions();
+    }
+
+    @Test
+    void cargaLaFacturaCompletaEnComoMucho2Sentencias() {
+        Statistics stats = HibernateUtil.getSessionFactory().getStatistics();
+        stats.clear();
+
+        Factura factura = RestauranteCRUDHibernate.obtenerFacturaCompleta(idFactura);
+
+        // Recorremos todo lo que muestra una factura, ya fuera de la sesión
+        assertNotNull(factura);
+        assertEquals(4, factura.getMesa().getNumComensales());
+        assertEquals(NUM_PEDIDOS, factura.getPedidos().size());
+        for (Pedido pedido : factura.getPedidos()) {
+            assertTrue(pedido.getProducto().getNombre().startsWith("Producto "));
+        }
+
+        long sentencias = stats.getPrepareStatementCount();
+        assertTrue(sentencias <= 2, "Se esperaban como mucho 2 sentencias y se lanzaron " + sentencias);
+    }
+
+    @Test
+    void devuelveNullSiLaFacturaNoExiste() {
+        assertNull(RestauranteCRUDHibernate.obtenerFacturaCompleta(-1));
+    }
+}
@@ -0,0 +1,100 @@
+package crud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.Test;
+
+import conexion.HibernateUtil;
+import dto.Vista;
+
+/**
+ * Comprueba con EXPLAIN que los filtros de listar buscan en los índices declarados en las entidades.
+ * Se ejecuta cada consulta con nombre de CampoFiltro en una sesión con un StatementInspector que
+ * guarda el SQL que genera Hibernate, y se pide el plan de ese mismo SQL con los mismos parámetros;
+ * así, si cambia la consulta generada (un JOIN, otra condición...), el test mide la nueva.
+ * Un índice solo cuenta si se usa para buscar y no para recorrerlo entero:
+ * en H2 el plan lo muestra como "índice: condición" y en MySQL con el tipo ref, range o const.
+ */
+class PlanesConsultaTest {
+
+    @Test
+    void losFiltrosDeListarUsanSuIndice() {
+        assertUsaIndice("idx_factura_mesa", CampoFiltro.FACTURA_MESA, true, "1");
+        assertUsaIndice("idx_factura_tipo_pago", CampoFiltro.FACTURA_TIPO_PAGO, false, "Efectivo");
+        assertUsaIndice("idx_pedido_factura", CampoFiltro.PEDIDO_FACTURA, false, "1");
+        assertUsaIndice("idx_pedido_producto", CampoFiltro.PEDIDO_PRODUCTO, false, "1");
+        assertUsaIndice("idx_productos_denominacion", CampoFiltro.PRODUCTO_PREFIJO, false, "Caf");
+    }
+
+    @Test
+    void elFiltroContieneNoPuedeUsarElIndice() {
+        String plan = explicar(CampoFiltro.PRODUCTO_NOMBRE, false, "af");
+        assertFalse(buscaEnIndice(plan, "idx_productos_denominacion"), plan);
+    }
+
+    @Test
+    void losComodinesDelUsuarioSeEscapan() {
+        assertEquals("50!%!_!!%", CampoFiltro.PRODUCTO_PREFIJO.valor("50%_!"));
+    }
+
+    private static void assertUsaIndice(String indice, CampoFiltro filtro, boolean desde, String valor) {
+        String plan = explicar(filtro, desde, valor);
+        assertTrue(buscaEnIndice(plan, indice), "Se esperaba una búsqueda en " + indice + ": " + plan);
+    }
+
+    private static boolean buscaEnIndice(String plan, String indice) {
+        return plan.contains(indice + ":")
+                || plan.contains(indice) && plan.matches("(?s).*\\b(ref|range|const)\\b.*");
+    }
+
+    /**
+     * Ejecuta la consulta con nombre del filtro guardando el SQL generado y devuelve el plan de ese SQL
+     * (todas las columnas de todas las filas de EXPLAIN), con los mismos parámetros en el mismo orden.
+     */
+    private static String explicar(CampoFiltro filtro, boolean desde, String valor) {
+        List<String> sentencias = new ArrayList<>();
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(filtro.valor(valor));
+        if (desde) parametros.add(0);
+
+        try (Session session = HibernateUtil.getSessionFactory().withOptions()
+                .statementInspector(sql -> {
+                    sentencias.add(sql);
+                    return sql;
+                })
+                .openSession()) {
+            Query<Vista> consulta = session.createNamedQuery(filtro.consulta(desde), Vista.class)
+                    .setParameter("valor", parametros.get(0));
+            if (desde) consulta.setParameter("ultimoId", parametros.get(1));
+            consulta.list();
+            assertEquals(1, sentencias.size(), "Se esperaba una sola sentencia: " + sentencias);
+
+            return session.doReturningWork(conexion -> {
+                StringBuilder plan = new StringBuilder();
+                try (PreparedStatement sentencia = conexion.prepareStatement("EXPLAIN " + sentencias.get(0))) {
+                    for (int i = 0; i < parametros.size(); i++) {
+                        sentencia.setObject(i + 1, parametros.get(i));
+                    }
+                    try (ResultSet filas = sentencia.executeQuery()) {
+                        int columnas = filas.getMetaData().getColumnCount();
+                        while (filas.next()) {
+                            for (int i = 1; i <= columnas; i++) {
+                                plan.append(filas.getString(i)).append(' ');
+                            }
+                        }
+                    }
+                }
+                return plan.toString().toLowerCase();
+            });
+        }
+    }
+}
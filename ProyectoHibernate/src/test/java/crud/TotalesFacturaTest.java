@@ -0,0 +1,141 @@
+package crud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import conexion.HibernateUtil;
+import dto.LineaPedido;
+import entidades.Factura;
+import entidades.Producto;
+
+/**
+ * Comprueba que el total y el número de líneas de una factura se mantienen al insertar,
+ * modificar y borrar pedidos, también después de cambiar el precio del producto,
+ * y que coinciden con los que calcula recalcularTotales.
+ */
+class TotalesFacturaTest {
+
+    @Test
+    void losTotalesIncrementalesCoincidenConElRecalculo() {
+        DatosPrueba.Ids ids = DatosPrueba.crear(1, new Producto("Café", 1.5), new Producto("Tostada", 2.0));
+        int idFactura = ids.factura();
+
+        RestauranteCRUDHibernate.insertarPedido(idFactura, ids.producto(0), 2);
+        RestauranteCRUDHibernate.insertarPedidos(List.of(
+                new LineaPedido(idFactura, ids.producto(1), 3),
+                new LineaPedido(idFactura, ids.producto(0), 1)));
+        assertTotales(idFactura, 2 * 1.5 + 3 * 2.0 + 1.5, 3);
+
+        // La tostada pasa de 3 a 1 y se borra el primer café
+        int idTostada = idPedido(idFactura, ids.producto(1));
+        HibernateUtil.getSessionFactory().inTransaction(session ->
+                assertTrue(RestauranteCRUDHibernate.modificarPedido(session, idTostada, 1)));
+        int idCafe = idPedido(idFactura, ids.producto(0));
+        HibernateUtil.getSessionFactory().inTransaction(session ->
+                assertTrue(RestauranteCRUDHibernate.borrarPedido(session, idCafe)));
+        double total = RestauranteCRUDHibernate.obtenerFacturaCompleta(idFactura).getTotal();
+
+        assertTrue(RestauranteCRUDHibernate.recalcularTotales(2) > 0);
+        assertTotales(idFactura, total, 2);
+    }
+
+    @Test
+    void cambiarElPrecioDelProductoNoCambiaLasLineasYaHechas() {
+        DatosPrueba.Ids ids = DatosPrueba.crear(1, new Producto("Agua con gas", 1.0));
+        int idFactura = ids.factura();
+        int idAgua = ids.producto(0);
+
+        RestauranteCRUDHibernate.insertarPedido(idFactura, idAgua, 4);
+        RestauranteCRUDHibernate.insertarPedidos(List.of(new LineaPedido(idFactura, idAgua, 2)));
+
+        // El agua pasa de 1 a 3 y luego a 6; la línea nueva va al precio nuevo
+        HibernateUtil.getSessionFactory().inTransaction(session ->
+                assertTrue(RestauranteCRUDHibernate.modificarProducto(session, idAgua, null, 3.0)));
+        HibernateUtil.getSessionFactory().inTransaction(session ->
+                assertEquals(1, RestauranteCRUDHibernate.actualizarPrecios(session, 2.0, "Agua con gas", null, null)));
+        RestauranteCRUDHibernate.insertarPedido(idFactura, idAgua, 1);
+        assertTotales(idFactura, 4 * 1.0 + 2 * 1.0 + 6.0, 3);
+
+        // Las líneas a 1 se modifican y se borran con su precio, no con el actual
+        List<Integer> pedidos = idsPedidos(idFactura);
+        HibernateUtil.getSessionFactory().inTransaction(session ->
+                assertTrue(RestauranteCRUDHibernate.modificarPedido(session, pedidos.get(0), 1)));
+        HibernateUtil.getSessionFactory().inTransaction(session ->
+                assertTrue(RestauranteCRUDHibernate.borrarPedido(session, pedidos.get(1))));
+        assertTotales(idFactura, 1 * 1.0 + 6.0, 2);
+
+        assertTrue(RestauranteCRUDHibernate.recalcularTotales(2) > 0);
+        assertTotales(idFactura, 1 * 1.0 + 6.0, 2);
+    }
+
+    @Test
+    void recalcularSoloLasFacturasIndicadas() {
+        DatosPrueba.Ids ids = DatosPrueba.crear(2, new Producto("Zumo", 2.5));
+        int importada = ids.facturas().get(0);
+        int otra = ids.facturas().get(1);
+        int idZumo = ids.producto(0);
+        RestauranteCRUDHibernate.insertarPedido(otra, idZumo, 1);
+
+        // Un pedido insertado por JDBC, como en ImportarExportar: sin precio y sin sumar al total;
+        // y un total desajustado en la otra factura, que no se debe tocar
+        HibernateUtil.getSessionFactory().inTransaction(session -> {
+            session.createNativeMutationQuery(
+                    "INSERT INTO Pedido (idPedido, idFactura, idProducto, cantidad) VALUES (900001, :f, :p, 2)")
+                    .setParameter("f", importada)
+                    .setParameter("p", idZumo)
+                    .executeUpdate();
+            session.createMutationQuery("UPDATE Factura f SET f.total = 99 WHERE f.idFactura = :f")
+                    .setParameter("f", otra)
+                    .executeUpdate();
+        });
+
+        assertEquals(1, RestauranteCRUDHibernate.recalcularTotales(List.of(importada)));
+        assertTotales(importada, 2 * 2.5, 1);
+        assertEquals(99, RestauranteCRUDHibernate.obtenerFacturaCompleta(otra).getTotal(), 0.001);
+    }
+
+    @Test
+    void borrarUnProductoRestaSusLineas() {
+        DatosPrueba.Ids ids = DatosPrueba.crear(1, new Producto("Pan", 0.5), new Producto("Vino", 4.0));
+        int idFactura = ids.factura();
+        RestauranteCRUDHibernate.insertarPedidos(List.of(
+                new LineaPedido(idFactura, ids.producto(0), 2),
+                new LineaPedido(idFactura, ids.producto(1), 1),
+                new LineaPedido(idFactura, ids.producto(0), 3)));
+        assertTotales(idFactura, 5 * 0.5 + 4.0, 3);
+
+        HibernateUtil.getSessionFactory().inTransaction(session ->
+                assertTrue(RestauranteCRUDHibernate.borrarProducto(session, ids.producto(0))));
+        assertTotales(idFactura, 4.0, 1);
+    }
+
+    private static void assertTotales(int idFactura, double total, int numLineas) {
+        Factura factura = RestauranteCRUDHibernate.obtenerFacturaCompleta(idFactura);
+        double suma = factura.getPedidos().stream()
+                .mapToDouble(pedido -> pedido.getCantidad() * pedido.getPrecioUnitario())
+                .sum();
+        assertEquals(total, factura.getTotal(), 0.001);
+        assertEquals(suma, factura.getTotal(), 0.001);
+        assertEquals(numLineas, factura.getNumLineas());
+    }
+
+    private static int idPedido(int idFactura, int idProducto) {
+        return HibernateUtil.getSessionFactory().fromSession(session -> session.createQuery(
+                "SELECT MIN(p.idPedido) FROM Pedido p WHERE p.factura.idFactura = :f AND p.producto.idProducto = :p",
+                Integer.class)
+                .setParameter("f", idFactura)
+                .setParameter("p", idProducto)
+                .getSingleResult());
+    }
+
+    private static List<Integer> idsPedidos(int idFactura) {
+        return HibernateUtil.getSessionFactory().fromSession(session -> session.createQuery(
+                "SELECT p.idPedido FROM Pedido p WHERE p.factura.idFactura = :f ORDER BY p.idPedido", Integer.class)
+                .setParameter("f", idFactura)
+                .list());
+    }
+}
@@ -1,21 +1,32 @@
 package com.example.alumnos_api;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/alumnos")
@@ -25,36 +36,105 @@ public class AlumnoController {
     @Autowired
     private AlumnoRepository repo;
     
+    // Índice de los nombres para la búsqueda avanzada
+    @Autowired
+    private IndiceTrigramas indice;
+    
+    // Actualiza el índice después del commit de cada alta, cambio o baja
+    @Autowired
+    private SincronizacionIndice sincronizacion;
+    
+    @Autowired
+    private CargaAlumnos carga;
+    
+    @Autowired
+    private ExportacionAlumnos exportacion;
+    
+    // Ids por consulta al cargar los alumnos encontrados (tamaño máximo de la lista IN)
+    private static final int IDS_POR_CONSULTA = 1000;
+    
  // 1. LISTAR TODOS LOS ALUMNOS (GET) - CON PAGINACIÓN
     @Operation(
         summary = "Listar todos los alumnos con paginación",
         description = "Obtiene una lista paginada de todos los alumnos registrados en el sistema. " +
-                      "Soporta ordenación por cualquier campo."
+                      "Soporta ordenación por id, nombre, email y fechaRegistro (los campos con índice). " +
+                      "Con withTotal=false no se cuenta el total de alumnos y la respuesta no incluye " +
+                      "totalElements ni totalPages."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Lista de alumnos obtenida exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Campo de ordenación no válido"),
         @ApiResponse(responseCode = "401", description = "No autorizado - Se requiere autenticación")
     })
     @GetMapping
-    public Page<Alumno> listar(
+    public Slice<Alumno> listar(
         @Parameter(description = "Número de página (0-indexed)", example = "0")
         @RequestParam(defaultValue = "0") int page,
         
         @Parameter(description = "Tamaño de página", example = "10")
         @RequestParam(defaultValue = "10") int size,
         
-        @Parameter(description = "Campo por el que ordenar", example = "nombre")
+        @Parameter(description = "Campo por el que ordenar (id, nombre, email, fechaRegistro)", example = "nombre")
         @RequestParam(defaultValue = "id") String sortBy,
         
         @Parameter(description = "Dirección de ordenación (asc o desc)", example = "asc")
-        @RequestParam(defaultValue = "asc") String direction
+        @RequestParam(defaultValue = "asc") String direction,
+        
+        @Parameter(description = "Calcular el total de alumnos (false evita la consulta COUNT)", example = "true")
+        @RequestParam(defaultValue = "true") boolean withTotal
     ) {
+        CampoOrden campo = CampoOrden.de(sortBy);
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") 
             ? Sort.Direction.DESC 
             : Sort.Direction.ASC;
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
-        return repo.findAll(pageable);
+        // A igualdad de campo se ordena por id para que las páginas no se solapen
+        Sort sort = Sort.by(sortDirection, campo.getAtributo()).and(Sort.by(sortDirection, "id"));
+        Pageable pageable = PageRequest.of(page, size, sort);
+        return withTotal ? repo.findAll(pageable) : repo.findAllBy(pageable);
+    }
+    
+    // 1b. LISTAR ALUMNOS POR CURSOR (GET) - PAGINACIÓN POR CLAVE
+    @Operation(
+        summary = "Listar alumnos paginando por cursor",
+        description = "Obtiene los alumnos página a página usando un cursor en lugar del número de página. " +
+                      "Cada respuesta incluye en 'next' el cursor de la página siguiente, que se envía en 'after'. " +
+                      "No se cuenta el total de alumnos y cualquier página cuesta lo mismo que la primera. " +
+                      "Con 'after', el orden es el del cursor y se ignoran sortBy y direction."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Página de alumnos obtenida exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Cursor o campo de ordenación no válido"),
+        @ApiResponse(responseCode = "401", description = "No autorizado - Se requiere autenticación")
+    })
+    @GetMapping("/cursor")
+    public PaginaCursor listarPorCursor(
+        @Parameter(description = "Cursor devuelto en 'next' por la página anterior (vacío para la primera)")
+        @RequestParam(required = false) String after,
+        
+        @Parameter(description = "Tamaño de página (1-100)", example = "10")
+        @RequestParam(defaultValue = "10") int size,
+        
+        @Parameter(description = "Campo por el que ordenar (id, nombre, email, fechaRegistro)", example = "nombre")
+        @RequestParam(defaultValue = "id") String sortBy,
+        
+        @Parameter(description = "Dirección de ordenación (asc o desc)", example = "asc")
+        @RequestParam(defaultValue = "asc") String direction
+    ) {
+        int tamano = Math.min(Math.max(size, 1), 100);
+        
+        if (after != null && !after.isBlank()) {
+            Cursor cursor = Cursor.decodificar(after);
+            Slice<Alumno> pagina = repo.buscarDespuesDe(cursor, tamano);
+            return PaginaCursor.de(pagina, cursor.campo(), cursor.direccion());
+        }
+        
+        CampoOrden campo = CampoOrden.de(sortBy);
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") 
+            ? Sort.Direction.DESC 
+            : Sort.Direction.ASC;
+        Slice<Alumno> pagina = repo.buscarPrimeros(campo, sortDirection, tamano);
+        return PaginaCursor.de(pagina, campo, sortDirection);
     }
     
     // 2. CREAR ALUMNO (POST)
@@ -68,6 +148,7 @@ public class AlumnoController {
         @ApiResponse(responseCode = "401", description = "No autorizado - Se requiere autenticación")
     })
     @PostMapping
+    @Transactional
     public Alumno crear(
         @io.swagger.v3.oas.annotations.parameters.RequestBody(
             description = "Datos del alumno a crear (nombre y email requeridos)",
@@ -75,7 +156,31 @@ public class AlumnoController {
         )
         @Valid @RequestBody Alumno alumno
     ) {
-        return repo.save(alumno);
+        Alumno guardado = repo.save(alumno);
+        sincronizacion.alConfirmar(List.of(guardado.getId()));
+        return guardado;
+    }
+    
+    // 2b. CREAR O ACTUALIZAR ALUMNOS EN LOTE (POST)
+    @Operation(
+        summary = "Crear o actualizar alumnos en lote",
+        description = "Recibe un array JSON o NDJSON (un alumno por línea) y lo procesa a medida que llega, sin cargar el cuerpo entero. " +
+                      "Los alumnos sin id se crean y los que traen id se actualizan. Cada alumno se valida por separado " +
+                      "y los válidos se guardan en lotes de " + CargaAlumnos.TAMANO_LOTE + ". Devuelve el resultado de cada elemento."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Carga procesada - Revisar el resultado de cada elemento"),
+        @ApiResponse(responseCode = "401", description = "No autorizado - Se requiere autenticación")
+    })
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResultadoCarga crearEnLote(
+        @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Alumnos a crear o actualizar (array JSON o NDJSON)",
+            required = true
+        )
+        InputStream cuerpo
+    ) {
+        return carga.cargar(cuerpo);
     }
     
     // 3. ACTUALIZAR ALUMNO (PUT)
@@ -90,6 +195,7 @@ public class AlumnoController {
         @ApiResponse(responseCode = "401", description = "No autorizado - Se requiere autenticación")
     })
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Alumno> actualizar(
         @Parameter(description = "ID del alumno a actualizar", required = true, example = "1")
         @PathVariable Long id,
@@ -104,7 +210,9 @@ public class AlumnoController {
             Alumno a = alumnoExistente.get();
             a.setNombre(alumno.getNombre());
             a.setEmail(alumno.getEmail());
-            return ResponseEntity.ok(repo.save(a));
+            Alumno guardado = repo.save(a);
+            sincronizacion.alConfirmar(List.of(guardado.getId()));
+            return ResponseEntity.ok(guardado);
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -121,12 +229,14 @@ public class AlumnoController {
         @ApiResponse(responseCode = "401", description = "No autorizado - Se requiere autenticación")
     })
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Void> eliminar(
         @Parameter(description = "ID del alumno a eliminar", required = true, example = "1")
         @PathVariable Long id
     ) {
         if (repo.existsById(id)) {
             repo.deleteById(id);
+            sincronizacion.alConfirmar(List.of(id));
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -176,7 +286,8 @@ public class AlumnoController {
     // 7. BÚSQUEDA AVANZADA POR NOMBRE (GET) - BONUS
     @Operation(
         summary = "Búsqueda avanzada por nombre",
-        description = "Busca alumnos cuyo nombre contenga el texto proporcionado (búsqueda parcial, sin distinguir mayúsculas)"
+        description = "Busca alumnos cuyo nombre contenga el texto proporcionado (búsqueda parcial, sin distinguir mayúsculas). " +
+                      "Los ids se buscan en un índice de trigramas en memoria y solo se cargan de la base de datos los alumnos encontrados."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Búsqueda realizada exitosamente"),
@@ -187,6 +298,65 @@ public class AlumnoController {
         @Parameter(description = "Texto a buscar en el nombre del alumno", required = true, example = "Juan")
         @RequestParam String nombre
     ) {
-        return repo.findByNombreContainingIgnoreCase(nombre);
+        long[] ids = indice.buscar(nombre);
+        
+        List<Alumno> alumnos = new ArrayList<>(ids.length);
+        for (int inicio = 0; inicio < ids.length; inicio += IDS_POR_CONSULTA) {
+            long[] tramo = Arrays.copyOfRange(ids, inicio, Math.min(inicio + IDS_POR_CONSULTA, ids.length));
+            // El índice se actualiza tras el commit: se descartan los que han cambiado de nombre mientras tanto
+            repo.findAllById(Arrays.stream(tramo).boxed().toList()).stream()
+                .filter(a -> IndiceTrigramas.contiene(a.getNombre(), nombre))
+                .forEach(alumnos::add);
+        }
+        alumnos.sort(Comparator.comparing(Alumno::getId));
+        return alumnos;
+    }
+    
+    // 8. EXPORTAR TODOS LOS ALUMNOS (GET)
+    @Operation(
+        summary = "Exportar todos los alumnos",
+        description = "Descarga todos los alumnos ordenados por id en NDJSON (un alumno por línea) o CSV. " +
+                      "Se leen con una sola consulta y se escriben a medida que llegan, sin paginar. " +
+                      "Si la petición incluye Accept-Encoding: gzip, la respuesta va comprimida. " +
+                      "Para reanudar una descarga cortada se indica en desdeId el último id recibido."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Exportación en curso"),
+        @ApiResponse(responseCode = "400", description = "Formato no válido"),
+        @ApiResponse(responseCode = "401", description = "No autorizado - Se requiere autenticación")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(
+        @Parameter(description = "Formato de salida (ndjson o csv)", example = "ndjson")
+        @RequestParam(defaultValue = "ndjson") String format,
+        
+        @Parameter(description = "Exportar solo los alumnos con id mayor que este (último id recibido)", example = "1000")
+        @RequestParam(required = false) Long desdeId,
+        
+        @Parameter(hidden = true)
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        FormatoExportacion formato = FormatoExportacion.de(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        
+        StreamingResponseBody cuerpo = salida -> {
+            if (gzip) {
+                GZIPOutputStream comprimida = new GZIPOutputStream(salida, 64 * 1024);
+                exportacion.exportar(formato, desdeId, comprimida);
+                comprimida.finish();
+            } else {
+                exportacion.exportar(formato, desdeId, salida);
+            }
+        };
+        
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+            .contentType(new MediaType(formato.getTipo(), StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("alumnos." + formato.getExtension()).build().toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return respuesta.body(cuerpo);
     }
-}
\ No newline at end of file
+}
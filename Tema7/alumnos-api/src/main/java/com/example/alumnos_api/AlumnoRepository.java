@@ -1,15 +1,47 @@
 package com.example.alumnos_api;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 @Repository
-public interface AlumnoRepository extends JpaRepository<Alumno, Long> {
+public interface AlumnoRepository extends JpaRepository<Alumno, Long>, AlumnoRepositoryCursor {
     // Métodos CRUD heredados
+    // Paginación por cursor (keyset) heredada de AlumnoRepositoryCursor
     // Query methods personalizados
+    
+    // Página sin COUNT: devolver Slice hace que Spring Data pida un elemento más en lugar de contar
+    Slice<Alumno> findAllBy(Pageable pageable);
+    
     List<Alumno> findByNombre(String nombre);
     
-    //Búsqueda parcial con LIKE
+    //Búsqueda parcial con LIKE (recorre toda la tabla; /buscar-avanzado usa IndiceTrigramas)
     List<Alumno> findByNombreContainingIgnoreCase(String nombre);
-}
\ No newline at end of file
+    
+    // Id y nombre de los alumnos con id mayor que desde, para construir el índice de trigramas por bloques
+    @Query("SELECT a.id, a.nombre FROM Alumno a WHERE a.id > :desde ORDER BY a.id")
+    List<Object[]> findIdYNombreDesde(@Param("desde") Long desde, Limit limit);
+    
+    // Id y nombre actuales de unos alumnos, para refrescar el índice de trigramas tras un commit
+    @Query("SELECT a.id, a.nombre FROM Alumno a WHERE a.id IN :ids")
+    List<Object[]> findIdYNombreByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Alumnos con id mayor que desde, en orden de id, para la exportación. El driver los trae de 1000 en 1000
+    // y Hibernate no guarda copia para detectar cambios. Hay que recorrerlo dentro de una transacción y cerrarlo.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Alumno a WHERE a.id > :desde ORDER BY a.id")
+    Stream<Alumno> streamDesde(@Param("desde") Long desde);
+}
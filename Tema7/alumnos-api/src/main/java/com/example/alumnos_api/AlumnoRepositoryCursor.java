@@ -0,0 +1,33 @@
+package com.example.alumnos_api;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Consultas de paginación por clave (keyset) de AlumnoRepository.
+ * Spring Data añade al repositorio la implementación de AlumnoRepositoryCursorImpl.
+ */
+public interface AlumnoRepositoryCursor {
+
+    /**
+     * Devuelve la primera página de alumnos ordenados por un campo y, a igualdad, por id.
+     * No se ejecuta ninguna consulta COUNT.
+     *
+     * @param campo campo de ordenación
+     * @param direccion dirección de ordenación
+     * @param tamano número de alumnos por página
+     * @return página de alumnos; hasNext() indica si hay más
+     */
+    Slice<Alumno> buscarPrimeros(CampoOrden campo, Sort.Direction direccion, int tamano);
+
+    /**
+     * Devuelve los alumnos que van después de un cursor, con el mismo orden que la página anterior.
+     * La consulta empieza justo en el cursor (WHERE sobre el campo y el id), así que cuesta
+     * lo mismo la página 1 que la 10.000, en lugar de saltarse las filas anteriores con OFFSET.
+     *
+     * @param cursor posición del último alumno devuelto
+     * @param tamano número de alumnos por página
+     * @return página de alumnos; hasNext() indica si hay más
+     */
+    Slice<Alumno> buscarDespuesDe(Cursor cursor, int tamano);
+}
@@ -0,0 +1,131 @@
+package com.example.alumnos_api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Implementación con Criteria de la paginación por clave.
+ * Se ordena por (campo, id) en la misma dirección, de modo que un índice sobre el campo
+ * (que en la práctica también lleva el id) sirve para buscar el cursor y leer la página en orden.
+ * Los null se ordenan siempre como el valor más pequeño: primero en ASC y últimos en DESC.
+ * Por eso el listado se lee en dos tramos, los alumnos con el campo a null (ordenados por id) y
+ * los demás (ordenados por campo e id), cada uno con su propia consulta: así cada consulta es un
+ * rango del índice que empieza en el cursor (campo >= valor AND (campo > valor OR id > último id)),
+ * sin OR entre null y no null que obligue a recorrerlo. Solo si la página no se llena con el tramo
+ * del cursor se lee el principio del siguiente.
+ * Se pide un alumno más del tamaño de página para saber si hay página siguiente sin contar.
+ */
+public class AlumnoRepositoryCursorImpl implements AlumnoRepositoryCursor {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Slice<Alumno> buscarPrimeros(CampoOrden campo, Sort.Direction direccion, int tamano) {
+        return buscar(campo, direccion, null, tamano);
+    }
+
+    @Override
+    public Slice<Alumno> buscarDespuesDe(Cursor cursor, int tamano) {
+        return buscar(cursor.campo(), cursor.direccion(), cursor, tamano);
+    }
+
+    private Slice<Alumno> buscar(CampoOrden campo, Sort.Direction direccion, Cursor cursor, int tamano) {
+        boolean asc = direccion.isAscending();
+        List<Alumno> filas;
+        if (campo == CampoOrden.ID) {
+            filas = leerTramo(campo, asc, false, cursor, tamano + 1);
+        } else {
+            // Tramos en el orden del listado: en ASC los null van delante y en DESC detrás
+            boolean[] tramos = asc ? new boolean[] { true, false } : new boolean[] { false, true };
+            int tramo = 0;
+            if (cursor != null && tramos[1] == (cursor.valor() == null)) {
+                tramo = 1;
+            }
+            filas = leerTramo(campo, asc, tramos[tramo], cursor, tamano + 1);
+            if (tramo == 0 && filas.size() <= tamano) {
+                filas = new ArrayList<>(filas);
+                filas.addAll(leerTramo(campo, asc, tramos[1], null, tamano + 1 - filas.size()));
+            }
+        }
+
+        boolean hayMas = filas.size() > tamano;
+        if (hayMas) {
+            filas = filas.subList(0, tamano);
+        }
+        Sort orden = Sort.by(direccion, campo.getAtributo()).and(Sort.by(direccion, "id"));
+        return new SliceImpl<>(filas, PageRequest.of(0, tamano, orden), hayMas);
+    }
+
+    /**
+     * Lee los alumnos de un tramo que van después del cursor, en el orden del listado.
+     *
+     * @param nulos true para el tramo de los alumnos con el campo a null (ordenados solo por id)
+     * @param cursor posición dentro del tramo, o null para leerlo desde el principio
+     * @param maximo número máximo de alumnos
+     */
+    private List<Alumno> leerTramo(CampoOrden campo, boolean asc, boolean nulos, Cursor cursor, int maximo) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Alumno> query = cb.createQuery(Alumno.class);
+        Root<Alumno> alumno = query.from(Alumno.class);
+
+        Path<Long> id = alumno.get("id");
+        Order porId = asc ? cb.asc(id) : cb.desc(id);
+        List<Predicate> condiciones = new ArrayList<>();
+        if (cursor != null) {
+            condiciones.add(asc ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id()));
+        }
+
+        if (campo == CampoOrden.ID) {
+            query.orderBy(porId);
+        } else if (nulos) {
+            condiciones.add(cb.isNull(alumno.get(campo.getAtributo())));
+            query.orderBy(porId);
+        } else {
+            Path<?> valor = alumno.get(campo.getAtributo());
+            if (cursor == null) {
+                condiciones.add(cb.isNotNull(valor));
+            } else {
+                condiciones = List.of(despuesDe(cb, alumno, campo, asc, cursor));
+            }
+            query.orderBy(asc ? cb.asc(valor) : cb.desc(valor), porId);
+        }
+        query.where(condiciones.toArray(Predicate[]::new));
+
+        return em.createQuery(query)
+                .setMaxResults(maximo)
+                .getResultList();
+    }
+
+    /**
+     * Condición "va después del cursor" dentro del tramo de valores no null.
+     * En ASC: campo >= valor AND (campo > valor OR id > cursor.id); en DESC, al revés.
+     * La primera parte es la que usa el índice para empezar a leer en el cursor; la segunda
+     * solo descarta, dentro del mismo valor, los alumnos que ya se devolvieron.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate despuesDe(CriteriaBuilder cb, Root<Alumno> alumno, CampoOrden campo, boolean asc, Cursor cursor) {
+        Path<Long> id = alumno.get("id");
+        Path<Comparable> valor = alumno.get(campo.getAtributo());
+        Comparable valorCursor = (Comparable) cursor.valor();
+        Predicate desde = asc ? cb.greaterThanOrEqualTo(valor, valorCursor) : cb.lessThanOrEqualTo(valor, valorCursor);
+        Predicate siguiente = cb.or(
+                asc ? cb.greaterThan(valor, valorCursor) : cb.lessThan(valor, valorCursor),
+                asc ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id()));
+        return cb.and(desde, siguiente);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.alumnos_api;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Campos de Alumno por los que se puede ordenar un listado.
+ * Sirve de lista blanca: el nombre que llega en la petición solo se usa para elegir una de estas
+ * constantes, y cada una sabe convertir su valor a texto y de vuelta para guardarlo en un cursor.
+ * Todos tienen índice (la clave primaria o los @Index de Alumno), así que ordenar no obliga
+ * a la base de datos a ordenar la tabla entera en cada petición.
+ */
+public enum CampoOrden {
+
+    ID("id"),
+    NOMBRE("nombre"),
+    EMAIL("email"),
+    FECHA_REGISTRO("fechaRegistro");
+
+    private final String atributo;
+
+    CampoOrden(String atributo) {
+        this.atributo = atributo;
+    }
+
+    /**
+     * Nombre del atributo de la entidad Alumno
+     */
+    public String getAtributo() {
+        return atributo;
+    }
+
+    /**
+     * Busca el campo por el nombre del atributo (sin distinguir mayúsculas).
+     *
+     * @param atributo nombre recibido en la petición (sortBy)
+     * @return campo correspondiente
+     * @throws ParametroNoValidoException si no se puede ordenar por ese campo
+     */
+    public static CampoOrden de(String atributo) {
+        for (CampoOrden campo : values()) {
+            if (campo.atributo.equalsIgnoreCase(atributo)) {
+                return campo;
+            }
+        }
+        throw new ParametroNoValidoException("No se puede ordenar por '" + atributo + "'. Campos válidos: "
+                + Arrays.stream(values()).map(CampoOrden::getAtributo).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Valor de este campo en un alumno
+     */
+    public Object valor(Alumno alumno) {
+        return switch (this) {
+            case ID -> alumno.getId();
+            case NOMBRE -> alumno.getNombre();
+            case EMAIL -> alumno.getEmail();
+            case FECHA_REGISTRO -> alumno.getFechaRegistro();
+        };
+    }
+
+    /**
+     * Convierte a su tipo un valor guardado como texto con toString()
+     */
+    public Object convertir(String texto) {
+        return switch (this) {
+            case ID -> Long.valueOf(texto);
+            case NOMBRE, EMAIL -> texto;
+            case FECHA_REGISTRO -> LocalDate.parse(texto);
+        };
+    }
+}
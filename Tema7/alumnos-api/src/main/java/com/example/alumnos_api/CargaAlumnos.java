@@ -0,0 +1,192 @@
+package com.example.alumnos_api;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+/**
+ * Carga masiva de alumnos (POST /alumnos/batch).
+ * El cuerpo se lee elemento a elemento con el parser de Jackson, tanto si es un array JSON como si
+ * son objetos seguidos (NDJSON, uno por línea), así que nunca está entero en memoria.
+ * Cada elemento se valida por separado; los válidos se guardan en lotes de TAMANO_LOTE con saveAll,
+ * una transacción por lote. Con hibernate.jdbc.batch_size y la secuencia de Alumno reservando ids
+ * de TAMANO_LOTE en TAMANO_LOTE, cada lote son pocas sentencias INSERT/UPDATE agrupadas.
+ * El índice de trigramas se actualiza después del commit de cada lote.
+ */
+@Service
+public class CargaAlumnos {
+
+    // Igual que hibernate.jdbc.batch_size y el allocationSize de la secuencia de Alumno
+    public static final int TAMANO_LOTE = 50;
+
+    @Autowired
+    private AlumnoRepository repo;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private SincronizacionIndice sincronizacion;
+
+    /**
+     * Elemento válido pendiente de guardar y su posición en el cuerpo
+     */
+    private record Pendiente(int indice, Alumno alumno) {
+    }
+
+    /**
+     * Lee, valida y guarda los alumnos del cuerpo. Los elementos sin id se crean y los que
+     * traen id actualizan el nombre y el email de ese alumno (como PUT /alumnos/{id}).
+     * Un elemento con errores no impide guardar los demás. Si el JSON está mal formado la carga
+     * se detiene ahí: lo leído hasta entonces se guarda y el motivo queda en el resultado.
+     *
+     * @param cuerpo cuerpo de la petición (array JSON o NDJSON)
+     * @return resultado de cada elemento
+     */
+    public ResultadoCarga cargar(InputStream cuerpo) {
+        ResultadoCarga resultado = new ResultadoCarga();
+        List<Pendiente> lote = new ArrayList<>(TAMANO_LOTE);
+        // Cada elemento se lee por separado: lo que viene detrás es el siguiente, no un error
+        ObjectReader lector = mapper.readerFor(JsonNode.class)
+                .without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        try (JsonParser parser = mapper.createParser(cuerpo)) {
+            JsonToken token = parser.nextToken();
+            boolean esArray = token == JsonToken.START_ARRAY;
+            if (esArray) {
+                token = parser.nextToken();
+            }
+            int posicion = 0;
+            while (token != null && token != JsonToken.END_ARRAY) {
+                // Solo se convierte a árbol el elemento actual; así un elemento con tipos
+                // incorrectos se descarta entero y el parser sigue en el siguiente
+                JsonNode nodo = lector.readValue(parser);
+                preparar(posicion++, nodo, lote, resultado);
+                if (lote.size() == TAMANO_LOTE) {
+                    guardar(lote, resultado);
+                    lote.clear();
+                }
+                token = parser.nextToken();
+            }
+        } catch (JacksonException e) {
+            resultado.interrumpir("JSON mal formado: " + e.getOriginalMessage());
+        }
+        if (!lote.isEmpty()) {
+            guardar(lote, resultado);
+        }
+        return resultado;
+    }
+
+    /**
+     * Convierte y valida un elemento. Si es válido lo añade al lote y si no anota sus errores.
+     */
+    private void preparar(int posicion, JsonNode nodo, List<Pendiente> lote, ResultadoCarga resultado) {
+        Alumno alumno;
+        try {
+            alumno = mapper.treeToValue(nodo, Alumno.class);
+        } catch (JacksonException e) {
+            resultado.error(posicion, null, Map.of("json", e.getOriginalMessage()));
+            return;
+        }
+        if (alumno == null) {
+            resultado.error(posicion, null, Map.of("json", "Se esperaba un objeto alumno"));
+            return;
+        }
+        Map<String, String> errores = new LinkedHashMap<>();
+        for (ConstraintViolation<Alumno> violacion : validator.validate(alumno)) {
+            errores.putIfAbsent(violacion.getPropertyPath().toString(), violacion.getMessage());
+        }
+        if (errores.isEmpty()) {
+            lote.add(new Pendiente(posicion, alumno));
+        } else {
+            resultado.error(posicion, alumno.getId(), errores);
+        }
+    }
+
+    /**
+     * Guarda un lote en una transacción. Los alumnos a actualizar se cargan con una sola consulta.
+     * Si la transacción falla, todos los elementos del lote se marcan con el error.
+     */
+    private void guardar(List<Pendiente> lote, ResultadoCarga resultado) {
+        ResultadoCarga delLote = new ResultadoCarga();
+        try {
+            transaccion.execute(estado -> {
+                List<Long> ids = lote.stream().map(p -> p.alumno().getId()).filter(id -> id != null).toList();
+                Map<Long, Alumno> existentes = repo.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Alumno::getId, Function.identity()));
+
+                List<Alumno> aGuardar = new ArrayList<>(lote.size());
+                List<Integer> posiciones = new ArrayList<>(lote.size());
+                for (Pendiente pendiente : lote) {
+                    Alumno alumno = pendiente.alumno();
+                    if (alumno.getId() == null) {
+                        aGuardar.add(alumno);
+                        posiciones.add(pendiente.indice());
+                        continue;
+                    }
+                    Alumno existente = existentes.get(alumno.getId());
+                    if (existente == null) {
+                        delLote.error(pendiente.indice(), alumno.getId(),
+                                Map.of("id", "No existe un alumno con id " + alumno.getId()));
+                        continue;
+                    }
+                    existente.setNombre(alumno.getNombre());
+                    existente.setEmail(alumno.getEmail());
+                    aGuardar.add(existente);
+                    posiciones.add(pendiente.indice());
+                }
+
+                List<Alumno> resultadoSave = repo.saveAll(aGuardar);
+                sincronizacion.alConfirmar(resultadoSave.stream().map(Alumno::getId).toList());
+                for (int i = 0; i < resultadoSave.size(); i++) {
+                    Alumno alumno = resultadoSave.get(i);
+                    if (existentes.containsKey(alumno.getId())) {
+                        delLote.actualizado(posiciones.get(i), alumno.getId());
+                    } else {
+                        delLote.creado(posiciones.get(i), alumno.getId());
+                    }
+                }
+                return resultadoSave;
+            });
+        } catch (RuntimeException e) {
+            for (Pendiente pendiente : lote) {
+                resultado.error(pendiente.indice(), pendiente.alumno().getId(),
+                        Map.of("lote", "No se pudo guardar el lote: " + e.getMessage()));
+            }
+            return;
+        } finally {
+            // Con open-in-view el EntityManager dura toda la petición: se vacía tras cada lote
+            em.clear();
+        }
+
+        resultado.sumar(delLote);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.alumnos_api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Posición en un listado paginado por clave: el campo y la dirección de ordenación
+ * y los valores (campo e id) del último alumno devuelto.
+ * Se envía al cliente como un token opaco (Base64 URL) que este devuelve en el parámetro after.
+ *
+ * @param campo campo de ordenación
+ * @param direccion dirección de ordenación
+ * @param valor valor del campo en el último alumno (puede ser null)
+ * @param id id del último alumno, para desempatar alumnos con el mismo valor
+ */
+public record Cursor(CampoOrden campo, Sort.Direction direccion, Object valor, Long id) {
+
+    private static final String SEPARADOR = "\n";
+
+    /**
+     * Cursor que apunta justo después de un alumno
+     */
+    public static Cursor despuesDe(Alumno alumno, CampoOrden campo, Sort.Direction direccion) {
+        return new Cursor(campo, direccion, campo.valor(alumno), alumno.getId());
+    }
+
+    /**
+     * Codifica el cursor como token.
+     * El valor va al final para que pueda contener el separador; "-" indica que es null.
+     */
+    public String codificar() {
+        String texto = campo.name() + SEPARADOR + direccion.name() + SEPARADOR + id + SEPARADOR
+                + (valor == null ? "-" : "=" + valor);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token generado por codificar().
+     *
+     * @param token token recibido en el parámetro after
+     * @return cursor
+     * @throws ParametroNoValidoException si el token no es válido
+     */
+    public static Cursor decodificar(String token) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = texto.split(SEPARADOR, 4);
+            CampoOrden campo = CampoOrden.valueOf(partes[0]);
+            Object valor = partes[3].startsWith("=") ? campo.convertir(partes[3].substring(1)) : null;
+            return new Cursor(campo, Sort.Direction.valueOf(partes[1]), valor, Long.valueOf(partes[2]));
+        } catch (RuntimeException e) {
+            throw new ParametroNoValidoException("El cursor 'after' no es válido", e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.alumnos_api;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Exportación de todos los alumnos (GET /alumnos/export).
+ * Los alumnos se leen con una sola consulta ordenada por id dentro de una transacción de solo lectura,
+ * así que la exportación es una foto coherente de la tabla y no repite la consulta con OFFSET por cada
+ * página. Cada alumno se escribe en cuanto llega y se saca del EntityManager, de modo que la memoria
+ * usada no depende del número de alumnos.
+ */
+@Service
+public class ExportacionAlumnos {
+
+    private static final String CABECERA_CSV = "id,nombre,email,fechaRegistro";
+
+    @Autowired
+    private AlumnoRepository repo;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private PlatformTransactionManager transacciones;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Escribe los alumnos con id mayor que desdeId, ordenados por id.
+     * Para reanudar una exportación cortada se pasa el último id recibido; en ese caso el CSV
+     * no repite la cabecera, para poder añadir lo recibido al final de lo que ya se tenía.
+     *
+     * @param formato formato de salida
+     * @param desdeId último id ya exportado, o null para empezar por el principio
+     * @param salida donde se escriben los alumnos (no se cierra)
+     * @return número de alumnos escritos
+     * @throws IOException si falla la escritura (por ejemplo, el cliente cierra la conexión)
+     */
+    public long exportar(FormatoExportacion formato, Long desdeId, OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        if (formato == FormatoExportacion.CSV && desdeId == null) {
+            escritor.write(CABECERA_CSV);
+            escritor.write('\n');
+        }
+
+        TransactionTemplate lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+        long escritos;
+        try {
+            escritos = lectura.execute(estado -> {
+                long n = 0;
+                try (Stream<Alumno> alumnos = repo.streamDesde(desdeId == null ? Long.MIN_VALUE : desdeId)) {
+                    Iterator<Alumno> it = alumnos.iterator();
+                    while (it.hasNext()) {
+                        Alumno alumno = it.next();
+                        escribir(formato, alumno, escritor);
+                        em.detach(alumno);
+                        n++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return n;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.flush();
+        return escritos;
+    }
+
+    private void escribir(FormatoExportacion formato, Alumno alumno, Writer escritor) throws IOException {
+        switch (formato) {
+            case NDJSON -> escritor.write(mapper.writeValueAsString(alumno));
+            case CSV -> {
+                escritor.write(String.valueOf(alumno.getId()));
+                escritor.write(',');
+                escritor.write(campoCsv(alumno.getNombre()));
+                escritor.write(',');
+                escritor.write(campoCsv(alumno.getEmail()));
+                escritor.write(',');
+                escritor.write(alumno.getFechaRegistro() == null ? "" : alumno.getFechaRegistro().toString());
+            }
+        }
+        escritor.write('\n');
+    }
+
+    /**
+     * Valor de un campo de texto en CSV (RFC 4180): entre comillas si lleva comas, comillas
+     * o saltos de línea, duplicando las comillas de dentro
+     */
+    static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
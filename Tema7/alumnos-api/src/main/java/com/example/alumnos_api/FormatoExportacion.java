@@ -0,0 +1,54 @@
+package com.example.alumnos_api;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos en los que se puede exportar la lista de alumnos (GET /alumnos/export).
+ */
+public enum FormatoExportacion {
+
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON),
+    CSV("csv", new MediaType("text", "csv"));
+
+    private final String extension;
+    private final MediaType tipo;
+
+    FormatoExportacion(String extension, MediaType tipo) {
+        this.extension = extension;
+        this.tipo = tipo;
+    }
+
+    /**
+     * Extensión del fichero descargado (y nombre del formato en la petición)
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Tipo de contenido de la respuesta
+     */
+    public MediaType getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Busca el formato por su nombre (sin distinguir mayúsculas).
+     *
+     * @param nombre nombre recibido en la petición (format)
+     * @return formato correspondiente
+     * @throws ParametroNoValidoException si no existe ese formato
+     */
+    public static FormatoExportacion de(String nombre) {
+        for (FormatoExportacion formato : values()) {
+            if (formato.extension.equalsIgnoreCase(nombre)) {
+                return formato;
+            }
+        }
+        throw new ParametroNoValidoException("Formato de exportación '" + nombre + "' no válido. Formatos válidos: "
+                + Arrays.stream(values()).map(FormatoExportacion::getExtension).collect(Collectors.joining(", ")));
+    }
+}
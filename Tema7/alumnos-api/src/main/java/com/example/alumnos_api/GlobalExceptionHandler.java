@@ -28,4 +28,15 @@ public class GlobalExceptionHandler {
         
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
 	}
+	
+	@ExceptionHandler(ParametroNoValidoException.class)
+	public ResponseEntity<Map<String, Object>> handleParametroNoValido(ParametroNoValidoException ex) {
+		Map<String, Object> response = new HashMap<>();
+		
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.BAD_REQUEST.value());
+        response.put("error", ex.getMessage());
+        
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+	}
 }
@@ -0,0 +1,34 @@
+package com.example.alumnos_api;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+
+@Configuration
+public class IndiceConfig {
+
+    // Alumnos que se leen en cada consulta al construir el índice
+    private static final int TAMANO_BLOQUE = 10_000;
+
+    /**
+     * Crea el índice de trigramas de la búsqueda avanzada con los alumnos que ya hay en la base de datos.
+     * Se leen solo el id y el nombre, por bloques ordenados por id, sin cargar entidades.
+     * Después lo mantiene SincronizacionIndice tras cada alta, cambio o baja confirmados.
+     */
+    @Bean
+    public IndiceTrigramas indiceTrigramas(AlumnoRepository repo) {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        long ultimoId = Long.MIN_VALUE;
+        List<Object[]> bloque;
+        do {
+            bloque = repo.findIdYNombreDesde(ultimoId, Limit.of(TAMANO_BLOQUE));
+            for (Object[] fila : bloque) {
+                ultimoId = (Long) fila[0];
+                indice.guardar(ultimoId, (String) fila[1]);
+            }
+        } while (bloque.size() == TAMANO_BLOQUE);
+        return indice;
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.alumnos_api;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria de los nombres de los alumnos para la búsqueda parcial.
+ * Cada nombre (en minúsculas) se parte en trigramas (grupos de 3 caracteres seguidos) y para cada
+ * trigrama se guarda la lista ordenada de los alumnos que lo contienen en un int[].
+ * Para buscar un texto se cruzan las listas de sus trigramas y solo se comprueba con contains()
+ * a los candidatos que aparecen en todas, en lugar de recorrer la tabla con LIKE '%texto%'.
+ *
+ * Los alumnos se numeran por orden de llegada (posición) y cada posición guarda su id y su nombre.
+ * Al modificar un alumno se le da una posición nueva, así que las listas siempre crecen por el final
+ * y siguen ordenadas sin reordenarlas; las posiciones antiguas se marcan como borradas y se
+ * descartan al buscar. Cuando hay más borradas que vivas, el índice se reconstruye.
+ */
+public class IndiceTrigramas {
+
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final int CAPACIDAD_LISTA = 4;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Lista de posiciones (ordenadas) de cada trigrama */
+    private final Map<Long, Lista> listas = new HashMap<>();
+
+    /** Posición actual de cada id */
+    private final Map<Long, Integer> posiciones = new HashMap<>();
+
+    /** id y nombre en minúsculas de cada posición (nombre null si la posición está borrada) */
+    private long[] ids = new long[CAPACIDAD_INICIAL];
+    private String[] nombres = new String[CAPACIDAD_INICIAL];
+    private int usadas;
+    private int borradas;
+
+    /**
+     * Posiciones de un trigrama: los primeros tamano elementos de datos, en orden creciente
+     */
+    private static final class Lista {
+        int[] datos = new int[CAPACIDAD_LISTA];
+        int tamano;
+
+        void anadir(int posicion) {
+            // Puede repetirse el trigrama en el mismo nombre: la posición ya está al final
+            if (tamano > 0 && datos[tamano - 1] == posicion) {
+                return;
+            }
+            if (tamano == datos.length) {
+                datos = Arrays.copyOf(datos, tamano * 2);
+            }
+            datos[tamano++] = posicion;
+        }
+    }
+
+    /**
+     * Añade un alumno o sustituye su nombre si ya estaba.
+     *
+     * @param id id del alumno
+     * @param nombre nombre del alumno
+     */
+    public void guardar(long id, String nombre) {
+        lock.writeLock().lock();
+        try {
+            Integer anterior = posiciones.get(id);
+            if (anterior != null) {
+                if (nombres[anterior].equals(normalizar(nombre))) {
+                    return;
+                }
+                borrarPosicion(anterior);
+            }
+            anadir(id, normalizar(nombre));
+            compactarSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un alumno del índice.
+     *
+     * @param id id del alumno
+     */
+    public void eliminar(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer posicion = posiciones.remove(id);
+            if (posicion != null) {
+                borrarPosicion(posicion);
+                compactarSiHaceFalta();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los alumnos cuyo nombre contiene un texto, sin distinguir mayúsculas
+     * (lo mismo que findByNombreContainingIgnoreCase).
+     * Con menos de 3 caracteres no hay trigramas y se recorren los nombres en memoria.
+     *
+     * @param texto texto a buscar
+     * @return ids de los alumnos encontrados, de menor a mayor
+     */
+    public long[] buscar(String texto) {
+        String buscado = normalizar(texto);
+        lock.readLock().lock();
+        try {
+            long[] encontrados = new long[16];
+            int total = 0;
+            if (buscado.length() < 3) {
+                for (int posicion = 0; posicion < usadas; posicion++) {
+                    if (nombres[posicion] != null && nombres[posicion].contains(buscado)) {
+                        if (total == encontrados.length) encontrados = Arrays.copyOf(encontrados, total * 2);
+                        encontrados[total++] = ids[posicion];
+                    }
+                }
+            } else {
+                Lista[] necesarias = listasDe(buscado);
+                if (necesarias == null) {
+                    return new long[0];
+                }
+                // Se recorre la lista más corta y se busca cada posición en las demás
+                Lista menor = necesarias[0];
+                int[] cursores = new int[necesarias.length];
+                candidatos:
+                for (int i = 0; i < menor.tamano; i++) {
+                    int posicion = menor.datos[i];
+                    for (int j = 1; j < necesarias.length; j++) {
+                        cursores[j] = buscarDesde(necesarias[j], cursores[j], posicion);
+                        if (cursores[j] == necesarias[j].tamano) break candidatos;
+                        if (necesarias[j].datos[cursores[j]] != posicion) continue candidatos;
+                    }
+                    // Tener todos los trigramas no garantiza que estén seguidos: se comprueba el nombre
+                    if (nombres[posicion] != null && nombres[posicion].contains(buscado)) {
+                        if (total == encontrados.length) encontrados = Arrays.copyOf(encontrados, total * 2);
+                        encontrados[total++] = ids[posicion];
+                    }
+                }
+            }
+            long[] resultado = Arrays.copyOf(encontrados, total);
+            Arrays.sort(resultado);
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si un nombre contiene el texto con el mismo criterio que buscar().
+     * Sirve para comprobar los alumnos encontrados con sus datos actuales.
+     *
+     * @param nombre nombre del alumno
+     * @param texto texto buscado
+     * @return true si el nombre contiene el texto sin distinguir mayúsculas
+     */
+    public static boolean contiene(String nombre, String texto) {
+        return nombre != null && normalizar(nombre).contains(normalizar(texto));
+    }
+
+    /**
+     * Número de alumnos en el índice
+     */
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return posiciones.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Listas de los trigramas de un texto, de la más corta a la más larga.
+     *
+     * @return listas, o null si algún trigrama no aparece en ningún nombre
+     */
+    private Lista[] listasDe(String texto) {
+        Lista[] resultado = new Lista[texto.length() - 2];
+        int n = 0;
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            Lista lista = listas.get(trigrama(texto, i));
+            if (lista == null) {
+                return null;
+            }
+            resultado[n++] = lista;
+        }
+        Arrays.sort(resultado, 0, n, (a, b) -> Integer.compare(a.tamano, b.tamano));
+        return Arrays.copyOf(resultado, n);
+    }
+
+    /**
+     * Primer índice desde desde cuyo valor es mayor o igual que posicion
+     * (búsqueda exponencial y luego binaria, porque las posiciones buscadas van creciendo).
+     */
+    private static int buscarDesde(Lista lista, int desde, int posicion) {
+        int salto = 1;
+        int alto = desde;
+        while (alto < lista.tamano && lista.datos[alto] < posicion) {
+            desde = alto + 1;
+            alto += salto;
+            salto *= 2;
+        }
+        int indice = Arrays.binarySearch(lista.datos, desde, Math.min(alto + 1, lista.tamano), posicion);
+        return indice >= 0 ? indice : -indice - 1;
+    }
+
+    private void anadir(long id, String nombre) {
+        if (usadas == ids.length) {
+            ids = Arrays.copyOf(ids, usadas * 2);
+            nombres = Arrays.copyOf(nombres, usadas * 2);
+        }
+        int posicion = usadas++;
+        ids[posicion] = id;
+        nombres[posicion] = nombre;
+        posiciones.put(id, posicion);
+        for (int i = 0; i + 3 <= nombre.length(); i++) {
+            listas.computeIfAbsent(trigrama(nombre, i), t -> new Lista()).anadir(posicion);
+        }
+    }
+
+    private void borrarPosicion(int posicion) {
+        nombres[posicion] = null;
+        borradas++;
+    }
+
+    /**
+     * Reconstruye el índice solo con las posiciones vivas cuando las borradas son mayoría
+     */
+    private void compactarSiHaceFalta() {
+        if (borradas < CAPACIDAD_INICIAL || borradas < usadas - borradas) {
+            return;
+        }
+        long[] idsVivos = new long[usadas - borradas];
+        String[] nombresVivos = new String[usadas - borradas];
+        int n = 0;
+        for (int posicion = 0; posicion < usadas; posicion++) {
+            if (nombres[posicion] != null) {
+                idsVivos[n] = ids[posicion];
+                nombresVivos[n++] = nombres[posicion];
+            }
+        }
+        listas.clear();
+        posiciones.clear();
+        ids = new long[Math.max(CAPACIDAD_INICIAL, n * 2)];
+        nombres = new String[ids.length];
+        usadas = 0;
+        borradas = 0;
+        for (int i = 0; i < n; i++) {
+            anadir(idsVivos[i], nombresVivos[i]);
+        }
+    }
+
+    private static String normalizar(String texto) {
+        return texto == null ? "" : texto.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Los tres caracteres (16 bits cada uno) empaquetados en un long
+     */
+    private static long trigrama(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32) | ((long) texto.charAt(inicio + 1) << 16) | texto.charAt(inicio + 2);
+    }
+}
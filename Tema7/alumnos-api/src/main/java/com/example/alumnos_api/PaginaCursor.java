@@ -0,0 +1,38 @@
+package com.example.alumnos_api;
+
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Respuesta del listado paginado por cursor.
+ *
+ * @param content alumnos de la página
+ * @param size tamaño de página pedido
+ * @param hasNext true si hay más alumnos después de esta página
+ * @param next cursor para pedir la página siguiente (null si no hay más)
+ */
+@Schema(description = "Página de alumnos paginada por cursor")
+public record PaginaCursor(
+        List<Alumno> content,
+        int size,
+        boolean hasNext,
+        @Schema(description = "Valor del parámetro after para la página siguiente (null si es la última)")
+        String next) {
+
+    /**
+     * Construye la respuesta a partir de la página devuelta por el repositorio,
+     * con el cursor del último alumno si hay página siguiente.
+     */
+    public static PaginaCursor de(Slice<Alumno> pagina, CampoOrden campo, Sort.Direction direccion) {
+        String next = null;
+        if (pagina.hasNext()) {
+            Alumno ultimo = pagina.getContent().get(pagina.getNumberOfElements() - 1);
+            next = Cursor.despuesDe(ultimo, campo, direccion).codificar();
+        }
+        return new PaginaCursor(pagina.getContent(), pagina.getSize(), pagina.hasNext(), next);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.alumnos_api;
+
+/**
+ * Un parámetro de la petición no es válido (un cursor, un campo de ordenación o un formato
+ * de exportación). GlobalExceptionHandler la convierte en un 400 con el mensaje, que está
+ * pensado para el cliente; cualquier otra excepción sigue siendo un error del servidor.
+ */
+public class ParametroNoValidoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ParametroNoValidoException(String mensaje) {
+        super(mensaje);
+    }
+
+    public ParametroNoValidoException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
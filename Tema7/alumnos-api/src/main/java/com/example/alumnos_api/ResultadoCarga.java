@@ -0,0 +1,92 @@
+package com.example.alumnos_api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Resultado de una carga masiva de alumnos: totales y el resultado de cada elemento
+ * en el orden en que llegaron.
+ */
+@Schema(description = "Resultado de la carga masiva de alumnos")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoCarga {
+
+    /**
+     * Resultado de un elemento del cuerpo.
+     *
+     * @param indice posición del elemento en el cuerpo (desde 0)
+     * @param estado "creado", "actualizado" o "error"
+     * @param id id del alumno creado o actualizado
+     * @param errores campo y mensaje de cada error (solo si estado es "error")
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Elemento(int indice, String estado, Long id, Map<String, String> errores) {
+    }
+
+    private int creados;
+    private int actualizados;
+    private int errores;
+    private String error;
+    private final List<Elemento> resultados = new ArrayList<>();
+
+    void creado(int indice, Long id) {
+        creados++;
+        resultados.add(new Elemento(indice, "creado", id, null));
+    }
+
+    void actualizado(int indice, Long id) {
+        actualizados++;
+        resultados.add(new Elemento(indice, "actualizado", id, null));
+    }
+
+    void error(int indice, Long id, Map<String, String> mensajes) {
+        errores++;
+        resultados.add(new Elemento(indice, "error", id, mensajes));
+    }
+
+    /**
+     * Añade los resultados de un lote ya guardado
+     */
+    void sumar(ResultadoCarga lote) {
+        creados += lote.creados;
+        actualizados += lote.actualizados;
+        errores += lote.errores;
+        resultados.addAll(lote.resultados);
+    }
+
+    /**
+     * Anota un error que detiene la carga (por ejemplo, JSON mal formado).
+     * Los elementos anteriores ya se han procesado.
+     */
+    void interrumpir(String mensaje) {
+        error = mensaje;
+    }
+
+    public int getCreados() {
+        return creados;
+    }
+
+    public int getActualizados() {
+        return actualizados;
+    }
+
+    public int getErrores() {
+        return errores;
+    }
+
+    @Schema(description = "Motivo por el que se detuvo la carga antes de terminar el cuerpo (null si se leyó entero)")
+    public String getError() {
+        return error;
+    }
+
+    public List<Elemento> getResultados() {
+        // Los elementos válidos se anotan al guardar su lote, después de los erróneos leídos a la vez
+        resultados.sort((a, b) -> Integer.compare(a.indice(), b.indice()));
+        return resultados;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.alumnos_api;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Mantiene IndiceTrigramas al día con los cambios de alumnos confirmados en la base de datos.
+ * El índice no se actualiza con los datos que tiene en memoria quien guarda, sino que, después del
+ * commit, se vuelve a leer de la base de datos el nombre de los alumnos cambiados. Las lecturas y
+ * escrituras en el índice se hacen de una en una: la última que se hace para un alumno es posterior
+ * a todos los commits que la provocaron, así que lee su estado final aunque dos peticiones sobre el
+ * mismo alumno terminen en distinto orden del que confirmaron.
+ */
+@Component
+public class SincronizacionIndice {
+
+    @Autowired
+    private AlumnoRepository repo;
+
+    @Autowired
+    private IndiceTrigramas indice;
+
+    @Autowired
+    private PlatformTransactionManager transacciones;
+
+    private final Lock cerrojo = new ReentrantLock();
+
+    /**
+     * Actualiza en el índice unos alumnos cuando se confirme la transacción actual
+     * (si se deshace, no se hace nada). Sin transacción, se actualizan en el momento.
+     *
+     * @param ids ids de los alumnos creados, modificados o borrados
+     */
+    public void alConfirmar(Collection<Long> ids) {
+        List<Long> copia = List.copyOf(ids);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refrescar(copia);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refrescar(copia);
+            }
+        });
+    }
+
+    /**
+     * Copia al índice el nombre que tienen ahora en la base de datos unos alumnos
+     * y quita los que ya no existen.
+     *
+     * @param ids ids de los alumnos
+     */
+    public void refrescar(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        cerrojo.lock();
+        try {
+            // Tras el commit la transacción anterior ya no sirve: la lectura va en una nueva
+            TransactionTemplate lectura = new TransactionTemplate(transacciones);
+            lectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            lectura.setReadOnly(true);
+            List<Object[]> filas = lectura.execute(estado -> repo.findIdYNombreByIdIn(ids));
+
+            Set<Long> pendientes = new HashSet<>(ids);
+            for (Object[] fila : filas) {
+                Long id = (Long) fila[0];
+                indice.guardar(id, (String) fila[1]);
+                pendientes.remove(id);
+            }
+            pendientes.forEach(indice::eliminar);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+}
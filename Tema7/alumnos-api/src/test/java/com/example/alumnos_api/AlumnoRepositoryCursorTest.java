@@ -0,0 +1,88 @@
+package com.example.alumnos_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+@SpringBootTest
+class AlumnoRepositoryCursorTest {
+
+    private static final int TAMANO = 4;
+
+    @Autowired
+    private AlumnoRepository repo;
+
+    @BeforeEach
+    void crearAlumnos() {
+        // Nombres y fechas repetidos (empates que desempata el id) y alguna fecha a null
+        List<Alumno> alumnos = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            Alumno alumno = new Alumno();
+            alumno.setNombre("Alumno " + (i % 5));
+            alumno.setEmail("alumno" + i + "@correo.com");
+            alumno.setFechaRegistro(i % 7 == 0 ? null : LocalDate.of(2026, 1, 1 + i % 3));
+            alumnos.add(alumno);
+        }
+        repo.saveAll(alumnos);
+    }
+
+    @AfterEach
+    void borrarAlumnos() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void recorrerPorCursorDevuelveTodosEnOrdenSinRepetir() {
+        for (CampoOrden campo : CampoOrden.values()) {
+            for (Sort.Direction direccion : Sort.Direction.values()) {
+                assertEquals(ordenEsperado(campo, direccion), recorrer(campo, direccion),
+                        campo + " " + direccion);
+            }
+        }
+    }
+
+    @Test
+    void unCursorNoValidoSeRechaza() {
+        assertThrows(ParametroNoValidoException.class, () -> Cursor.decodificar("no-es-un-cursor"));
+    }
+
+    private List<Long> recorrer(CampoOrden campo, Sort.Direction direccion) {
+        List<Long> ids = new ArrayList<>();
+        Slice<Alumno> pagina = repo.buscarPrimeros(campo, direccion, TAMANO);
+        while (true) {
+            pagina.forEach(alumno -> ids.add(alumno.getId()));
+            PaginaCursor respuesta = PaginaCursor.de(pagina, campo, direccion);
+            if (!respuesta.hasNext()) {
+                break;
+            }
+            // El cursor viaja como texto, igual que entre cliente y servidor
+            pagina = repo.buscarDespuesDe(Cursor.decodificar(respuesta.next()), TAMANO);
+        }
+        assertFalse(ids.isEmpty());
+        return ids;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<Long> ordenEsperado(CampoOrden campo, Sort.Direction direccion) {
+        Comparator<Alumno> porCampo = Comparator.comparing(
+                alumno -> (Comparable) campo.valor(alumno), Comparator.nullsFirst(Comparator.naturalOrder()));
+        Comparator<Alumno> orden = porCampo.thenComparing(Alumno::getId);
+        if (direccion.isDescending()) {
+            orden = orden.reversed();
+        }
+        return repo.findAll().stream().sorted(orden).map(Alumno::getId).toList();
+    }
+}
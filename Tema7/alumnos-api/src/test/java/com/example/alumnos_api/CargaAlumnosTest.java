@@ -0,0 +1,99 @@
+package com.example.alumnos_api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class CargaAlumnosTest {
+
+    @Autowired
+    private CargaAlumnos carga;
+
+    @Autowired
+    private AlumnoRepository repo;
+
+    @Autowired
+    private IndiceTrigramas indice;
+
+    @AfterEach
+    void borrarAlumnos() {
+        repo.findAll().forEach(a -> indice.eliminar(a.getId()));
+        repo.deleteAll();
+    }
+
+    @Test
+    void arrayConElementosValidosEInvalidos() {
+        // Más de un lote, con errores de validación, de tipos y de id mezclados
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 120; i++) {
+            if (i == 7) {
+                json.append("{\"nombre\":\"\",\"email\":\"sin-arroba\"},");
+            } else if (i == 60) {
+                json.append("{\"nombre\":[1,2],\"email\":\"x@correo.com\"},");
+            } else if (i == 61) {
+                json.append("{\"id\":999999,\"nombre\":\"Nadie\",\"email\":\"nadie@correo.com\"},");
+            } else {
+                json.append("{\"nombre\":\"Carga ").append(i).append("\",\"email\":\"carga").append(i).append("@correo.com\"},");
+            }
+        }
+        json.setCharAt(json.length() - 1, ']');
+
+        ResultadoCarga resultado = carga.cargar(cuerpo(json.toString()));
+
+        assertNull(resultado.getError());
+        assertEquals(117, resultado.getCreados());
+        assertEquals(3, resultado.getErrores());
+        assertEquals(117, repo.count());
+        List<ResultadoCarga.Elemento> elementos = resultado.getResultados();
+        assertEquals(120, elementos.size());
+        for (int i = 0; i < elementos.size(); i++) {
+            assertEquals(i, elementos.get(i).indice());
+        }
+        assertEquals(2, elementos.get(7).errores().size());
+        assertTrue(elementos.get(60).errores().containsKey("json"));
+        assertTrue(elementos.get(61).errores().containsKey("id"));
+
+        // Los alumnos creados están en el índice de la búsqueda avanzada
+        assertArrayEquals(new long[] { elementos.get(119).id() }, indice.buscar("Carga 119"));
+    }
+
+    @Test
+    void ndjsonConActualizacionesYJsonMalFormado() {
+        Alumno existente = new Alumno();
+        existente.setNombre("Antes");
+        existente.setEmail("antes@correo.com");
+        existente = repo.save(existente);
+        indice.guardar(existente.getId(), existente.getNombre());
+
+        String ndjson = "{\"nombre\":\"Nuevo\",\"email\":\"nuevo@correo.com\"}\n"
+                + "{\"id\":" + existente.getId() + ",\"nombre\":\"Después\",\"email\":\"despues@correo.com\"}\n"
+                + "{\"nombre\":\"Roto\",\n";
+
+        ResultadoCarga resultado = carga.cargar(cuerpo(ndjson));
+
+        assertNotNull(resultado.getError());
+        assertEquals(1, resultado.getCreados());
+        assertEquals(1, resultado.getActualizados());
+        Alumno actualizado = repo.findById(existente.getId()).orElseThrow();
+        assertEquals("Después", actualizado.getNombre());
+        assertEquals(existente.getFechaRegistro(), actualizado.getFechaRegistro());
+        assertEquals(0, indice.buscar("antes").length);
+        assertEquals(1, indice.buscar("después").length);
+    }
+
+    private static ByteArrayInputStream cuerpo(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
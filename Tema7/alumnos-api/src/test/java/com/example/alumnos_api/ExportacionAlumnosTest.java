@@ -0,0 +1,88 @@
+package com.example.alumnos_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+class ExportacionAlumnosTest {
+
+    @Autowired
+    private ExportacionAlumnos exportacion;
+
+    @Autowired
+    private AlumnoRepository repo;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    private List<Alumno> alumnos;
+
+    @BeforeEach
+    void crearAlumnos() {
+        List<Alumno> nuevos = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            Alumno alumno = new Alumno();
+            // Algunos nombres con comas y comillas para el CSV
+            alumno.setNombre(i % 100 == 0 ? "Pérez, \"Juan\" " + i : "Alumno " + i);
+            alumno.setEmail("alumno" + i + "@correo.com");
+            nuevos.add(alumno);
+        }
+        alumnos = repo.saveAll(nuevos);
+    }
+
+    @AfterEach
+    void borrarAlumnos() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void ndjsonDesdeElPrincipioYReanudado() throws IOException {
+        String[] lineas = exportar(FormatoExportacion.NDJSON, null).split("\n");
+        assertEquals(alumnos.size(), lineas.length);
+        for (int i = 0; i < lineas.length; i++) {
+            Alumno leido = mapper.readValue(lineas[i], Alumno.class);
+            assertEquals(alumnos.get(i).getId(), leido.getId());
+            assertEquals(alumnos.get(i).getNombre(), leido.getNombre());
+        }
+
+        // Reanudar tras el alumno 1000: solo los siguientes
+        Long desde = alumnos.get(999).getId();
+        String[] resto = exportar(FormatoExportacion.NDJSON, desde).split("\n");
+        assertEquals(alumnos.size() - 1000, resto.length);
+        assertEquals(alumnos.get(1000).getId(), mapper.readValue(resto[0], Alumno.class).getId());
+    }
+
+    @Test
+    void csvConCabeceraYCamposEscapados() throws IOException {
+        String[] lineas = exportar(FormatoExportacion.CSV, null).split("\n");
+        assertEquals(alumnos.size() + 1, lineas.length);
+        assertEquals("id,nombre,email,fechaRegistro", lineas[0]);
+        Alumno primero = alumnos.get(0);
+        assertEquals(primero.getId() + ",\"Pérez, \"\"Juan\"\" 0\",alumno0@correo.com," + primero.getFechaRegistro(), lineas[1]);
+        assertEquals(alumnos.get(1).getId() + ",Alumno 1,alumno1@correo.com," + primero.getFechaRegistro(), lineas[2]);
+
+        // Al reanudar no se repite la cabecera
+        String resto = exportar(FormatoExportacion.CSV, alumnos.get(alumnos.size() - 2).getId());
+        assertTrue(resto.startsWith(alumnos.get(alumnos.size() - 1).getId() + ","));
+    }
+
+    private String exportar(FormatoExportacion formato, Long desdeId) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacion.exportar(formato, desdeId, salida);
+        return salida.toString(StandardCharsets.UTF_8);
+    }
+}
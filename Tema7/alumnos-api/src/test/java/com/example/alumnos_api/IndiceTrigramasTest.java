@@ -0,0 +1,112 @@
+package com.example.alumnos_api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compara IndiceTrigramas con una búsqueda contains() sobre todos los nombres,
+ * después de altas, cambios y bajas (suficientes para que el índice se compacte).
+ */
+class IndiceTrigramasTest {
+
+    private static final String[] NOMBRES = { "Juan", "Luis", "María", "José", "Ana", "Lucía", "Pérez",
+            "García", "Barrionuevo", "López", "Sánchez", "Martín", "Juana", "Luisa" };
+
+    @Test
+    void encuentraLoMismoQueContains() {
+        Random random = new Random(42);
+        IndiceTrigramas indice = new IndiceTrigramas();
+        Map<Long, String> alumnos = new HashMap<>();
+
+        for (long id = 1; id <= 5000; id++) {
+            guardar(indice, alumnos, id, nombreAleatorio(random));
+        }
+        comprobar(indice, alumnos, random);
+
+        // Cambios y bajas: más de la mitad de las posiciones quedan borradas
+        for (int i = 0; i < 6000; i++) {
+            long id = 1 + random.nextInt(5000);
+            if (random.nextBoolean()) {
+                indice.eliminar(id);
+                alumnos.remove(id);
+            } else {
+                guardar(indice, alumnos, id, nombreAleatorio(random));
+            }
+        }
+        comprobar(indice, alumnos, random);
+        assertEquals(alumnos.size(), indice.tamano());
+    }
+
+    /**
+     * Mide la búsqueda con un millón de alumnos.
+     * Solo se ejecuta si se pide: mvn test -Dtest=IndiceTrigramasTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void buscarEnUnMillonDeAlumnos() {
+        Random random = new Random(7);
+        IndiceTrigramas indice = new IndiceTrigramas();
+        long inicio = System.nanoTime();
+        for (long id = 1; id <= 1_000_000; id++) {
+            indice.guardar(id, nombreAleatorio(random) + " " + Long.toString(id * 2654435761L % 1_000_003, 36));
+        }
+        System.out.printf("%nÍndice de 1.000.000 alumnos creado en %.0f ms%n", (System.nanoTime() - inicio) / 1e6);
+
+        for (String texto : new String[] { "barrionuevo juan", "ía pér", "luisa", "zx9", "k3f" }) {
+            int repeticiones = 200;
+            int encontrados = 0;
+            long[] tiempos = new long[repeticiones];
+            for (int i = 0; i < repeticiones; i++) {
+                long t = System.nanoTime();
+                encontrados = indice.buscar(texto).length;
+                tiempos[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(tiempos);
+            System.out.printf("buscar(\"%s\"): %,d alumnos, mediana %.3f ms%n",
+                    texto, encontrados, tiempos[repeticiones / 2] / 1e6);
+        }
+    }
+
+    private static void guardar(IndiceTrigramas indice, Map<Long, String> alumnos, long id, String nombre) {
+        indice.guardar(id, nombre);
+        alumnos.put(id, nombre);
+    }
+
+    private static void comprobar(IndiceTrigramas indice, Map<Long, String> alumnos, Random random) {
+        String[] textos = { "juan", "JUAN", "a", "ía", "uis", "barrionuevo", "ez ", "xyz", "an a", "" };
+        for (String texto : textos) {
+            assertArrayEquals(esperado(alumnos, texto), indice.buscar(texto), texto);
+        }
+        // Trozos de nombres existentes
+        Object[] nombres = alumnos.values().toArray();
+        for (int i = 0; i < 200; i++) {
+            String nombre = (String) nombres[random.nextInt(nombres.length)];
+            int desde = random.nextInt(nombre.length());
+            String texto = nombre.substring(desde, Math.min(nombre.length(), desde + 1 + random.nextInt(8)));
+            assertArrayEquals(esperado(alumnos, texto), indice.buscar(texto), texto);
+        }
+    }
+
+    private static long[] esperado(Map<Long, String> alumnos, String texto) {
+        String buscado = texto.toLowerCase(Locale.ROOT);
+        return alumnos.entrySet().stream()
+                .filter(e -> e.getValue().toLowerCase(Locale.ROOT).contains(buscado))
+                .mapToLong(Map.Entry::getKey)
+                .sorted()
+                .toArray();
+    }
+
+    private static String nombreAleatorio(Random random) {
+        return NOMBRES[random.nextInt(NOMBRES.length)] + " " + NOMBRES[random.nextInt(NOMBRES.length)]
+                + " " + NOMBRES[random.nextInt(NOMBRES.length)];
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.alumnos_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Mide lo que tarda GET /alumnos (el repositorio que usa) con y sin la consulta COUNT,
+ * en la primera página, en una intermedia y en la última, ordenando por id y por nombre.
+ * Solo se ejecuta si se pide: mvn test -Dbenchmark=true [-Dbenchmark.alumnos=200000]
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ListarAlumnosBenchmarkTest {
+
+    private static final int ALUMNOS = Integer.getInteger("benchmark.alumnos", 200_000);
+    private static final int TAMANO_PAGINA = 20;
+    private static final int REPETICIONES = 30;
+
+    // IDs lejos de los que genera la secuencia, para poder borrarlos después
+    private static final long PRIMER_ID = 1_000_000_000L;
+
+    @Autowired
+    private AlumnoRepository repo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void crearAlumnos() {
+        int lote = 10_000;
+        for (int inicio = 0; inicio < ALUMNOS; inicio += lote) {
+            int desde = inicio;
+            int filas = Math.min(lote, ALUMNOS - inicio);
+            jdbc.batchUpdate("INSERT INTO alumno (id, nombre, email, fecha_registro) VALUES (?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        int n = desde + i;
+                        ps.setLong(1, PRIMER_ID + n);
+                        // Nombres desordenados respecto al id
+                        ps.setString(2, "Alumno " + (n * 7919L % ALUMNOS));
+                        ps.setString(3, "alumno" + n + "@correo.com");
+                        ps.setDate(4, Date.valueOf(LocalDate.of(2020, 1, 1).plusDays(n % 2000)));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filas;
+                    }
+                });
+        }
+    }
+
+    @AfterAll
+    void borrarAlumnos() {
+        jdbc.update("DELETE FROM alumno WHERE id >= ?", PRIMER_ID);
+    }
+
+    @Test
+    void latenciaConYSinTotal() {
+        int ultima = (ALUMNOS - 1) / TAMANO_PAGINA;
+        System.out.printf("%nGET /alumnos con %,d alumnos, %d por página (mediana de %d peticiones)%n",
+                ALUMNOS, TAMANO_PAGINA, REPETICIONES);
+        System.out.printf("%-8s %-8s %16s %16s%n", "sortBy", "página", "con total", "withTotal=false");
+
+        for (String campo : new String[] { "id", "nombre" }) {
+            for (int pagina : new int[] { 0, ultima / 2, ultima }) {
+                Pageable pageable = PageRequest.of(pagina, TAMANO_PAGINA,
+                        Sort.by(campo).and(Sort.by("id")));
+                double conTotal = medianaMs(() -> repo.findAll(pageable));
+                double sinTotal = medianaMs(() -> repo.findAllBy(pageable));
+                System.out.printf("%-8s %-8d %13.2f ms %13.2f ms%n", campo, pagina, conTotal, sinTotal);
+            }
+        }
+
+        assertEquals(TAMANO_PAGINA, repo.findAllBy(PageRequest.of(0, TAMANO_PAGINA)).getNumberOfElements());
+    }
+
+    private static double medianaMs(Supplier<Slice<Alumno>> consulta) {
+        // Calentamiento: carga de clases, planes de consulta y caché de la base de datos
+        for (int i = 0; i < 5; i++) {
+            consulta.get();
+        }
+        double[] tiempos = new double[REPETICIONES];
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            consulta.get();
+            tiempos[i] = (System.nanoTime() - inicio) / 1e6;
+        }
+        Arrays.sort(tiempos);
+        return tiempos[REPETICIONES / 2];
+    }
+}
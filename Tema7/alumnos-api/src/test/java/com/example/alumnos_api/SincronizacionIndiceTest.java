@@ -0,0 +1,92 @@
+package com.example.alumnos_api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class SincronizacionIndiceTest {
+
+    @Autowired
+    private SincronizacionIndice sincronizacion;
+
+    @Autowired
+    private AlumnoController controller;
+
+    @Autowired
+    private AlumnoRepository repo;
+
+    @Autowired
+    private IndiceTrigramas indice;
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    private Alumno alumno;
+
+    @BeforeEach
+    void crearAlumno() {
+        Alumno nuevo = new Alumno();
+        nuevo.setNombre("Lucía Ortega");
+        nuevo.setEmail("lucia@correo.com");
+        alumno = controller.crear(nuevo);
+    }
+
+    @AfterEach
+    void borrarAlumnos() {
+        repo.findAll().forEach(a -> indice.eliminar(a.getId()));
+        repo.deleteAll();
+    }
+
+    @Test
+    void elIndiceCambiaSoloAlConfirmar() {
+        assertArrayEquals(new long[] { alumno.getId() }, indice.buscar("Ortega"));
+
+        // Se deshace: el índice sigue con el nombre anterior
+        transaccion.executeWithoutResult(estado -> {
+            cambiarNombre("Marta Gil");
+            estado.setRollbackOnly();
+        });
+        assertArrayEquals(new long[] { alumno.getId() }, indice.buscar("Ortega"));
+        assertEquals(0, indice.buscar("Marta").length);
+
+        // Se confirma: hasta el commit el índice no cambia
+        transaccion.executeWithoutResult(estado -> {
+            cambiarNombre("Marta Gil");
+            assertEquals(0, indice.buscar("Marta").length);
+        });
+        assertArrayEquals(new long[] { alumno.getId() }, indice.buscar("Marta"));
+        assertEquals(0, indice.buscar("Ortega").length);
+
+        // Un alumno borrado sale del índice
+        controller.eliminar(alumno.getId());
+        assertEquals(0, indice.buscar("Marta").length);
+    }
+
+    @Test
+    void laBusquedaDescartaNombresQueYaNoCoinciden() {
+        // El índice con un nombre que ya no es el de la base de datos
+        indice.guardar(alumno.getId(), "Nombre Antiguo");
+        assertTrue(controller.buscarPorNombreAvanzado("Antiguo").isEmpty());
+
+        sincronizacion.refrescar(List.of(alumno.getId()));
+        assertEquals(List.of(alumno.getId()),
+                controller.buscarPorNombreAvanzado("ortega").stream().map(Alumno::getId).toList());
+    }
+
+    private void cambiarNombre(String nombre) {
+        Alumno a = repo.findById(alumno.getId()).orElseThrow();
+        a.setNombre(nombre);
+        repo.save(a);
+        sincronizacion.alConfirmar(List.of(a.getId()));
+    }
+}